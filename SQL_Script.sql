@@ -59,4 +59,13 @@ MODIFY COLUMN result_id BIGINT COMMENT '关联的分析结果ID';
 -- 为已有的表添加任务ID字段（如果表已存在但没有task_id字段）
 ALTER TABLE fullnet_results 
 ADD COLUMN IF NOT EXISTS task_id VARCHAR(36) COMMENT '关联的异步任务ID',
-ADD INDEX IF NOT EXISTS idx_task_id (task_id); 
\ No newline at end of file
+ADD INDEX IF NOT EXISTS idx_task_id (task_id); 
+
+-- 为ihcs表添加强度直方图字段，保存首次分析时统计的256区间直方图（256个大端序long）
+ALTER TABLE ihcs
+ADD COLUMN IF NOT EXISTS histogram BLOB COMMENT '256区间强度直方图，调整阈值时无需重新读取图像';
+
+-- 为ihcs表添加直方图对应原图的修改时间和大小，原图被替换后重新统计直方图
+ALTER TABLE ihcs
+ADD COLUMN IF NOT EXISTS histogram_source_modified BIGINT COMMENT '统计直方图时原图的修改时间（毫秒）',
+ADD COLUMN IF NOT EXISTS histogram_source_size BIGINT COMMENT '统计直方图时原图的大小（字节）';
@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# 对当前运行的后端做一轮瓦片压测，并把结果追加到results.md
+# 平台线程模式和虚拟线程模式各启动一次后端，分别运行本脚本：
+#   ./compare.sh platform <folder> <pyramid> <level> <cols> <rows>
+#   ./compare.sh virtual  <folder> <pyramid> <level> <cols> <rows>
+# 环境变量：BASE_URL（默认http://localhost:8080）、DURATION（默认60s）、CONNECTIONS（默认"50 200 800"）
+set -euo pipefail
+
+if [ $# -lt 6 ]; then
+  echo "用法: $0 <platform|virtual> <folder> <pyramid> <level> <cols> <rows> [format]" >&2
+  exit 1
+fi
+
+MODE=$1
+shift
+BASE_URL=${BASE_URL:-http://localhost:8080}
+DURATION=${DURATION:-60s}
+CONNECTIONS=${CONNECTIONS:-"50 200 800"}
+DIR=$(cd "$(dirname "$0")" && pwd)
+RESULTS="$DIR/results.md"
+
+if [ ! -f "$RESULTS" ]; then
+  echo "| 模式 | 连接数 | 请求/秒 | 平均延迟 | P99延迟 | 错误 |" > "$RESULTS"
+  echo "| --- | --- | --- | --- | --- | --- |" >> "$RESULTS"
+fi
+
+for c in $CONNECTIONS; do
+  echo "==> $MODE, $c 连接, 持续 $DURATION"
+  OUTPUT=$(wrk -t4 -c"$c" -d"$DURATION" --latency -s "$DIR/tiles.lua" "$BASE_URL" -- "$@")
+  echo "$OUTPUT"
+  RPS=$(echo "$OUTPUT" | awk '/Requests\/sec/ {print $2}')
+  AVG=$(echo "$OUTPUT" | awk '/Latency/ && !/Distribution/ {print $2; exit}')
+  P99=$(echo "$OUTPUT" | awk '$1 == "99%" {print $2}')
+  ERRORS=$(echo "$OUTPUT" | awk '/Non-2xx|Socket errors/ {printf "%s ", $0}')
+  echo "| $MODE | $c | $RPS | $AVG | $P99 | ${ERRORS:-0} |" >> "$RESULTS"
+done
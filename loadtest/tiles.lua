@@ -0,0 +1,21 @@
+-- wrk脚本：随机请求同一层级的DZI瓦片
+-- 用法: wrk -s tiles.lua <url> -- <folder> <pyramid> <level> <cols> <rows> [format]
+local folder, pyramid, level, cols, rows, format
+
+function init(args)
+  folder = args[1]
+  pyramid = args[2]
+  level = args[3]
+  cols = tonumber(args[4])
+  rows = tonumber(args[5])
+  format = args[6] or "jpeg"
+  math.randomseed(os.time() + (tonumber(tostring({}):sub(8), 16) or 0))
+end
+
+function request()
+  local col = math.random(0, cols - 1)
+  local row = math.random(0, rows - 1)
+  local path = string.format("/api/dzi/processed/%s/%s_files/%s/%d_%d.%s",
+      folder, pyramid, level, col, row, format)
+  return wrk.format("GET", path)
+end
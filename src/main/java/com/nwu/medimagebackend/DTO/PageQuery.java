@@ -0,0 +1,39 @@
+package com.nwu.medimagebackend.DTO;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分页列表查询参数
+ *
+ * @author MedImage团队
+ */
+@Data
+public class PageQuery implements Serializable {
+
+    /**
+     * 上一页返回的游标，首页为空
+     */
+    private String cursor;
+
+    /**
+     * 每页条目数
+     */
+    private int limit = 100;
+
+    /**
+     * 排序字段：name（名称）或mtime（修改时间）
+     */
+    private String sort = "name";
+
+    /**
+     * 排序方向：asc或desc
+     */
+    private String order = "asc";
+
+    /**
+     * 名称前缀过滤，为空时不过滤
+     */
+    private String prefix;
+}
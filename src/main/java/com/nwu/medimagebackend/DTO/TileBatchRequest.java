@@ -0,0 +1,44 @@
+package com.nwu.medimagebackend.DTO;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量瓦片请求
+ * <p>
+ * 一次请求同一张切片的多个瓦片，slide为DZI描述文件的相对路径（可省略.dzi后缀），
+ * 瓦片路径按 slide_files/level/x_y.format 拼接。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+public class TileBatchRequest implements Serializable {
+
+    /**
+     * 切片路径，例如 folder/name.dzi
+     */
+    private String slide;
+
+    /**
+     * 瓦片格式，默认为jpeg
+     */
+    private String format = "jpeg";
+
+    /**
+     * 瓦片坐标列表
+     */
+    private List<TileCoordinate> tiles;
+
+    /**
+     * 瓦片坐标
+     */
+    @Data
+    public static class TileCoordinate implements Serializable {
+        private int level;
+        private int x;
+        private int y;
+    }
+}
@@ -1,16 +1,20 @@
 package com.nwu.medimagebackend.config;
 
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 异步任务配置
  * <p>
- * 配置异步任务执行器，用于处理异步图像分析任务
+ * 配置异步任务执行器，用于处理异步图像分析任务和瓦片并行读取
  * </p>
  * 
  * @author MedImage团队
@@ -22,13 +26,18 @@ public class AsyncConfig {
     /**
      * 创建异步任务执行器
      * <p>
-     * 配置线程池参数，用于执行异步分析任务
+     * 配置线程池参数，用于执行异步分析任务。
+     * 启用虚拟线程（spring.threads.virtual.enabled=true，且运行在Java 21及以上）时，
+     * 线程池的工作线程改为虚拟线程，等待数据库和文件IO时不占用平台线程；
+     * 并发数、队列容量和队列满时拒绝任务（抛出TaskRejectedException）的行为与平台线程模式相同，
+     * 提交任务的请求线程不会因等待空闲线程而阻塞。
      * </p>
      * 
+     * @param environment 应用环境，用于判断是否启用虚拟线程
      * @return 异步任务执行器
      */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(Environment environment) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // 核心线程数，保持活跃的线程数量
         executor.setCorePoolSize(3);
@@ -38,6 +47,10 @@ public class AsyncConfig {
         executor.setQueueCapacity(50);
         // 线程前缀，用于区分不同的线程池
         executor.setThreadNamePrefix("fullnet-analysis-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // 工作线程使用虚拟线程，线程数和队列仍按上面的配置限制
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("fullnet-analysis-").getVirtualThreadFactory());
+        }
         // 等待所有任务结束后再关闭线程池
         executor.setWaitForTasksToCompleteOnShutdown(true);
         // 等待时间
@@ -46,4 +59,90 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 创建瓦片读取执行器
+     * <p>
+     * 用于批量瓦片接口并行读取瓦片，与分析任务的线程池隔离，
+     * 避免长时间运行的分析任务占满线程导致瓦片请求排队。
+     * 队列满时由提交请求的线程自行读取，对批量请求形成背压。
+     * </p>
+     *
+     * @return 瓦片读取执行器
+     */
+    @Bean(name = "tileIoExecutor")
+    public Executor tileIoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 瓦片读取以IO等待为主，线程数可多于CPU核数
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(1024);
+        executor.setThreadNamePrefix("tile-io-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 创建瓦片预取执行器
+     * <p>
+     * 线程数和队列都很小，线程优先级最低，保证预取不与用户请求争抢资源。
+     * 队列满时拒绝新任务（抛出TaskRejectedException），由预取服务丢弃并计数。
+     * </p>
+     *
+     * @return 瓦片预取执行器
+     */
+    @Bean(name = "tilePrefetchExecutor")
+    public Executor tilePrefetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("tile-prefetch-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 创建金字塔生成执行器
+     * <p>
+     * 每个生成任务内部已使用并行计算，任务之间串行执行，
+     * 使同时驻留内存的切片区域和瓦片数量有固定上限。
+     * 金字塔打包任务也在此执行器中运行，与生成任务互不重叠。
+     * </p>
+     *
+     * @return 金字塔生成执行器
+     */
+    @Bean(name = "pyramidJobExecutor")
+    public Executor pyramidJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("pyramid-job-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 创建后台删除执行器
+     * <p>
+     * 删除任务逐个执行，每个任务内部再使用少量低优先级线程并行删除文件。
+     * </p>
+     *
+     * @return 后台删除执行器
+     */
+    @Bean(name = "dziDeleteExecutor")
+    public Executor dziDeleteExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("dzi-delete-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.initialize();
+        return executor;
+    }
+}
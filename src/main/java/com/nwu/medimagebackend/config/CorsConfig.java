@@ -72,17 +72,16 @@ public class CorsConfig {
     private long maxAge;
 
     /**
-     * 创建并配置CORS过滤器
+     * 创建CORS配置
      * <p>
-     * 该Bean会被Spring容器自动注册为Filter，处理所有经过的请求，
-     * 添加适当的CORS响应头，以允许跨域请求。
+     * Servlet过滤器和可选的响应式瓦片服务共用同一份配置。
      * </p>
      *
-     * @return 配置好的CorsFilter实例
+     * @return CORS配置
      */
     @Bean
-    public CorsFilter corsFilter() {
-        log.info("=== 初始化CORS过滤器 ===");
+    public CorsConfiguration corsConfiguration() {
+        log.info("=== 初始化CORS配置 ===");
         log.info("允许的源模式: {}", allowedOriginPatterns);
         log.info("允许的HTTP方法: {}", allowedMethods);
         log.info("允许的请求头: {}", allowedHeaders);
@@ -119,7 +118,21 @@ public class CorsConfig {
         
         // 预检请求有效期
         config.setMaxAge(maxAge);
-        
+        return config;
+    }
+
+    /**
+     * 创建并配置CORS过滤器
+     * <p>
+     * 该Bean会被Spring容器自动注册为Filter，处理所有经过的请求，
+     * 添加适当的CORS响应头，以允许跨域请求。
+     * </p>
+     *
+     * @param config CORS配置
+     * @return 配置好的CorsFilter实例
+     */
+    @Bean
+    public CorsFilter corsFilter(CorsConfiguration config) {
         // 创建URL匹配源并注册配置
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -127,4 +140,4 @@ public class CorsConfig {
         
         return new CorsFilter(source);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.nwu.medimagebackend.config;
+
+import io.scif.SCIFIO;
+import lombok.extern.slf4j.Slf4j;
+import net.imagej.ImageJ;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * ImageJ/SCIFIO配置类
+ * <p>
+ * 创建ImageJ实例时会扫描类路径发现插件并启动全部服务，耗时数秒且占用数百MB内存。
+ * 全局只创建一个SciJava上下文，IHC分析、切片读取和金字塔生成共用，
+ * 上下文中的服务是线程安全的，每次打开图像都会创建独立的读取器。
+ * 应用启动完成后预先加载图像格式列表，首次分析无需再等待格式发现；应用关闭时释放上下文。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Configuration
+@Slf4j
+public class ImageJConfig {
+
+    private ImageJ imageJ;
+
+    /**
+     * 创建共享的ImageJ实例
+     *
+     * @return ImageJ实例
+     */
+    @Bean(destroyMethod = "")
+    public ImageJ imageJ() {
+        long start = System.currentTimeMillis();
+        imageJ = new ImageJ();
+        log.info("ImageJ上下文初始化完成, 耗时={}ms", System.currentTimeMillis() - start);
+        return imageJ;
+    }
+
+    /**
+     * 提供与ImageJ共用上下文的SCIFIO实例，用于读取TIFF/OME-TIFF切片
+     *
+     * @param imageJ ImageJ实例
+     * @return SCIFIO实例
+     */
+    @Bean(destroyMethod = "")
+    public SCIFIO scifio(ImageJ imageJ) {
+        return imageJ.scifio();
+    }
+
+    /**
+     * 应用启动完成后预热图像格式和数据集读取服务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            int formats = imageJ.scifio().format().getAllFormats().size();
+            imageJ.scifio().datasetIO();
+            log.info("ImageJ预热完成, 已加载{}种图像格式, 耗时={}ms", formats, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("ImageJ预热失败，首次分析时再加载: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭时释放SciJava上下文
+     */
+    @PreDestroy
+    public void destroy() {
+        if (imageJ != null) {
+            imageJ.context().dispose();
+        }
+    }
+}
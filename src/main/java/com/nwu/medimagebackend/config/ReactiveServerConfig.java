@@ -0,0 +1,116 @@
+package com.nwu.medimagebackend.config;
+
+import com.nwu.medimagebackend.handler.ReactiveTileHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * 响应式瓦片服务配置类
+ * <p>
+ * 启用后在独立端口上启动基于Reactor Netty的服务，使用函数式路由提供
+ * /api/dzi/processed/**和/api/fullnet/images/**，少量事件循环线程即可保持大量慢速连接。
+ * 应用本身仍以Servlet模式运行，其他接口继续由Tomcat上的Spring MVC提供。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "tile.reactive", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReactiveServerConfig {
+
+    /**
+     * 监听地址
+     */
+    @Value("${tile.reactive.host:0.0.0.0}")
+    private String host;
+
+    /**
+     * 监听端口
+     */
+    @Value("${tile.reactive.port:8081}")
+    private int port;
+
+    /**
+     * 事件循环线程数，不大于0时使用Reactor Netty默认值（CPU核数，至少4个）
+     */
+    @Value("${tile.reactive.event-loop-threads:0}")
+    private int eventLoopThreads;
+
+    /**
+     * 连接空闲超时（秒），超过该时间没有读写的连接被关闭
+     */
+    @Value("${tile.reactive.idle-timeout-seconds:120}")
+    private long idleTimeoutSeconds;
+
+    @Autowired
+    private ReactiveTileHandler reactiveTileHandler;
+
+    @Autowired
+    private CorsConfiguration corsConfiguration;
+
+    private LoopResources loopResources;
+
+    private DisposableServer server;
+
+    /**
+     * 启动响应式服务
+     */
+    @PostConstruct
+    public void start() {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/api/dzi/processed/**", reactiveTileHandler::getDziFile)
+                .GET("/api/fullnet/images/**", reactiveTileHandler::getFullnetImage)
+                .build();
+
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", corsConfiguration);
+        HttpHandler httpHandler = WebHttpHandlerBuilder.webHandler(RouterFunctions.toWebHandler(routes))
+                .filter(new CorsWebFilter(corsSource))
+                .build();
+
+        int threads = eventLoopThreads > 0 ? eventLoopThreads : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        loopResources = LoopResources.create("reactive-tile", threads, true);
+        server = HttpServer.create()
+                .host(host)
+                .port(port)
+                .runOn(loopResources)
+                .idleTimeout(Duration.ofSeconds(idleTimeoutSeconds))
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("响应式瓦片服务已启动: {}:{}, 事件循环线程数={}", host, server.port(), threads);
+    }
+
+    /**
+     * 应用关闭时停止服务并释放事件循环
+     */
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        if (loopResources != null) {
+            loopResources.disposeLater().block(Duration.ofSeconds(10));
+        }
+        log.info("响应式瓦片服务已停止");
+    }
+}
@@ -1,19 +1,59 @@
 package com.nwu.medimagebackend.controller;
 
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.DTO.TileBatchRequest;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.DeletionTask;
+import com.nwu.medimagebackend.entity.DziCatalogFolder;
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.entity.FileEntry;
 import com.nwu.medimagebackend.entity.FileInfo;
 import com.nwu.medimagebackend.entity.FileItem;
+import com.nwu.medimagebackend.entity.PyramidJob;
+import com.nwu.medimagebackend.entity.PyramidPackJob;
+import com.nwu.medimagebackend.entity.SlideThumbnail;
+import com.nwu.medimagebackend.entity.TileCacheStats;
+import com.nwu.medimagebackend.entity.TileHeatMapStats;
+import com.nwu.medimagebackend.entity.TileMetricsSnapshot;
+import com.nwu.medimagebackend.entity.TilePrefetchStats;
+import com.nwu.medimagebackend.entity.TileValidator;
+import com.nwu.medimagebackend.service.DziCatalogService;
+import com.nwu.medimagebackend.service.DziDeletionService;
+import com.nwu.medimagebackend.service.DynamicTileService;
 import com.nwu.medimagebackend.service.DziService;
+import com.nwu.medimagebackend.service.PyramidGeneratorService;
+import com.nwu.medimagebackend.service.PyramidPackService;
+import com.nwu.medimagebackend.service.ThumbnailService;
+import com.nwu.medimagebackend.service.TileBatchService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileCompositeService;
+import com.nwu.medimagebackend.service.TileHeatMapService;
+import com.nwu.medimagebackend.service.TileMetricsService;
+import com.nwu.medimagebackend.service.TilePrefetchService;
+import com.nwu.medimagebackend.utils.CursorPager;
+import com.nwu.medimagebackend.utils.DziDescriptorWriter;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import com.nwu.medimagebackend.utils.ZeroCopyUtils;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.HandlerMapping;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * DZI（Deep Zoom Images）控制器
@@ -32,6 +72,54 @@ public class DziController {
     @Autowired
     private DziService dziService;
 
+    @Autowired
+    private DziCatalogService dziCatalogService;
+
+    @Autowired
+    private DziDeletionService dziDeletionService;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    private PyramidPackService pyramidPackService;
+
+    @Autowired
+    private TilePrefetchService tilePrefetchService;
+
+    @Autowired
+    private DynamicTileService dynamicTileService;
+
+    @Autowired
+    private TileBatchService tileBatchService;
+
+    @Autowired
+    private PyramidGeneratorService pyramidGeneratorService;
+
+    @Autowired
+    private TileMetricsService tileMetricsService;
+
+    @Autowired
+    private TileHeatMapService tileHeatMapService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private TileCompositeService tileCompositeService;
+
+    /**
+     * 瓦片的浏览器缓存有效期（秒），过期后凭ETag重新校验；默认0，每次请求都重新校验
+     */
+    @Value("${tile.http.max-age:0}")
+    private long tileMaxAgeSeconds;
+
+    /**
+     * 缩略图的浏览器缓存有效期（秒），过期后凭ETag重新校验
+     */
+    @Value("${tile.thumbnail.max-age:3600}")
+    private long thumbnailMaxAgeSeconds;
+
     /**
      * 获取所有DZI文件的列表
      * 
@@ -45,36 +133,374 @@ public class DziController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 分页获取DZI文件夹列表
+     * <p>
+     * 支持按名称(name)或修改时间(mtime)排序、名称前缀过滤，
+     * 通过上一页返回的nextCursor获取下一页，每页最多{@value CursorPager#MAX_LIMIT}条。
+     * </p>
+     *
+     * @param query 分页参数：cursor、limit、sort、order、prefix
+     * @return 当前页的文件夹，参数不合法时返回400
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<FileEntry>> pageDziFolders(PageQuery query) {
+        try {
+            return ResponseEntity.ok(dziService.pageDziFolders(query));
+        } catch (IllegalArgumentException e) {
+            log.warn("分页参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 分页获取指定文件夹中的文件和子目录
+     *
+     * @param folderName 文件夹名称
+     * @param query 分页参数：cursor、limit、sort、order、prefix
+     * @return 当前页的条目，文件夹不存在时返回404，参数不合法时返回400
+     */
+    @GetMapping("/page/{folderName}")
+    public ResponseEntity<CursorPage<FileEntry>> pageFilesInFolder(@PathVariable String folderName, PageQuery query) {
+        try {
+            CursorPage<FileEntry> page = dziService.pageFilesInFolder(folderName, query);
+            if (page == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            log.warn("分页参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * 提供静态资源访问（例如DZI描述文件或tile图片）
      * <p>
      * 该接口处理对DZI描述文件(.dzi)和瓦片图像(.jpg/.png)的请求，
-     * 从物理存储位置加载资源，并返回给客户端。
+     * 从物理存储位置加载资源，并直接写入响应：
+     * 缓存中的瓦片从内存写出，磁盘文件通过sendfile或FileChannel.transferTo传输，
+     * 不经过消息转换器的堆内中转缓冲区。
      * 支持路径模式匹配，允许访问任意层级的资源。
      * </p>
+     * <p>
+     * 响应携带强ETag和Last-Modified，带有If-None-Match/If-Modified-Since的请求
+     * 在ETag索引命中时直接返回304，不打开文件。金字塔重新生成后瓦片地址不变，
+     * 因此瓦片不按immutable缓存，有效期过后凭ETag重新校验；DZI描述文件要求每次重新校验。
+     * </p>
      * 
      * @param request HTTP请求对象，用于获取资源路径
-     * @return 包含请求资源的响应
+     * @param response HTTP响应对象，资源内容直接写入该响应
      */
     @GetMapping("/processed/**")
-    public ResponseEntity<Resource> getDziFile(HttpServletRequest request) {
+    public void getDziFile(HttpServletRequest request, HttpServletResponse response) {
+        long start = System.nanoTime();
+        tileMetricsService.requestStarted();
+        String relativePath = null;
+        long bytes = 0;
         try {
             // 从请求属性中获取完整的请求路径
             String restOfThePath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
             // 获取匹配的模式
             String bestMatchPattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
             // 利用AntPathMatcher提取出/processed/后面的路径
-            String relativePath = new AntPathMatcher().extractPathWithinPattern(bestMatchPattern, restOfThePath);
+            relativePath = new AntPathMatcher().extractPathWithinPattern(bestMatchPattern, restOfThePath);
+
+            ServletWebRequest webRequest = new ServletWebRequest(request, response);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, buildCacheControl(relativePath));
+
+            // ETag已索引时，条件请求无需读取资源即可返回304
+            TileValidator validator = dziService.getDziFileValidator(relativePath);
+            if (validator != null && webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+                return;
+            }
 
             Resource resource = dziService.getDziFile(relativePath);
-            
-            return ResponseEntity.ok().body(resource);
+            if (resource == null) {
+                // 瓦片不存在属于正常情况，直接返回404，不记录错误日志
+                bytes = 0;
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            if (validator == null) {
+                // 首次访问时由getDziFile登记校验信息
+                validator = dziService.getDziFileValidator(relativePath);
+                if (validator != null && webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+                    return;
+                }
+            }
+
+            String contentType = MediaTypeFactory.getMediaType(resource)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+
+            bytes = resource.contentLength();
+            ZeroCopyUtils.writeResource(request, response, resource, contentType);
         } catch (Exception e) {
             log.error("获取DZI资源文件异常: {}", e.getMessage(), e);
+            bytes = 0;
+            if (!response.isCommitted()) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        } finally {
+            tileMetricsService.recordRequest(relativePath, response.getStatus(), bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 批量获取同一切片的多个瓦片
+     * <p>
+     * 一次请求返回视口内的全部瓦片，瓦片并行读取，每读完一个立即以二进制帧写出，
+     * 省去逐个请求的连接、路由和响应头开销。帧格式见{@link TileBatchService}。
+     * </p>
+     *
+     * @param request 批量瓦片请求，包含切片路径、瓦片格式和瓦片坐标列表
+     * @param response HTTP响应对象，瓦片帧直接写入该响应
+     */
+    @PostMapping("/batch")
+    public void getTileBatch(@RequestBody TileBatchRequest request, HttpServletResponse response) {
+        try {
+            response.setContentType(TileBatchService.CONTENT_TYPE);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            int written = tileBatchService.writeTiles(request, response.getOutputStream());
+            log.debug("批量瓦片请求完成: {}, 成功写出{}个瓦片", request.getSlide(), written);
+        } catch (IllegalArgumentException e) {
+            log.warn("批量瓦片请求参数错误: {}", e.getMessage());
+            if (!response.isCommitted()) {
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+            }
+        } catch (Exception e) {
+            log.error("批量瓦片请求异常: {}", e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    /**
+     * 获取切片缩略图
+     * <p>
+     * 缩略图由DZI金字塔或配准切片的低分辨率层级生成，保存在内存和磁盘上，
+     * 切片列表页可直接引用该接口而无需加载瓦片。响应携带ETag，切片更新后缩略图随之更新。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称（不含.dzi后缀）
+     * @param size 缩略图长边像素数，默认256
+     * @param request HTTP请求对象
+     * @param response HTTP响应对象
+     * @return JPEG缩略图，尺寸不受支持时返回400，切片不存在时返回404
+     */
+    @GetMapping("/thumbnail/{folderName}/{fileName}")
+    public ResponseEntity<byte[]> getThumbnail(@PathVariable String folderName, @PathVariable String fileName,
+                                               @RequestParam(defaultValue = "256") int size,
+                                               HttpServletRequest request, HttpServletResponse response) {
+        try {
+            SlideThumbnail thumbnail = thumbnailService.getThumbnail(folderName, fileName, size);
+            if (thumbnail == null) {
+                return ResponseEntity.notFound().build();
+            }
+            CacheControl cacheControl = CacheControl.maxAge(thumbnailMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            if (new ServletWebRequest(request, response)
+                    .checkNotModified(thumbnail.getEtag(), thumbnail.getLastModified())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(cacheControl)
+                    .eTag(thumbnail.getEtag())
+                    .lastModified(thumbnail.getLastModified())
+                    .body(thumbnail.getContent());
+        } catch (IllegalArgumentException e) {
+            log.warn("缩略图请求参数非法: {}/{}, 尺寸={}", folderName, fileName, size);
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("获取缩略图异常: {}/{}, 错误: {}", folderName, fileName, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * 获取多张配准切片合成后的瓦片
+     * <p>
+     * 服务端并行读取同一文件夹中多张切片的同一瓦片并合成为一张，
+     * 浏览器对比染色时无需同时拉取多路瓦片流。合成方式：
+     * blend（按像素平均）、checkerboard（棋盘格交替）、channels（各切片染色强度分别作为RGB通道，最多3张）。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param level 层级
+     * @param tile 瓦片文件名，形如col_row.jpeg
+     * @param slides 参与合成的切片名称，逗号分隔
+     * @param mode 合成方式，默认blend
+     * @param cellSize 棋盘格边长（像素），默认64
+     * @param request HTTP请求对象
+     * @param response HTTP响应对象，瓦片内容直接写入该响应
+     */
+    @GetMapping("/composite/{folderName}/{level}/{tile}")
+    public void getCompositeTile(@PathVariable String folderName, @PathVariable int level,
+                                 @PathVariable String tile, @RequestParam List<String> slides,
+                                 @RequestParam(defaultValue = "blend") String mode,
+                                 @RequestParam(defaultValue = "64") int cellSize,
+                                 HttpServletRequest request, HttpServletResponse response) {
+        try {
+            DziTilePath path = DziTilePath.parse(folderName + "/composite" + DziTilePath.FILES_SUFFIX
+                    + "/" + level + "/" + tile);
+            if (path == null) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            TileCompositeService.Mode compositeMode = TileCompositeService.Mode.valueOf(mode.toUpperCase());
+
+            // 合成瓦片的地址不随切片更新而变化，按切片修改时间重新校验
+            ServletWebRequest webRequest = new ServletWebRequest(request, response);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            long lastModified = tileCompositeService.getLastModified(folderName, slides);
+            String etag = "\"" + Long.toHexString(lastModified) + "\"";
+            if (lastModified > 0 && webRequest.checkNotModified(etag, lastModified)) {
+                return;
+            }
+
+            Resource resource = tileCompositeService.getCompositeTile(folderName, slides, compositeMode, cellSize,
+                    path.level(), path.x(), path.y(), path.format());
+            if (resource == null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            String contentType = MediaTypeFactory.getMediaType(resource)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            ZeroCopyUtils.writeResource(request, response, resource, contentType);
+        } catch (IllegalArgumentException e) {
+            log.warn("合成瓦片请求参数非法: {}", e.getMessage());
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+        } catch (Exception e) {
+            log.error("获取合成瓦片异常: {}, 错误: {}", folderName, e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    /**
+     * 获取配准切片的动态DZI描述文件
+     * <p>
+     * 描述文件由OME-TIFF切片的尺寸生成，配合{@link #getDynamicTile}使用，
+     * 新配准的切片无需等待金字塔生成即可浏览。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param descriptor 描述文件名，形如name.dzi，对应registered_slides/name.ome.tiff
+     * @param request HTTP请求对象
+     * @param response HTTP响应对象
+     * @return DZI描述文件，切片不存在时返回404
+     */
+    @GetMapping("/dynamic/{folderName}/{descriptor}")
+    public ResponseEntity<String> getDynamicDescriptor(@PathVariable String folderName,
+                                                       @PathVariable String descriptor,
+                                                       HttpServletRequest request,
+                                                       HttpServletResponse response) {
+        if (!descriptor.endsWith(".dzi")) {
+            return ResponseEntity.notFound().build();
+        }
+        String fileName = descriptor.substring(0, descriptor.length() - ".dzi".length());
+        try {
+            long lastModified = dynamicTileService.getLastModified(folderName, fileName);
+            if (lastModified > 0 && new ServletWebRequest(request, response).checkNotModified(lastModified)) {
+                return null;
+            }
+            DziDescriptor dzi = dynamicTileService.getDescriptor(folderName, fileName);
+            if (dzi == null) {
+                log.warn("动态DZI切片不存在: {}/{}", folderName, fileName);
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_XML)
+                    .cacheControl(CacheControl.noCache())
+                    .body(DziDescriptorWriter.toXml(dzi));
+        } catch (Exception e) {
+            log.error("获取动态DZI描述文件异常: {}/{}, 错误: {}", folderName, fileName, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 获取配准切片的动态瓦片
+     * <p>
+     * 瓦片在首次请求时从OME-TIFF切片切割并编码，之后由瓦片缓存提供。
+     * 切片被替换后瓦片地址不变，因此要求客户端每次按ETag重新校验。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param pyramid 瓦片目录名，形如name_files
+     * @param level 层级
+     * @param tile 瓦片文件名，形如col_row.jpeg
+     * @param request HTTP请求对象
+     * @param response HTTP响应对象，瓦片内容直接写入该响应
+     */
+    @GetMapping("/dynamic/{folderName}/{pyramid}/{level}/{tile}")
+    public void getDynamicTile(@PathVariable String folderName, @PathVariable String pyramid,
+                               @PathVariable String level, @PathVariable String tile,
+                               HttpServletRequest request, HttpServletResponse response) {
+        try {
+            DziTilePath path = DziTilePath.parse(folderName + "/" + pyramid + "/" + level + "/" + tile);
+            if (path == null) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            String fileName = path.pyramid().substring(folderName.length() + 1);
+
+            // 切片文件可能被替换而瓦片地址不变，不能按immutable长期缓存，每次按ETag重新校验
+            ServletWebRequest webRequest = new ServletWebRequest(request, response);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+            TileValidator validator = dynamicTileService.getTileValidator(
+                    folderName, fileName, path.level(), path.x(), path.y(), path.format());
+            if (validator != null && webRequest.checkNotModified(validator.getEtag(), validator.getLastModified())) {
+                return;
+            }
+
+            Resource resource = dynamicTileService.getTile(
+                    folderName, fileName, path.level(), path.x(), path.y(), path.format());
+            if (resource == null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            validator = dynamicTileService.getTileValidator(
+                    folderName, fileName, path.level(), path.x(), path.y(), path.format());
+            if (validator != null) {
+                response.setHeader(HttpHeaders.ETAG, "\"" + validator.getEtag() + "\"");
+                response.setDateHeader(HttpHeaders.LAST_MODIFIED, validator.getLastModified());
+            }
+
+            String contentType = MediaTypeFactory.getMediaType(resource)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            ZeroCopyUtils.writeResource(request, response, resource, contentType);
+        } catch (Exception e) {
+            log.error("获取动态瓦片异常: {}/{}/{}/{}, 错误: {}", folderName, pyramid, level, tile, e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+
+    /**
+     * 根据资源类型构建Cache-Control响应头
+     *
+     * @param relativePath DZI资源的相对路径
+     * @return Cache-Control响应头的值
+     */
+    private String buildCacheControl(String relativePath) {
+        if (relativePath.endsWith(".dzi")) {
+            return CacheControl.noCache().getHeaderValue();
+        }
+        return CacheControl.maxAge(tileMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+    }
+
     /**
      * 获取指定文件夹中的文件列表
      * 
@@ -95,20 +521,41 @@ public class DziController {
         return ResponseEntity.ok(items);
     }
 
+    /**
+     * 获取指定文件夹的索引信息
+     * <p>
+     * 包含文件数、目录数、文件总大小以及各.dzi描述文件的宽高、瓦片大小和层数，数据来自内存索引。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @return 文件夹索引信息，不存在时返回404
+     */
+    @GetMapping("/catalog/{folderName}")
+    public ResponseEntity<DziCatalogFolder> getCatalogFolder(@PathVariable String folderName) {
+        DziCatalogFolder folder = dziCatalogService.getFolder(folderName);
+        if (folder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(folder);
+    }
+
     /**
      * 删除指定文件夹
+     * <p>
+     * 文件夹立即从列表和瓦片服务中移除，文件在后台删除，可通过返回的任务ID查询进度。
+     * </p>
      * 
      * @param folderName 要删除的文件夹名称
-     * @return 操作结果响应
+     * @return 包含删除任务的响应
      */
     @DeleteMapping("/deleteFolder/{folderName}")
-    public ResponseEntity<Void> deleteFolder(@PathVariable String folderName) {
+    public ResponseEntity<DeletionTask> deleteFolder(@PathVariable String folderName) {
         log.info("请求删除文件夹: {}", folderName);
-        boolean success = dziService.deleteFolder(folderName);
+        DeletionTask task = dziService.deleteFolder(folderName);
         
-        if (success) {
-            log.info("文件夹[{}]删除成功", folderName);
-            return ResponseEntity.ok().build();
+        if (task != null) {
+            log.info("文件夹[{}]已标记删除", folderName);
+            return ResponseEntity.ok(task);
         } else {
             log.error("文件夹[{}]删除失败", folderName);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -120,21 +567,213 @@ public class DziController {
      * 
      * @param folderName 文件夹名称
      * @param fileName 文件名称
-     * @return 操作结果响应
+     * @return 包含删除任务的响应
      */
     @DeleteMapping("/delete/{folderName}/{fileName}")
-    public ResponseEntity<Void> deleteFile(
+    public ResponseEntity<DeletionTask> deleteFile(
             @PathVariable String folderName,
             @PathVariable String fileName) {
         log.info("请求删除文件: {}/{}", folderName, fileName);
-        boolean success = dziService.deleteFile(folderName, fileName);
+        DeletionTask task = dziService.deleteFile(folderName, fileName);
         
-        if (success) {
-            log.info("文件[{}/{}]删除成功", folderName, fileName);
-            return ResponseEntity.ok().build();
+        if (task != null) {
+            log.info("文件[{}/{}]已标记删除", folderName, fileName);
+            return ResponseEntity.ok(task);
         } else {
             log.error("文件[{}/{}]删除失败", folderName, fileName);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * 查询后台删除任务
+     *
+     * @param taskId 任务ID
+     * @return 包含已删除文件数、失败数和状态的响应
+     */
+    @GetMapping("/delete/tasks/{taskId}")
+    public ResponseEntity<DeletionTask> getDeletionTask(@PathVariable String taskId) {
+        DeletionTask task = dziDeletionService.getTask(taskId);
+        return task != null ? ResponseEntity.ok(task) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 列出所有后台删除任务
+     *
+     * @return 按创建时间倒序排列的任务列表
+     */
+    @GetMapping("/delete/tasks")
+    public ResponseEntity<List<DeletionTask>> listDeletionTasks() {
+        return ResponseEntity.ok(dziDeletionService.listTasks());
+    }
+
+    /**
+     * 获取瓦片缓存统计信息
+     *
+     * @return 包含命中、未命中、淘汰次数及内存占用的响应
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<TileCacheStats> getCacheStats() {
+        return ResponseEntity.ok(tileCacheService.getStats());
+    }
+
+    /**
+     * 获取瓦片服务指标
+     * <p>
+     * 包含按金字塔层级、响应状态和资源来源（缓存命中、磁盘、容器、未找到）划分的延迟分布，
+     * 各层级输出字节数、正在处理的请求数，以及最近一分钟请求最多的切片。
+     * </p>
+     *
+     * @param topSlides 返回的切片数量上限，默认20
+     * @return 瓦片服务指标快照
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<TileMetricsSnapshot> getTileMetrics(@RequestParam(defaultValue = "20") int topSlides) {
+        return ResponseEntity.ok(tileMetricsService.snapshot(topSlides));
+    }
+
+    /**
+     * 获取瓦片热度统计信息
+     *
+     * @return 包含热度表规模、最近持久化时间和启动预热结果的响应
+     */
+    @GetMapping("/heatmap/stats")
+    public ResponseEntity<TileHeatMapStats> getHeatMapStats() {
+        return ResponseEntity.ok(tileHeatMapService.getStats());
+    }
+
+    /**
+     * 获取瓦片预取统计信息
+     *
+     * @return 包含预取任务数、预取命中与浪费次数及命中率的响应
+     */
+    @GetMapping("/prefetch/stats")
+    public ResponseEntity<TilePrefetchStats> getPrefetchStats() {
+        return ResponseEntity.ok(tilePrefetchService.getStats());
+    }
+
+    /**
+     * 将指定金字塔的瓦片目录打包为单个容器文件
+     * <p>
+     * 打包在后台进行，立即返回任务信息。打包完成后原瓦片目录在后台删除，
+     * 瓦片请求路径保持不变，由容器提供内容。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 金字塔名称，可带或不带_files后缀
+     * @return 包含任务信息的响应
+     */
+    @PostMapping("/pack/{folderName}/{fileName}")
+    public ResponseEntity<PyramidPackJob> packPyramid(
+            @PathVariable String folderName,
+            @PathVariable String fileName) {
+        log.info("请求打包金字塔: {}/{}", folderName, fileName);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pyramidPackService.packPyramid(folderName, fileName));
+        } catch (IOException e) {
+            log.warn("提交金字塔打包任务[{}/{}]失败: {}", folderName, fileName, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 将指定文件夹下所有金字塔的瓦片目录打包为容器文件
+     *
+     * @param folderName 文件夹名称
+     * @return 包含每个金字塔任务信息的响应
+     */
+    @PostMapping("/pack/{folderName}")
+    public ResponseEntity<List<PyramidPackJob>> packFolder(@PathVariable String folderName) {
+        log.info("请求打包文件夹: {}", folderName);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pyramidPackService.packFolder(folderName));
+        } catch (IOException e) {
+            log.warn("提交文件夹[{}]打包任务失败: {}", folderName, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 查询金字塔打包任务
+     *
+     * @param jobId 任务ID
+     * @return 包含任务状态和打包结果的响应
+     */
+    @GetMapping("/pack/jobs/{jobId}")
+    public ResponseEntity<PyramidPackJob> getPackJob(@PathVariable String jobId) {
+        PyramidPackJob job = pyramidPackService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 列出所有金字塔打包任务
+     *
+     * @return 按创建时间倒序排列的任务列表
+     */
+    @GetMapping("/pack/jobs")
+    public ResponseEntity<List<PyramidPackJob>> listPackJobs() {
+        return ResponseEntity.ok(pyramidPackService.listJobs());
+    }
+
+    /**
+     * 由配准切片生成DZI金字塔
+     * <p>
+     * 生成在后台进行，立即返回任务信息，可通过任务ID查询进度。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称，可带或不带扩展名
+     * @return 包含任务信息的响应
+     */
+    @PostMapping("/generate/{folderName}/{fileName}")
+    public ResponseEntity<PyramidJob> generatePyramid(
+            @PathVariable String folderName,
+            @PathVariable String fileName) {
+        log.info("请求生成金字塔: {}/{}", folderName, fileName);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pyramidGeneratorService.generate(folderName, fileName));
+        } catch (IOException e) {
+            log.warn("提交金字塔生成任务[{}/{}]失败: {}", folderName, fileName, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 为文件夹下所有配准切片生成DZI金字塔
+     *
+     * @param folderName 文件夹名称
+     * @return 包含每个切片任务信息的响应
+     */
+    @PostMapping("/generate/{folderName}")
+    public ResponseEntity<List<PyramidJob>> generateFolder(@PathVariable String folderName) {
+        log.info("请求生成文件夹金字塔: {}", folderName);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(pyramidGeneratorService.generateFolder(folderName));
+        } catch (IOException e) {
+            log.warn("提交文件夹[{}]金字塔生成任务失败: {}", folderName, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 查询金字塔生成任务
+     *
+     * @param jobId 任务ID
+     * @return 包含任务状态和进度的响应
+     */
+    @GetMapping("/generate/jobs/{jobId}")
+    public ResponseEntity<PyramidJob> getGenerateJob(@PathVariable String jobId) {
+        PyramidJob job = pyramidGeneratorService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 列出所有金字塔生成任务
+     *
+     * @return 按创建时间倒序排列的任务列表
+     */
+    @GetMapping("/generate/jobs")
+    public ResponseEntity<List<PyramidJob>> listGenerateJobs() {
+        return ResponseEntity.ok(pyramidGeneratorService.listJobs());
+    }
 }
@@ -5,21 +5,18 @@ import com.nwu.medimagebackend.entity.FullnetResponse;
 import com.nwu.medimagebackend.entity.FullnetResult;
 import com.nwu.medimagebackend.entity.FullnetTask;
 import com.nwu.medimagebackend.service.FullnetService;
+import com.nwu.medimagebackend.utils.ZeroCopyUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -41,9 +38,6 @@ public class FullnetController {
     @Autowired
     private FullnetService fullnetService;
 
-    @Value("${uploads.fullnet.results.dir:../uploads/fullnet_results/}")
-    private String fullnetResultsDir;
-
     /**
      * 分析图像（异步方式）
      * <p>
@@ -382,12 +376,15 @@ public class FullnetController {
 
     /**
      * 获取Fullnet分析结果图像
+     * <p>
+     * 图像通过sendfile或FileChannel.transferTo直接写入响应，不经过堆内中转缓冲区。
+     * </p>
      * 
      * @param request HTTP请求
-     * @return 图像资源
+     * @param response HTTP响应，图像内容直接写入该响应
      */
     @GetMapping("/images/**")
-    public ResponseEntity<Resource> getFullnetImage(HttpServletRequest request) {
+    public void getFullnetImage(HttpServletRequest request, HttpServletResponse response) {
         try {
             // 获取完整的请求路径
             String fullPath = request.getRequestURI();
@@ -397,66 +394,35 @@ public class FullnetController {
             String relativePath = fullPath.substring("/api/fullnet/images/".length());
             log.info("提取的相对路径: {}", relativePath);
             
-            // 如果路径包含fullnet_results前缀，移除它
-            if (relativePath.startsWith("fullnet_results/")) {
-                relativePath = relativePath.substring("fullnet_results/".length());
-                log.info("处理后的路径: {}", relativePath);
+            Path filePath;
+            try {
+                filePath = fullnetService.resolveImagePath(relativePath);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                return;
             }
-            
-            // 构建完整的文件路径
-            Path filePath = Paths.get(fullnetResultsDir).resolve(relativePath).normalize();
             log.info("尝试访问文件: {}", filePath);
             
-            // 安全检查，确保文件路径在允许的目录内
-            if (!filePath.startsWith(Paths.get(fullnetResultsDir).normalize())) {
-                log.warn("非法图像访问请求: {}", relativePath);
-                return ResponseEntity.badRequest().build();
-            }
-            
-            // 读取文件
-            Resource resource = new FileSystemResource(filePath);
-            
             // 检查文件是否存在
-            if (resource.exists() && resource.isReadable()) {
+            if (Files.isRegularFile(filePath) && Files.isReadable(filePath)) {
                 // 根据文件扩展名设置Content-Type
-                String contentType = determineContentType(filePath);
-                
-                // 设置响应头
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.parseMediaType(contentType));
+                String contentType = fullnetService.getImageContentType(filePath);
                 
+                response.setContentType(contentType);
+                ZeroCopyUtils.writeFile(request, response, filePath);
                 log.info("成功返回图像: {}", filePath);
-                return ResponseEntity.ok()
-                        .headers(headers)
-                        .body(resource);
             } else {
                 log.warn("图像不存在或无法读取: {}", filePath);
-                return ResponseEntity.notFound().build();
+                response.setStatus(HttpStatus.NOT_FOUND.value());
             }
         } catch (Exception e) {
             log.error("获取图像失败: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
     
-    /**
-     * 确定文件的Content-Type
-     */
-    private String determineContentType(Path filePath) {
-        String fileName = filePath.getFileName().toString().toLowerCase();
-        if (fileName.endsWith(".png")) {
-            return "image/png";
-        } else if (fileName.endsWith(".jpg") || fileName.endsWith(".jpeg")) {
-            return "image/jpeg";
-        } else if (fileName.endsWith(".tif") || fileName.endsWith(".tiff")) {
-            return "image/tiff";
-        } else if (fileName.endsWith(".svs")) {
-            return "image/svs";
-        } else {
-            return "application/octet-stream";
-        }
-    }
-
     /**
      * 获取特定文件的所有历史Fullnet分析记录
      *
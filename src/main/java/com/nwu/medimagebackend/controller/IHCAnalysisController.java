@@ -1,6 +1,7 @@
 package com.nwu.medimagebackend.controller;
 
 import com.nwu.medimagebackend.entity.IhcAnalysisResult;
+import com.nwu.medimagebackend.entity.IhcRescoreResult;
 import com.nwu.medimagebackend.service.IHCAnalysisService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,15 +36,17 @@ public class IHCAnalysisController {
      * 
      * @param folderName 图像所在文件夹名称
      * @param fileName 图像文件名
+     * @param parallelism 像素统计的并行度，不指定时使用配置的并行度
      * @return 包含分析结果的响应
      */
     @PostMapping("/analyze")
     public ResponseEntity<IhcAnalysisResult> analyzeImage(
             @RequestParam("folderName") String folderName,
-            @RequestParam("fileName") String fileName) {
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "parallelism", defaultValue = "0") int parallelism) {
         try {
             log.info("接收到免疫组化分析请求: 文件夹[{}], 文件[{}]", folderName, fileName);
-            IhcAnalysisResult result = analysisService.analyzeImage(folderName, fileName);
+            IhcAnalysisResult result = analysisService.analyzeImage(folderName, fileName, parallelism);
             log.info("免疫组化分析完成: 文件夹[{}], 文件[{}], 阳性率: {}", 
                     folderName, fileName, result.getPositiveRatio());
             return ResponseEntity.ok(result);
@@ -128,18 +131,23 @@ public class IHCAnalysisController {
      * @param folderName 图像所在文件夹名称
      * @param fileName 图像文件名
      * @param threshold 分析阈值(0-255之间)
+     * @param overlay 是否生成阳性区域高亮图像，为false时只由已保存的直方图计算阳性率，无需读取图像
+     * @param parallelism 像素统计的并行度，不指定时使用配置的并行度
      * @return 包含分析结果和处理后图像URL的响应
      */
     @PostMapping("/analyze/threshold")
     public ResponseEntity<IhcAnalysisResult> analyzeImageWithThreshold(
             @RequestParam("folderName") String folderName,
             @RequestParam("fileName") String fileName,
-            @RequestParam("threshold") double threshold) {
+            @RequestParam("threshold") double threshold,
+            @RequestParam(value = "overlay", defaultValue = "true") boolean overlay,
+            @RequestParam(value = "parallelism", defaultValue = "0") int parallelism) {
         try {
             log.info("接收到免疫组化阈值分析请求: 文件夹[{}], 文件[{}], 阈值[{}]", 
                     folderName, fileName, threshold);
             
-            IhcAnalysisResult result = analysisService.analyzeImageWithThreshold(folderName, fileName, threshold);
+            IhcAnalysisResult result = analysisService.analyzeImageWithThreshold(folderName, fileName, threshold,
+                    overlay, parallelism);
             
             log.info("免疫组化阈值分析完成: 文件夹[{}], 文件[{}], 阈值[{}], 阳性率: {}", 
                     folderName, fileName, threshold, result.getPositiveRatio());
@@ -150,4 +158,29 @@ public class IHCAnalysisController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * 按新阈值批量重新评分
+     * <p>
+     * 使用首次分析时保存的强度直方图重新计算阳性面积和阳性率，不读取图像。
+     * 尚未保存直方图的图像会被跳过，需要先分析一次。
+     * </p>
+     *
+     * @param folderName 文件夹名称，不指定时处理全部文件夹
+     * @param threshold 新阈值(0-255之间)
+     * @return 重新评分的统计信息
+     */
+    @PostMapping("/rescore")
+    public ResponseEntity<IhcRescoreResult> rescore(
+            @RequestParam(value = "folderName", required = false) String folderName,
+            @RequestParam("threshold") double threshold) {
+        try {
+            log.info("接收到免疫组化批量重新评分请求: 文件夹[{}], 阈值[{}]", folderName, threshold);
+            return ResponseEntity.ok(analysisService.rescore(folderName, threshold));
+        } catch (Exception e) {
+            log.error("免疫组化批量重新评分失败: 文件夹[{}], 阈值[{}], 错误: {}",
+                    folderName, threshold, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package com.nwu.medimagebackend.controller;
 
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.FileEntry;
 import com.nwu.medimagebackend.entity.FileInfo;
 import com.nwu.medimagebackend.service.RegistrationService;
 import lombok.extern.slf4j.Slf4j;
@@ -72,6 +75,28 @@ public class RegistrationController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 分页列出上传目录下的文件夹
+     * <p>
+     * 支持按名称(name)或修改时间(mtime)排序、名称前缀过滤，通过上一页返回的nextCursor获取下一页。
+     * </p>
+     *
+     * @param query 分页参数：cursor、limit、sort、order、prefix
+     * @return 当前页的文件夹，参数不合法时返回400
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<FileEntry>> pageSvsFolders(PageQuery query) {
+        try {
+            return ResponseEntity.ok(registrationService.pageSvsFolders(query));
+        } catch (IllegalArgumentException e) {
+            log.warn("分页参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("分页获取配准文件列表失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * 调用外部配准服务处理指定文件夹的配准操作
      * <p>
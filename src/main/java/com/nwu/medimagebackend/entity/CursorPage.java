@@ -0,0 +1,38 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 基于游标的分页结果
+ * <p>
+ * nextCursor为不透明字符串，原样传回即可获取下一页；没有更多数据时为null。
+ * 游标记录的是上一页最后一个条目的排序键，条目增删不会导致翻页时重复或遗漏其他条目。
+ * </p>
+ *
+ * @param <T> 条目类型
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    /**
+     * 当前页的条目
+     */
+    private List<T> items;
+
+    /**
+     * 下一页的游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+}
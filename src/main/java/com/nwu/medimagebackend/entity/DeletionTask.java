@@ -0,0 +1,63 @@
+package com.nwu.medimagebackend.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 后台删除任务
+ * <p>
+ * 用于跟踪DZI文件夹或金字塔在后台删除的状态和进度。
+ * 删除请求返回时目标已被移入回收目录，不再出现在列表中，也不再提供瓦片。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+public class DeletionTask {
+
+    /**
+     * 任务ID，使用UUID生成，同时作为回收目录中的目录名
+     */
+    private String id;
+
+    /**
+     * 被删除的目标（folder或folder/file）
+     */
+    private String target;
+
+    /**
+     * 任务状态：PENDING（等待中）, PROCESSING（处理中）, COMPLETED（已完成）, FAILED（失败）
+     */
+    private String status;
+
+    /**
+     * 已删除的文件数
+     */
+    private long deletedFiles;
+
+    /**
+     * 删除失败的文件数
+     */
+    private long failedFiles;
+
+    /**
+     * 错误信息（如果有），只保留第一个错误
+     */
+    private String errorMessage;
+
+    /**
+     * 任务创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date createdTime;
+
+    /**
+     * 任务完成时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date completedTime;
+}
@@ -0,0 +1,70 @@
+package com.nwu.medimagebackend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DZI目录索引中的文件夹信息
+ * <p>
+ * 每次扫描文件夹时整体重建，发布后不再修改。
+ * 大小只统计文件夹下第一层的文件（.dzi描述文件、.dzp容器等），不遍历瓦片目录。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DziCatalogFolder {
+
+    /**
+     * 文件夹名称
+     */
+    private String name;
+
+    /**
+     * 文件夹下的子项（文件和目录），按名称排序
+     */
+    private List<FileItem> items;
+
+    /**
+     * 文件夹下的子项及其大小和修改时间，按名称排序，供分页列表使用
+     */
+    @JsonIgnore
+    private List<FileEntry> entries;
+
+    /**
+     * 文件夹下的文件名，按名称排序
+     */
+    private List<String> fileNames;
+
+    /**
+     * 文件数
+     */
+    private int fileCount;
+
+    /**
+     * 子目录数
+     */
+    private int directoryCount;
+
+    /**
+     * 第一层文件的总字节数
+     */
+    private long totalBytes;
+
+    /**
+     * 文件夹最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
+
+    /**
+     * .dzi文件名到描述文件信息的映射
+     */
+    private Map<String, DziDescriptor> descriptors;
+}
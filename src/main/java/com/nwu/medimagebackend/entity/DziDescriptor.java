@@ -0,0 +1,50 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DZI描述文件信息
+ * <p>
+ * 对应.dzi文件中的Image和Size元素，levelCount为金字塔层数，
+ * 最高层级（levelCount - 1）为原始分辨率。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DziDescriptor {
+
+    /**
+     * 原始图像宽度（像素）
+     */
+    private long width;
+
+    /**
+     * 原始图像高度（像素）
+     */
+    private long height;
+
+    /**
+     * 瓦片边长（不含重叠）
+     */
+    private int tileSize;
+
+    /**
+     * 瓦片重叠像素数
+     */
+    private int overlap;
+
+    /**
+     * 瓦片格式，例如jpeg或png
+     */
+    private String format;
+
+    /**
+     * 金字塔层数
+     */
+    private int levelCount;
+}
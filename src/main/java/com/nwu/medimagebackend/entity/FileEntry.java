@@ -0,0 +1,36 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分页列表中的文件或文件夹条目
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileEntry {
+
+    /**
+     * 名称
+     */
+    private String name;
+
+    /**
+     * 是否为目录
+     */
+    private boolean directory;
+
+    /**
+     * 文件字节数；目录为其第一层文件的总字节数，未统计时为0
+     */
+    private long size;
+
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
+}
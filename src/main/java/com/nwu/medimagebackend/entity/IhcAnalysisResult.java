@@ -1,6 +1,7 @@
 package com.nwu.medimagebackend.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -35,6 +36,17 @@ public class IhcAnalysisResult {
     // 添加新字段，用于前端显示图像
     private String imageUrl;
 
+    // 序列化的256区间强度直方图，用于调整阈值时直接重新计算，不返回给前端
+    @JsonIgnore
+    private byte[] histogram;
+
+    // 统计直方图时原图的修改时间和大小，原图被替换后直方图失效
+    @JsonIgnore
+    private Long histogramSourceModified;
+
+    @JsonIgnore
+    private Long histogramSourceSize;
+
     public IhcAnalysisResult(String folderName, String fileName, String userName, Date date) {
         this.folderName = folderName;
         this.imageName = fileName;
@@ -0,0 +1,44 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * IHC批量重新评分结果
+ * <p>
+ * 使用已保存的强度直方图按新阈值重新计算阳性面积和阳性率的统计信息
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IhcRescoreResult {
+
+    /**
+     * 文件夹名称，为null时表示全部文件夹
+     */
+    private String folderName;
+
+    /**
+     * 使用的阈值
+     */
+    private double threshold;
+
+    /**
+     * 已重新评分的图像数
+     */
+    private int rescored;
+
+    /**
+     * 尚未保存直方图而跳过的图像数，这些图像需要先分析一次
+     */
+    private int skipped;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
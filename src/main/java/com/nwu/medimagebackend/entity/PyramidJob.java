@@ -0,0 +1,92 @@
+package com.nwu.medimagebackend.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * DZI金字塔生成任务
+ * <p>
+ * 用于跟踪由配准切片生成DZI金字塔的异步任务的状态和进度
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+public class PyramidJob {
+
+    /**
+     * 任务ID，使用UUID生成
+     */
+    private String id;
+
+    /**
+     * 文件夹名称
+     */
+    private String folderName;
+
+    /**
+     * 金字塔名称（不含扩展名）
+     */
+    private String fileName;
+
+    /**
+     * 源切片文件名
+     */
+    private String source;
+
+    /**
+     * 任务状态：PENDING（等待中）, PROCESSING（处理中）, COMPLETED（已完成）, FAILED（失败）
+     */
+    private String status;
+
+    /**
+     * 进度描述
+     */
+    private String progress;
+
+    /**
+     * 需要生成的瓦片总数
+     */
+    private long totalTiles;
+
+    /**
+     * 已生成的瓦片数
+     */
+    private long completedTiles;
+
+    /**
+     * 完成百分比
+     */
+    private double percent;
+
+    /**
+     * 内容与其他瓦片相同、以硬链接保存的瓦片数
+     */
+    private long dedupedTiles;
+
+    /**
+     * 瓦片去重节省的字节数
+     */
+    private long dedupedBytes;
+
+    /**
+     * 错误信息（如果有）
+     */
+    private String errorMessage;
+
+    /**
+     * 任务创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date createdTime;
+
+    /**
+     * 任务完成时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date completedTime;
+}
@@ -0,0 +1,68 @@
+package com.nwu.medimagebackend.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 金字塔打包任务
+ * <p>
+ * 用于跟踪将DZI瓦片目录打包为容器文件的异步任务。
+ * 打包完成后原瓦片目录交给后台删除服务删除，可通过删除任务ID查询删除进度。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+public class PyramidPackJob {
+
+    /**
+     * 任务ID，使用UUID生成
+     */
+    private String id;
+
+    /**
+     * 文件夹名称
+     */
+    private String folderName;
+
+    /**
+     * 金字塔名称（不含_files后缀）
+     */
+    private String fileName;
+
+    /**
+     * 任务状态：PENDING（等待中）, PROCESSING（处理中）, COMPLETED（已完成）, FAILED（失败）
+     */
+    private String status;
+
+    /**
+     * 打包结果，任务完成后设置
+     */
+    private PyramidPackResult result;
+
+    /**
+     * 删除原瓦片目录的后台删除任务ID
+     */
+    private String deletionTaskId;
+
+    /**
+     * 错误信息（如果有）
+     */
+    private String errorMessage;
+
+    /**
+     * 任务创建时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date createdTime;
+
+    /**
+     * 任务完成时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date completedTime;
+}
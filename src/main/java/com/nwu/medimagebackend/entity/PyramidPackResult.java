@@ -0,0 +1,54 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 金字塔打包结果
+ * <p>
+ * 记录将DZI瓦片目录转换为单文件容器后的统计信息
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PyramidPackResult {
+
+    /**
+     * 文件夹名称
+     */
+    private String folderName;
+
+    /**
+     * 金字塔名称（不含_files后缀）
+     */
+    private String fileName;
+
+    /**
+     * 打包的瓦片文件数
+     */
+    private int entryCount;
+
+    /**
+     * 瓦片内容总字节数
+     */
+    private long contentBytes;
+
+    /**
+     * 内容不重复的条目数，重复内容在容器中只保存一次
+     */
+    private int uniqueEntries;
+
+    /**
+     * 去重节省的字节数
+     */
+    private long dedupedBytes;
+
+    /**
+     * 容器文件大小
+     */
+    private long packBytes;
+}
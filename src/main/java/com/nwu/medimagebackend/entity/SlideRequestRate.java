@@ -0,0 +1,31 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个切片最近一分钟的瓦片请求速率
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlideRequestRate {
+
+    /**
+     * 切片（folder/name）
+     */
+    private String slide;
+
+    /**
+     * 最近60秒的请求数
+     */
+    private long requestsLastMinute;
+
+    /**
+     * 最近60秒的平均每秒请求数
+     */
+    private double requestsPerSecond;
+}
@@ -0,0 +1,34 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 切片缩略图
+ * <p>
+ * 缩略图内容及其HTTP缓存校验信息，lastModified取自生成缩略图时源切片的修改时间
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlideThumbnail {
+
+    /**
+     * 编码后的JPEG内容
+     */
+    private byte[] content;
+
+    /**
+     * 源切片的最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
+
+    /**
+     * 强ETag（含引号）
+     */
+    private String etag;
+}
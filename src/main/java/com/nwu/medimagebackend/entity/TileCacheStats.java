@@ -0,0 +1,84 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 瓦片缓存统计信息
+ * <p>
+ * 用于对外报告瓦片缓存的命中、未命中、淘汰次数以及当前内存占用情况
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileCacheStats {
+
+    /**
+     * 缓存命中次数
+     */
+    private long hits;
+
+    /**
+     * 缓存未命中次数
+     */
+    private long misses;
+
+    /**
+     * 因超出内存预算而被淘汰的条目数
+     */
+    private long evictions;
+
+    /**
+     * 当前缓存条目数
+     */
+    private long entryCount;
+
+    /**
+     * 当前已使用的字节数
+     */
+    private long usedBytes;
+
+    /**
+     * 缓存字节预算上限
+     */
+    private long maxBytes;
+
+    /**
+     * 是否使用堆外内存
+     */
+    private boolean offHeap;
+
+    /**
+     * 预取写入缓存的条目数
+     */
+    private long prefetchLoads;
+
+    /**
+     * 预取条目被请求命中的次数（每个条目最多计一次）
+     */
+    private long prefetchHits;
+
+    /**
+     * 预取条目未被访问即被淘汰或失效的次数
+     */
+    private long prefetchWasted;
+
+    /**
+     * 是否启用内容去重
+     */
+    private boolean dedup;
+
+    /**
+     * 写入时复用已有相同内容缓冲区的次数
+     */
+    private long dedupHits;
+
+    /**
+     * 内容去重节省的内存字节数
+     */
+    private long dedupSavedBytes;
+}
@@ -0,0 +1,68 @@
+package com.nwu.medimagebackend.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 瓦片热度统计信息
+ * <p>
+ * 包含热度表的规模、最近一次持久化时间，以及启动预热的结果
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileHeatMapStats {
+
+    /**
+     * 是否启用热度记录
+     */
+    private boolean enabled;
+
+    /**
+     * 热度表中的瓦片数
+     */
+    private long trackedTiles;
+
+    /**
+     * 热度表已满时未能记录的访问次数
+     */
+    private long droppedAccesses;
+
+    /**
+     * 最近一次写入热度文件的时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date lastPersistedTime;
+
+    /**
+     * 预热状态：PENDING, RUNNING, COMPLETED, SKIPPED
+     */
+    private String warmupStatus;
+
+    /**
+     * 预热载入缓存的瓦片数
+     */
+    private long warmupLoadedTiles;
+
+    /**
+     * 预热载入缓存的字节数
+     */
+    private long warmupLoadedBytes;
+
+    /**
+     * 预热耗时（毫秒）
+     */
+    private long warmupMillis;
+
+    /**
+     * 预热结束原因
+     */
+    private String warmupStopReason;
+}
@@ -0,0 +1,49 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 瓦片延迟统计
+ * <p>
+ * 由按2的幂分桶的直方图计算，分位数取所在桶的上界，精度为2倍以内
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileLatencyStats {
+
+    /**
+     * 样本数
+     */
+    private long count;
+
+    /**
+     * 平均延迟（微秒）
+     */
+    private long meanMicros;
+
+    /**
+     * 50分位延迟上界（微秒）
+     */
+    private long p50Micros;
+
+    /**
+     * 90分位延迟上界（微秒）
+     */
+    private long p90Micros;
+
+    /**
+     * 99分位延迟上界（微秒）
+     */
+    private long p99Micros;
+
+    /**
+     * 最大延迟所在桶的上界（微秒）
+     */
+    private long maxMicros;
+}
@@ -0,0 +1,43 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 单个金字塔层级的瓦片请求指标
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileLevelMetrics {
+
+    /**
+     * 金字塔层级，-1表示不属于任何层级的资源（如DZI描述文件）
+     */
+    private int level;
+
+    /**
+     * 请求数
+     */
+    private long requests;
+
+    /**
+     * 返回的字节数
+     */
+    private long bytes;
+
+    /**
+     * 按响应状态（2xx/304/4xx/5xx）划分的请求延迟
+     */
+    private Map<String, TileLatencyStats> byStatus;
+
+    /**
+     * 按读取来源（CACHE_HIT/DISK/PACK/NOT_FOUND）划分的读取延迟
+     */
+    private Map<String, TileLatencyStats> byLookup;
+}
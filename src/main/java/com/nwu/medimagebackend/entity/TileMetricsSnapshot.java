@@ -0,0 +1,53 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 瓦片服务指标快照
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileMetricsSnapshot {
+
+    /**
+     * 是否启用指标记录
+     */
+    private boolean enabled;
+
+    /**
+     * 正在处理的请求数
+     */
+    private long inFlight;
+
+    /**
+     * 已完成的请求总数
+     */
+    private long totalRequests;
+
+    /**
+     * 返回的字节总数
+     */
+    private long bytesServed;
+
+    /**
+     * 按层级划分的指标，只包含有请求的层级
+     */
+    private List<TileLevelMetrics> levels;
+
+    /**
+     * 请求速率最高的切片
+     */
+    private List<SlideRequestRate> slides;
+
+    /**
+     * 瓦片缓存统计
+     */
+    private TileCacheStats cache;
+}
@@ -0,0 +1,59 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 瓦片预取统计信息
+ * <p>
+ * 用于判断预取是否值得：命中率为被请求命中的预取条目占已淘汰或已命中预取条目的比例
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TilePrefetchStats {
+
+    /**
+     * 是否启用预取
+     */
+    private boolean enabled;
+
+    /**
+     * 已提交的预取任务数
+     */
+    private long scheduled;
+
+    /**
+     * 因队列已满被丢弃的预取任务数
+     */
+    private long dropped;
+
+    /**
+     * 因缓存压力跳过的预取次数
+     */
+    private long skippedUnderPressure;
+
+    /**
+     * 预取写入缓存的瓦片数
+     */
+    private long loaded;
+
+    /**
+     * 预取瓦片被请求命中的次数
+     */
+    private long hits;
+
+    /**
+     * 预取瓦片未被访问即被淘汰的次数
+     */
+    private long wasted;
+
+    /**
+     * 预取命中率，hits / (hits + wasted)
+     */
+    private double hitRate;
+}
@@ -0,0 +1,29 @@
+package com.nwu.medimagebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DZI资源的HTTP缓存校验信息
+ * <p>
+ * 保存瓦片或DZI描述文件的强ETag和最后修改时间，用于条件请求(304)判断
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileValidator {
+
+    /**
+     * 基于文件内容计算的强ETag（不含引号）
+     */
+    private String etag;
+
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
+}
@@ -0,0 +1,260 @@
+package com.nwu.medimagebackend.handler;
+
+import com.nwu.medimagebackend.entity.TileValidator;
+import com.nwu.medimagebackend.service.DziService;
+import com.nwu.medimagebackend.service.FullnetService;
+import com.nwu.medimagebackend.service.TileMetricsService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应式瓦片和图像处理器
+ * <p>
+ * 为可选的Netty服务提供与{@code DziController.getDziFile}和{@code FullnetController.getFullnetImage}
+ * 相同的资源，DZI资源的查找整体复用{@link DziService}，图像路径解析复用{@link FullnetService}。
+ * 可能阻塞的查找在弹性线程池上执行，事件循环线程只负责写出；
+ * 内存中的瓦片直接写出，大文件通过AsynchronousFileChannel异步读取，慢速连接由Netty按背压逐块发送。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Component
+@ConditionalOnProperty(prefix = "tile.reactive", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReactiveTileHandler {
+
+    private static final String DZI_PREFIX = "/api/dzi/processed/";
+
+    private static final String FULLNET_PREFIX = "/api/fullnet/images/";
+
+    /**
+     * 异步读取文件时每块的大小
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 客户端在响应生成前断开或取消时记录的状态码
+     */
+    private static final int CLIENT_CLOSED_REQUEST = 499;
+
+    /**
+     * 瓦片的浏览器缓存有效期（秒），过期后凭ETag重新校验
+     */
+    @Value("${tile.http.max-age:0}")
+    private long tileMaxAgeSeconds;
+
+    @Autowired
+    private DziService dziService;
+
+    @Autowired
+    private FullnetService fullnetService;
+
+    @Autowired
+    private TileMetricsService tileMetricsService;
+
+    /**
+     * 提供DZI描述文件或瓦片
+     * <p>
+     * 资源查找复用{@link DziService#getDziFile(String)}，与Servlet接口共享缓存、容器、合成、
+     * 预取、热度记录和指标；查找可能读取磁盘、容器或计算校验值，因此在弹性线程池上执行。
+     * </p>
+     *
+     * @param request 请求
+     * @return 资源内容，ETag匹配时返回304
+     */
+    public Mono<ServerResponse> getDziFile(ServerRequest request) {
+        long start = System.nanoTime();
+        tileMetricsService.requestStarted();
+        String relativePath = relativePath(request, DZI_PREFIX);
+        String cacheControl = buildCacheControl(relativePath);
+        AtomicLong bytes = new AtomicLong();
+        AtomicInteger status = new AtomicInteger(CLIENT_CLOSED_REQUEST);
+        AtomicBoolean recorded = new AtomicBoolean();
+
+        Mono<ServerResponse> serve = Mono.fromCallable(() -> dziService.getDziFile(relativePath))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(resource -> {
+                    try {
+                        return serveDziFile(request, relativePath, resource, cacheControl, bytes);
+                    } catch (Exception e) {
+                        return Mono.error(e);
+                    }
+                })
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound()
+                        .header(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue())
+                        .build()));
+
+        // ETag已索引时，条件请求无需读取资源即可返回304；该查询只访问内存中的索引
+        Mono<ServerResponse> response;
+        try {
+            TileValidator validator = dziService.getDziFileValidator(relativePath);
+            response = validator == null ? serve
+                    : request.checkNotModified(Instant.ofEpochMilli(validator.getLastModified()), validator.getEtag())
+                            .switchIfEmpty(serve);
+        } catch (Exception e) {
+            response = Mono.error(e);
+        }
+        return response
+                .onErrorResume(e -> {
+                    log.error("获取DZI资源文件异常: {}", e.getMessage(), e);
+                    bytes.set(0);
+                    return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .header(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue())
+                            .build();
+                })
+                .doOnNext(result -> status.set(result.statusCode().value()))
+                // 与Servlet接口的finally对应：客户端在查找期间断开时没有响应发出，同样要结束计数
+                .doFinally(signal -> {
+                    if (recorded.compareAndSet(false, true)) {
+                        int code = status.get();
+                        tileMetricsService.recordRequest(relativePath, code,
+                                code >= 200 && code < 300 ? bytes.get() : 0, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    /**
+     * 提供Fullnet分析结果图像
+     *
+     * @param request 请求
+     * @return 图像内容
+     */
+    public Mono<ServerResponse> getFullnetImage(ServerRequest request) {
+        String relativePath = relativePath(request, FULLNET_PREFIX);
+        Path filePath;
+        try {
+            filePath = fullnetService.resolveImagePath(relativePath);
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.badRequest().build();
+        }
+        try {
+            if (!Files.isRegularFile(filePath) || !Files.isReadable(filePath)) {
+                log.warn("图像不存在或无法读取: {}", filePath);
+                return ServerResponse.notFound().build();
+            }
+            long size = Files.size(filePath);
+            Instant lastModified = Files.getLastModifiedTime(filePath).toInstant();
+            MediaType contentType = MediaType.parseMediaType(fullnetService.getImageContentType(filePath));
+            return request.checkNotModified(lastModified)
+                    .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                            .contentType(contentType)
+                            .contentLength(size)
+                            .lastModified(lastModified)
+                            .body(BodyInserters.fromDataBuffers(readFile(filePath)))));
+        } catch (IOException e) {
+            log.error("获取图像失败: {}", e.getMessage(), e);
+            return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * 写出已查找到的DZI资源，在查找所在的弹性线程上执行
+     * <p>
+     * 内存中的资源（缓存、容器或合成的瓦片）直接写出；超过缓存限制的磁盘文件
+     * 通过AsynchronousFileChannel分块读取。首次访问的条件请求在登记校验信息后再判断一次。
+     * </p>
+     */
+    private Mono<ServerResponse> serveDziFile(ServerRequest request, String relativePath, Resource resource,
+                                              String cacheControl, AtomicLong bytes) throws Exception {
+        MediaType contentType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        TileValidator validator = dziService.getDziFileValidator(relativePath);
+        Mono<ServerResponse> response;
+        if (resource instanceof ByteBufferResource bufferResource) {
+            bytes.set(bufferResource.contentLength());
+            response = bufferResponse(bufferResource.getByteBuffer(), contentType, cacheControl, validator);
+        } else {
+            // 大文件直接分块传输
+            Path filePath = resource.getFile().toPath();
+            long size = Files.size(filePath);
+            bytes.set(size);
+            ServerResponse.BodyBuilder builder = ServerResponse.ok()
+                    .contentType(contentType)
+                    .contentLength(size)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl);
+            if (validator != null) {
+                builder.eTag(validator.getEtag());
+            }
+            response = builder.lastModified(Files.getLastModifiedTime(filePath).toInstant())
+                    .body(BodyInserters.fromDataBuffers(readFile(filePath)));
+        }
+        if (validator == null) {
+            return response;
+        }
+        return request.checkNotModified(Instant.ofEpochMilli(validator.getLastModified()), validator.getEtag())
+                .switchIfEmpty(response);
+    }
+
+    /**
+     * 将内存中的内容写出
+     */
+    private Mono<ServerResponse> bufferResponse(ByteBuffer content, MediaType contentType, String cacheControl,
+                                                TileValidator validator) {
+        ByteBuffer body = content.duplicate();
+        ServerResponse.BodyBuilder builder = ServerResponse.ok()
+                .contentType(contentType)
+                .contentLength(body.remaining())
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (validator != null) {
+            builder.eTag(validator.getEtag()).lastModified(Instant.ofEpochMilli(validator.getLastModified()));
+        }
+        return builder.body(BodyInserters.fromDataBuffers(
+                Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(body))));
+    }
+
+    /**
+     * 通过AsynchronousFileChannel分块读取文件
+     */
+    private Flux<DataBuffer> readFile(Path filePath) {
+        return DataBufferUtils.read(filePath, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE);
+    }
+
+    /**
+     * 提取前缀之后的相对路径并解码，与Spring MVC中得到的路径一致
+     */
+    private String relativePath(ServerRequest request, String prefix) {
+        String path = request.path();
+        String relativePath = path.startsWith(prefix) ? path.substring(prefix.length()) : "";
+        return UriUtils.decode(relativePath, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 根据资源类型构建Cache-Control响应头，与DziController保持一致
+     */
+    private String buildCacheControl(String relativePath) {
+        if (relativePath.endsWith(".dzi")) {
+            return CacheControl.noCache().getHeaderValue();
+        }
+        return CacheControl.maxAge(tileMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().getHeaderValue();
+    }
+}
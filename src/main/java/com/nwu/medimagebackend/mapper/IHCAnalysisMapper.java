@@ -3,6 +3,7 @@ package com.nwu.medimagebackend.mapper;
 import com.nwu.medimagebackend.entity.IhcAnalysisResult;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Date;
 import java.util.List;
 
 @Mapper
@@ -20,13 +21,18 @@ public interface IHCAnalysisMapper {
             @Result(property = "positiveRatio", column = "positive_ratio"),
             @Result(property = "uploadsDate", column = "uploads_date"),
             @Result(property = "analysisDate", column = "analysis_date"),
-            @Result(property = "userName", column = "username")
+            @Result(property = "userName", column = "username"),
+            @Result(property = "histogram", column = "histogram"),
+            @Result(property = "histogramSourceModified", column = "histogram_source_modified"),
+            @Result(property = "histogramSourceSize", column = "histogram_source_size")
             // thumbnailPath 不从数据库映射，而是在服务层动态生成
     })
     IhcAnalysisResult findByImageName(@Param("folderName") String folderName, @Param("fileName") String fileName);
 
 
-    @Select("SELECT * FROM ihcs WHERE foldername = #{folderName}")
+    // 列表不需要直方图，不读取直方图字段
+    @Select("SELECT id, image_name, positive_area, total_area, analysis_date, foldername, positive_ratio, " +
+            "username, uploads_date FROM ihcs WHERE foldername = #{folderName}")
     @Results({
             @Result(property = "folderName", column = "foldername"),
             @Result(property = "imageName", column = "image_name"),
@@ -43,4 +49,34 @@ public interface IHCAnalysisMapper {
     @Update("UPDATE ihcs set positive_area = #{positiveArea}, total_area = #{totalArea}, positive_ratio = #{positiveRatio}, analysis_date = #{analysisDate} where foldername = #{folderName} and image_name = #{imageName}")
     int updateIhcAnalysisResult(IhcAnalysisResult result);
 
+    @Update("UPDATE ihcs set histogram = #{histogram}, histogram_source_modified = #{sourceModified}, " +
+            "histogram_source_size = #{sourceSize} where foldername = #{folderName} and image_name = #{imageName}")
+    int updateHistogram(@Param("folderName") String folderName, @Param("imageName") String imageName,
+                        @Param("histogram") byte[] histogram, @Param("sourceModified") long sourceModified,
+                        @Param("sourceSize") long sourceSize);
+
+    @Select("<script>SELECT id, foldername, image_name, total_area, histogram, histogram_source_modified, " +
+            "histogram_source_size FROM ihcs WHERE histogram IS NOT NULL" +
+            "<if test='folderName != null'> AND foldername = #{folderName}</if></script>")
+    @Results({
+            @Result(property = "folderName", column = "foldername"),
+            @Result(property = "imageName", column = "image_name"),
+            @Result(property = "totalArea", column = "total_area"),
+            @Result(property = "histogram", column = "histogram"),
+            @Result(property = "histogramSourceModified", column = "histogram_source_modified"),
+            @Result(property = "histogramSourceSize", column = "histogram_source_size")
+    })
+    List<IhcAnalysisResult> findWithHistogram(@Param("folderName") String folderName);
+
+    @Select("<script>SELECT COUNT(*) FROM ihcs WHERE histogram IS NULL" +
+            "<if test='folderName != null'> AND foldername = #{folderName}</if></script>")
+    int countWithoutHistogram(@Param("folderName") String folderName);
+
+    @Update("<script>UPDATE ihcs SET " +
+            "positive_area = CASE id <foreach collection='results' item='r'>WHEN #{r.id} THEN #{r.positiveArea} </foreach>END, " +
+            "positive_ratio = CASE id <foreach collection='results' item='r'>WHEN #{r.id} THEN #{r.positiveRatio} </foreach>END, " +
+            "analysis_date = #{analysisDate} " +
+            "WHERE id IN (<foreach collection='results' item='r' separator=','>#{r.id}</foreach>)</script>")
+    int updateScores(@Param("results") List<IhcAnalysisResult> results, @Param("analysisDate") Date analysisDate);
+
 }
@@ -0,0 +1,68 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.entity.TileValidator;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+
+/**
+ * 动态瓦片服务接口
+ * <p>
+ * 直接从配准结果目录下的OME-TIFF切片（folder/registered_slides/name.ome.tiff）按需切割并编码瓦片，
+ * 无需预先生成DZI金字塔。生成的瓦片写入瓦片缓存，只有被访问过的瓦片才会被计算。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface DynamicTileService {
+
+    /**
+     * 获取切片对应的DZI描述信息
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称（不含.ome.tiff后缀）
+     * @return 描述信息，切片不存在时返回null
+     * @throws IOException 如果切片无法打开
+     */
+    DziDescriptor getDescriptor(String folderName, String fileName) throws IOException;
+
+    /**
+     * 获取切片的最后修改时间
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称（不含.ome.tiff后缀）
+     * @return 最后修改时间（毫秒时间戳），切片不存在时返回0
+     * @throws IOException 如果读取文件属性失败
+     */
+    long getLastModified(String folderName, String fileName) throws IOException;
+
+    /**
+     * 获取瓦片
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称（不含.ome.tiff后缀）
+     * @param level 层级
+     * @param col 列号
+     * @param row 行号
+     * @param format 瓦片格式，必须与描述信息中的格式一致
+     * @return 瓦片资源，切片不存在、坐标超出范围或格式不一致时返回null
+     * @throws IOException 如果读取切片或编码瓦片失败
+     */
+    Resource getTile(String folderName, String fileName, int level, int col, int row, String format) throws IOException;
+
+    /**
+     * 获取瓦片的HTTP缓存校验信息，查询内存索引并与切片当前的修改时间比对
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称（不含.ome.tiff后缀）
+     * @param level 层级
+     * @param col 列号
+     * @param row 行号
+     * @param format 瓦片格式
+     * @return 校验信息，瓦片尚未生成或切片已被替换时返回null
+     * @throws IOException 如果读取切片文件属性失败
+     */
+    TileValidator getTileValidator(String folderName, String fileName, int level, int col, int row, String format)
+            throws IOException;
+}
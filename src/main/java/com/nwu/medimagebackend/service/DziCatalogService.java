@@ -0,0 +1,64 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.DziCatalogFolder;
+import com.nwu.medimagebackend.entity.DziDescriptor;
+
+import java.util.Collection;
+
+/**
+ * DZI目录索引服务接口
+ * <p>
+ * 启动时扫描一次DZI上传目录建立内存索引，之后通过文件系统监听和删除操作的回调保持更新，
+ * 列表查询直接读取索引，不再逐次遍历目录。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface DziCatalogService {
+
+    /**
+     * 获取所有文件夹，按名称排序
+     *
+     * @return 文件夹信息集合
+     */
+    Collection<DziCatalogFolder> getFolders();
+
+    /**
+     * 获取指定文件夹
+     * <p>
+     * 索引中不存在但磁盘上存在的文件夹（例如监听事件尚未处理）会立即扫描并加入索引。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @return 文件夹信息，不存在时返回null
+     */
+    DziCatalogFolder getFolder(String folderName);
+
+    /**
+     * 获取DZI描述文件信息
+     *
+     * @param folderName 文件夹名称
+     * @param dziFileName .dzi文件名
+     * @return 描述文件信息，不存在时返回null
+     */
+    DziDescriptor getDescriptor(String folderName, String dziFileName);
+
+    /**
+     * 重新扫描指定文件夹，文件夹已不存在时从索引中移除
+     *
+     * @param folderName 文件夹名称
+     */
+    void refreshFolder(String folderName);
+
+    /**
+     * 从索引中移除指定文件夹
+     *
+     * @param folderName 文件夹名称
+     */
+    void removeFolder(String folderName);
+
+    /**
+     * 重新扫描整个DZI上传目录
+     */
+    void rebuild();
+}
@@ -0,0 +1,54 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.DeletionTask;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * DZI后台删除服务接口
+ * <p>
+ * 先将要删除的目录原子地移入DZI目录下的回收目录（.deleting/），
+ * 使其立即从列表和瓦片服务中消失，再由后台任务并行删除其中的文件。
+ * 应用重启后会继续删除回收目录中残留的内容。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface DziDeletionService {
+
+    /**
+     * 将目标移入回收目录并提交后台删除任务
+     *
+     * @param target DZI目录下要删除的文件或目录
+     * @param description 任务描述，通常为folder或folder/file
+     * @return 删除任务
+     * @throws IOException 如果目标无法移入回收目录
+     */
+    DeletionTask submit(Path target, String description) throws IOException;
+
+    /**
+     * 记录一个已在请求中同步完成的删除，使其同样可以按任务ID查询
+     *
+     * @param description 任务描述，通常为folder或folder/file
+     * @param deletedFiles 已删除的文件数
+     * @return 已完成的删除任务
+     */
+    DeletionTask recordCompleted(String description, long deletedFiles);
+
+    /**
+     * 查询删除任务
+     *
+     * @param taskId 任务ID
+     * @return 任务信息，不存在时返回null
+     */
+    DeletionTask getTask(String taskId);
+
+    /**
+     * 列出所有删除任务，按创建时间倒序排列
+     *
+     * @return 任务列表
+     */
+    List<DeletionTask> listTasks();
+}
@@ -1,8 +1,14 @@
 package com.nwu.medimagebackend.service;
 
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.DeletionTask;
+import com.nwu.medimagebackend.entity.FileEntry;
 import com.nwu.medimagebackend.entity.FileInfo;
 import com.nwu.medimagebackend.entity.FileItem;
+import com.nwu.medimagebackend.entity.TileValidator;
 import org.springframework.core.io.Resource;
+
 import java.util.List;
 
 /**
@@ -31,14 +37,29 @@ public interface DziService {
      * <p>
      * 根据提供的相对路径，从DZI处理目录中加载对应的资源文件。
      * 这些资源可以是DZI描述文件或瓦片图像文件。
+     * 命中瓦片缓存时直接返回内存中的内容，否则读取磁盘并写入缓存。
+     * 资源不存在属于正常情况（查看器会请求边缘以外的瓦片），返回null而不抛出异常，
+     * 确认不存在的路径会被短暂记录，再次请求时不访问文件系统。
      * </p>
      * 
      * @param relativePath DZI资源的相对路径
-     * @return 请求的DZI资源
-     * @throws Exception 如果无法加载资源
+     * @return 请求的DZI资源，不存在、路径不在DZI目录内或指向不对外提供的文件时返回null
+     * @throws Exception 如果读取资源失败
      */
     Resource getDziFile(String relativePath) throws Exception;
 
+    /**
+     * 获取DZI文件的HTTP缓存校验信息
+     * <p>
+     * 仅查询内存中的ETag索引，不访问磁盘。资源首次通过{@link #getDziFile(String)}读取时登记校验信息。
+     * </p>
+     *
+     * @param relativePath DZI资源的相对路径
+     * @return 校验信息，尚未登记或路径不合法时返回null
+     * @throws Exception 如果查询失败
+     */
+    TileValidator getDziFileValidator(String relativePath) throws Exception;
+
     /**
      * 列出指定文件夹中的所有文件
      * <p>
@@ -50,26 +71,49 @@ public interface DziService {
      */
     List<FileItem> listFilesInFolder(String folderName);
 
+    /**
+     * 分页获取DZI文件夹列表
+     * <p>
+     * 数据来自目录索引，文件夹大小为其第一层文件的总字节数。
+     * </p>
+     *
+     * @param query 分页参数
+     * @return 当前页的文件夹
+     * @throws IllegalArgumentException 如果分页参数不合法
+     */
+    CursorPage<FileEntry> pageDziFolders(PageQuery query);
+
+    /**
+     * 分页获取指定文件夹中的文件和子目录
+     *
+     * @param folderName 文件夹名称
+     * @param query 分页参数
+     * @return 当前页的条目，文件夹不存在时返回null
+     * @throws IllegalArgumentException 如果分页参数不合法
+     */
+    CursorPage<FileEntry> pageFilesInFolder(String folderName, PageQuery query);
+
     /**
      * 删除指定的文件夹
      * <p>
-     * 递归删除指定的DZI文件夹及其所有内容。
+     * 文件夹被立即移入回收目录，不再出现在列表中，也不再提供瓦片；
+     * 其中的文件由后台任务删除，可通过返回的任务查询进度。
      * </p>
      * 
      * @param folderName 要删除的文件夹名称
-     * @return 是否成功删除
+     * @return 删除任务，文件夹不存在或无法移入回收目录时返回null
      */
-    boolean deleteFolder(String folderName);
+    DeletionTask deleteFolder(String folderName);
 
     /**
      * 删除指定文件夹中的指定文件
      * <p>
-     * 从指定的DZI文件夹中删除特定的文件或子目录。
+     * 从指定的DZI文件夹中删除特定的文件或子目录，删除方式与{@link #deleteFolder(String)}相同。
      * </p>
      * 
      * @param folderName 文件夹名称
      * @param fileName 要删除的文件或子目录名
-     * @return 是否成功删除
+     * @return 删除任务，目标不存在或无法移入回收目录时返回null
      */
-    boolean deleteFile(String folderName, String fileName);
+    DeletionTask deleteFile(String folderName, String fileName);
 }
@@ -4,6 +4,7 @@ import com.nwu.medimagebackend.entity.FullnetResult;
 import com.nwu.medimagebackend.entity.FullnetResponse;
 import com.nwu.medimagebackend.entity.FullnetTask;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -125,4 +126,24 @@ public interface FullnetService {
      * @return 是否删除成功
      */
     boolean deleteResult(Long resultId);
-} 
\ No newline at end of file
+
+    /**
+     * 解析分析结果图像的路径
+     * <p>
+     * 去掉可选的fullnet_results/前缀后在结果目录中解析，并防止目录穿越攻击。
+     * </p>
+     *
+     * @param relativePath /api/fullnet/images/之后的相对路径
+     * @return 图像文件路径（不保证存在）
+     * @throws IllegalArgumentException 如果路径不在结果目录内
+     */
+    Path resolveImagePath(String relativePath);
+
+    /**
+     * 根据文件扩展名确定图像的Content-Type
+     *
+     * @param filePath 图像文件路径
+     * @return Content-Type
+     */
+    String getImageContentType(Path filePath);
+}
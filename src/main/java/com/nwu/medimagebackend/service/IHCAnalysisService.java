@@ -1,6 +1,7 @@
 package com.nwu.medimagebackend.service;
 
 import com.nwu.medimagebackend.entity.IhcAnalysisResult;
+import com.nwu.medimagebackend.entity.IhcRescoreResult;
 
 import java.util.List;
 
@@ -8,6 +9,17 @@ public interface IHCAnalysisService {
 
     IhcAnalysisResult analyzeImage(String folderName, String fileName) throws Exception;
 
+    /**
+     * 分析免疫组化图像，并指定像素统计的并行度
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 图像文件名
+     * @param parallelism 并行度，不大于0时使用配置的并行度
+     * @return 分析结果
+     * @throws Exception 如果分析过程出错
+     */
+    IhcAnalysisResult analyzeImage(String folderName, String fileName, int parallelism) throws Exception;
+
     IhcAnalysisResult getAnalysisResult(String folderName, String fileName);
 
     List<IhcAnalysisResult> getResultsByFolder(String folderName);
@@ -22,4 +34,34 @@ public interface IHCAnalysisService {
      * @throws Exception 如果分析过程出错
      */
     IhcAnalysisResult analyzeImageWithThreshold(String folderName, String fileName, double threshold) throws Exception;
+
+    /**
+     * 使用指定阈值分析免疫组化图像
+     * <p>
+     * 图像已保存强度直方图时直接由直方图计算阳性面积，不读取图像；
+     * 只有需要生成尚不存在的可视化图像或首次分析时才打开图像。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 图像文件名
+     * @param threshold 用户指定的阈值(0-255之间)
+     * @param renderOverlay 是否生成阳性区域高亮图像
+     * @param parallelism 像素统计的并行度，不大于0时使用配置的并行度
+     * @return 分析结果，生成图像时包含处理后图像URL
+     * @throws Exception 如果分析过程出错
+     */
+    IhcAnalysisResult analyzeImageWithThreshold(String folderName, String fileName, double threshold,
+                                                boolean renderOverlay, int parallelism) throws Exception;
+
+    /**
+     * 使用已保存的强度直方图按新阈值批量重新评分
+     * <p>
+     * 只处理已保存直方图的图像，不读取图像文件。
+     * </p>
+     *
+     * @param folderName 文件夹名称，为null时处理全部文件夹
+     * @param threshold 阈值(0-255之间)
+     * @return 重新评分的统计信息
+     */
+    IhcRescoreResult rescore(String folderName, double threshold);
 }
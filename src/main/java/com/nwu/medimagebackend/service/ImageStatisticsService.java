@@ -0,0 +1,71 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.utils.IntensityHistogram;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 图像像素统计服务接口
+ * <p>
+ * 将图像划分为若干块，在多核上并行统计强度直方图后合并。
+ * 以数组、平面或单元格存储的图像直接读取底层byte数组，其余图像按游标区间划分。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface ImageStatisticsService {
+
+    /**
+     * 统计8位图像的强度直方图
+     *
+     * @param img 图像数据
+     * @param parallelism 并行度，不大于0时使用配置的并行度，不超过线程池大小
+     * @return 256区间直方图
+     */
+    IntensityHistogram histogram(Img<UnsignedByteType> img, int parallelism);
+
+    /**
+     * 按区域流式统计8位OME-TIFF文件的强度直方图
+     * <p>
+     * 不加载整幅图像：各工作线程使用独立的读取器逐块解码原始分辨率图像的所有平面，
+     * 统计后即丢弃，内存占用由同时解码的块数和块边长决定，与切片尺寸无关。
+     * 统计范围与打开为数据集后的全部像素（含所有通道）一致。
+     * </p>
+     *
+     * @param file OME-TIFF文件
+     * @param parallelism 并行度，不大于0时使用配置的并行度，不超过同时解码的块数上限
+     * @return 256区间直方图
+     * @throws IOException 如果文件无法读取或像素不是8位
+     */
+    IntensityHistogram histogram(Path file, int parallelism) throws IOException;
+
+    /**
+     * 计算文件原始分辨率图像解码后的字节数
+     * <p>
+     * 只读取文件头，按宽 x 高 x 平面数 x 每像素字节数计算，
+     * 用于判断整幅图像能否读入内存。压缩的切片解码后可能比文件大一到两个数量级。
+     * </p>
+     *
+     * @param file 图像文件
+     * @return 解码后的字节数
+     * @throws IOException 如果文件头无法读取
+     */
+    long decodedBytes(Path file) throws IOException;
+
+    /**
+     * 按阈值渲染8位图像的高亮图像
+     * <p>
+     * 与直方图统计共用同一线程池和并行度上限，按行分段并行渲染。
+     * </p>
+     *
+     * @param img 图像数据
+     * @param threshold 阈值
+     * @param parallelism 并行度，不大于0时使用配置的并行度，不超过线程池大小
+     * @return RGB图像，不小于阈值的像素显示为红色
+     */
+    BufferedImage renderOverlay(Img<UnsignedByteType> img, double threshold, int parallelism);
+}
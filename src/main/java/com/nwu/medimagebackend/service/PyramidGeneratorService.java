@@ -0,0 +1,52 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.PyramidJob;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * DZI金字塔生成服务接口
+ * <p>
+ * 由配准结果中的TIFF/OME-TIFF切片生成标准的DZI金字塔（name.dzi + name_files/），
+ * 输出到DZI目录下的同名文件夹，生成在后台任务中进行并可查询进度。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface PyramidGeneratorService {
+
+    /**
+     * 提交单个切片的金字塔生成任务
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称，可带或不带扩展名
+     * @return 任务信息
+     * @throws IOException 如果切片不存在
+     */
+    PyramidJob generate(String folderName, String fileName) throws IOException;
+
+    /**
+     * 提交文件夹下所有配准切片的金字塔生成任务
+     *
+     * @param folderName 文件夹名称
+     * @return 每个切片的任务信息
+     * @throws IOException 如果文件夹不存在或无法读取
+     */
+    List<PyramidJob> generateFolder(String folderName) throws IOException;
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务信息，不存在时返回null
+     */
+    PyramidJob getJob(String jobId);
+
+    /**
+     * 列出所有任务，按创建时间倒序排列
+     *
+     * @return 任务列表
+     */
+    List<PyramidJob> listJobs();
+}
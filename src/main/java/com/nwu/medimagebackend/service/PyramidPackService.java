@@ -0,0 +1,81 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.PyramidPackJob;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 金字塔容器服务接口
+ * <p>
+ * 将DZI金字塔的瓦片目录（name_files/）转换为单个容器文件（name.dzp），
+ * 并从容器中按偏移索引读取瓦片，替代大量小文件的存储方式。
+ * 容器与DZI描述文件位于同一目录，描述文件本身保持为独立文件。
+ * 打包在后台任务中进行并可查询状态。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface PyramidPackService {
+
+    /**
+     * 从容器中读取瓦片
+     *
+     * @param relativeKey DZI目录下的相对路径，例如 folder/name_files/12/3_4.jpeg
+     * @return 瓦片资源，路径不属于任何容器或容器中不存在该瓦片时返回null
+     * @throws IOException 如果读取容器失败
+     */
+    Resource readPackedTile(String relativeKey) throws IOException;
+
+    /**
+     * 提交指定金字塔的打包任务，打包在后台进行，完成后原瓦片目录交给后台删除服务删除
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 金字塔名称，可带或不带_files后缀
+     * @return 任务信息，同一金字塔已有未结束的任务时返回该任务
+     * @throws IOException 如果瓦片目录不存在
+     */
+    PyramidPackJob packPyramid(String folderName, String fileName) throws IOException;
+
+    /**
+     * 提交文件夹下所有金字塔的打包任务
+     *
+     * @param folderName 文件夹名称
+     * @return 每个金字塔的任务信息
+     * @throws IOException 如果文件夹不存在或无法读取
+     */
+    List<PyramidPackJob> packFolder(String folderName) throws IOException;
+
+    /**
+     * 查询打包任务
+     *
+     * @param jobId 任务ID
+     * @return 任务信息，不存在时返回null
+     */
+    PyramidPackJob getJob(String jobId);
+
+    /**
+     * 列出所有打包任务，按创建时间倒序排列
+     *
+     * @return 任务列表
+     */
+    List<PyramidPackJob> listJobs();
+
+    /**
+     * 删除指定金字塔的容器文件
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 金字塔名称，可带或不带_files或.dzp后缀
+     * @return 是否删除了容器文件
+     * @throws IOException 如果删除失败
+     */
+    boolean deletePack(String folderName, String fileName) throws IOException;
+
+    /**
+     * 关闭指定文件夹下已打开的容器，在删除文件夹前调用
+     *
+     * @param folderName 文件夹名称
+     */
+    void closePacks(String folderName);
+}
@@ -1,5 +1,8 @@
 package com.nwu.medimagebackend.service;
 
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.FileEntry;
 import com.nwu.medimagebackend.entity.FileInfo;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,6 +21,11 @@ public interface RegistrationService {
      */
     List<FileInfo> listSvsFiles();
 
+    /**
+     * 分页列出上传目录下的子文件夹，逐个读取目录项，内存占用只与每页大小有关
+     */
+    CursorPage<FileEntry> pageSvsFolders(PageQuery query) throws IOException;
+
     /**
      * 调用配准服务处理指定文件夹的配准操作
      */
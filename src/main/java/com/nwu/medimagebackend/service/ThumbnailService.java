@@ -0,0 +1,39 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.SlideThumbnail;
+
+import java.io.IOException;
+
+/**
+ * 切片缩略图服务接口
+ * <p>
+ * 按固定边长生成切片缩略图：优先使用已生成的DZI金字塔，
+ * 否则直接从配准结果中的OME-TIFF切片读取低分辨率层级。
+ * 缩略图保存在有字节上限的内存缓存中，并写入磁盘以便重启后复用；
+ * 源切片修改后自动重新生成。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface ThumbnailService {
+
+    /**
+     * 获取切片缩略图
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称（不含.dzi或.ome.tiff后缀）
+     * @param size 缩略图长边像素数，必须是配置的尺寸之一
+     * @return 缩略图，切片不存在时返回null
+     * @throws IllegalArgumentException 如果尺寸不受支持或路径非法
+     * @throws IOException 如果读取切片或编码失败
+     */
+    SlideThumbnail getThumbnail(String folderName, String fileName, int size) throws IOException;
+
+    /**
+     * 移除切片的缩略图
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 切片名称，为null时移除整个文件夹的缩略图
+     */
+    void invalidate(String folderName, String fileName);
+}
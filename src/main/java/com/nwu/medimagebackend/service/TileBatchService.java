@@ -0,0 +1,47 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.DTO.TileBatchRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 批量瓦片服务接口
+ * <p>
+ * 并行读取同一切片的多个瓦片，并以帧的形式按读取完成的顺序写入输出流，
+ * 每写完一帧立即刷新，客户端无需等待整批完成即可开始绘制。
+ * </p>
+ * <p>
+ * 输出格式（所有整数均为大端序）：
+ * <pre>
+ * [头部] 魔数 "DZB1"(int)、瓦片数(int)
+ * [帧]   请求中的序号(int)、level(int)、x(int)、y(int)、状态码(short)、内容长度(int)、内容
+ * </pre>
+ * 状态码沿用HTTP语义：200表示成功，404表示瓦片不存在，500表示读取失败，非200时内容长度为0。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileBatchService {
+
+    /**
+     * 批量响应的魔数 "DZB1"
+     */
+    int MAGIC = 0x445A4231;
+
+    /**
+     * 批量响应的Content-Type
+     */
+    String CONTENT_TYPE = "application/x-dzi-tile-batch";
+
+    /**
+     * 读取请求中的所有瓦片并写入输出流
+     *
+     * @param request 批量瓦片请求
+     * @param out 输出流
+     * @return 成功写出内容的瓦片数
+     * @throws IllegalArgumentException 如果请求参数不合法，此时尚未写出任何内容
+     * @throws IOException 如果写出失败（例如客户端断开连接）
+     */
+    int writeTiles(TileBatchRequest request, OutputStream out) throws IOException;
+}
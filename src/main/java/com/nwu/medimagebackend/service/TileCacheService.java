@@ -0,0 +1,106 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.TileCacheStats;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 瓦片缓存服务接口
+ * <p>
+ * 在DZI瓦片的磁盘读取之前提供进程内缓存，按字节预算限制内存占用，
+ * 超出预算时按最近最少使用(LRU)策略淘汰条目。
+ * 缓存键为DZI目录下规范化后的相对路径（使用"/"分隔）。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileCacheService {
+
+    /**
+     * 获取缓存的瓦片内容
+     *
+     * @param key 缓存键（DZI相对路径）
+     * @return 只读的瓦片内容视图，未命中时返回null
+     */
+    ByteBuffer get(String key);
+
+    /**
+     * 写入瓦片内容
+     * <p>
+     * 超过单条目大小上限的内容不会被缓存。
+     * </p>
+     *
+     * @param key 缓存键（DZI相对路径）
+     * @param data 瓦片内容
+     * @return 缓存中的只读内容视图，若未缓存则返回null
+     */
+    ByteBuffer put(String key, byte[] data);
+
+    /**
+     * 写入预取的瓦片内容
+     * <p>
+     * 仅在缓存中不存在该键时写入，条目被标记为预取，首次被{@link #get(String)}命中时计入预取命中，
+     * 未被访问即被淘汰或失效时计入预取浪费。
+     * </p>
+     *
+     * @param key 缓存键（DZI相对路径）
+     * @param data 瓦片内容
+     * @return 是否写入了缓存
+     */
+    boolean putPrefetched(String key, byte[] data);
+
+    /**
+     * 判断缓存中是否存在指定条目，不影响LRU顺序和命中统计
+     *
+     * @param key 缓存键
+     * @return 是否存在
+     */
+    boolean contains(String key);
+
+    /**
+     * 获取缓存已使用字节数占字节预算的比例
+     *
+     * @return 使用率，范围0到1
+     */
+    double getUsageRatio();
+
+    /**
+     * 获取尚未被访问过的预取条目占字节预算的比例
+     *
+     * @return 比例，范围0到1
+     */
+    double getPrefetchedRatio();
+
+    /**
+     * 判断指定大小的内容是否允许进入缓存
+     *
+     * @param length 内容字节数
+     * @return 是否可缓存
+     */
+    boolean isCacheable(long length);
+
+    /**
+     * 移除单个缓存条目
+     *
+     * @param key 缓存键
+     */
+    void invalidate(String key);
+
+    /**
+     * 移除指定前缀下的所有缓存条目
+     * <p>
+     * 用于删除文件夹或金字塔后使缓存失效。
+     * </p>
+     *
+     * @param prefix 缓存键前缀
+     * @return 被移除的条目数
+     */
+    int invalidatePrefix(String prefix);
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 命中、未命中、淘汰次数及内存占用
+     */
+    TileCacheStats getStats();
+}
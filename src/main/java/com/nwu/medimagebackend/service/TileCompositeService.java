@@ -0,0 +1,71 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 多切片瓦片合成服务接口
+ * <p>
+ * 配准后同一文件夹中的切片尺寸一致，同一(level, x, y)的瓦片覆盖相同区域。
+ * 该服务并行读取多张切片的同一瓦片，在服务端合成为一张瓦片返回，
+ * 浏览器对比染色时只需拉取一路瓦片流。合成结果写入瓦片缓存。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileCompositeService {
+
+    /**
+     * 合成结果在瓦片缓存中的键前缀
+     */
+    String CACHE_PREFIX = "composite:";
+
+    /**
+     * 合成方式
+     */
+    enum Mode {
+        /**
+         * 各切片按像素取平均
+         */
+        BLEND,
+        /**
+         * 按棋盘格交替显示各切片
+         */
+        CHECKERBOARD,
+        /**
+         * 各切片的染色强度（255减去亮度）分别作为红、绿、蓝通道，最多3张切片
+         */
+        CHANNELS
+    }
+
+    /**
+     * 获取合成瓦片
+     *
+     * @param folderName 文件夹名称
+     * @param slides 参与合成的切片名称（不含.dzi或.ome.tiff后缀）
+     * @param mode 合成方式
+     * @param cellSize 棋盘格边长（像素），仅CHECKERBOARD使用
+     * @param level 层级
+     * @param col 列号
+     * @param row 行号
+     * @param format 瓦片格式
+     * @return 合成后的瓦片，所有切片都没有该瓦片时返回null
+     * @throws IllegalArgumentException 如果参数非法
+     * @throws IOException 如果读取或编码瓦片失败
+     */
+    ByteBufferResource getCompositeTile(String folderName, List<String> slides, Mode mode, int cellSize,
+                                        int level, int col, int row, String format) throws IOException;
+
+    /**
+     * 获取参与合成的切片中最晚的修改时间，用作合成瓦片的校验信息
+     *
+     * @param folderName 文件夹名称
+     * @param slides 切片名称
+     * @return 最后修改时间（毫秒时间戳），切片都不存在时返回0
+     * @throws IllegalArgumentException 如果参数非法
+     * @throws IOException 如果读取文件属性失败
+     */
+    long getLastModified(String folderName, List<String> slides) throws IOException;
+}
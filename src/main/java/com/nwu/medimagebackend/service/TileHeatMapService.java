@@ -0,0 +1,42 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.TileHeatMapStats;
+
+import java.util.List;
+
+/**
+ * 瓦片热度服务接口
+ * <p>
+ * 记录各切片瓦片的访问频率，热度按半衰期衰减并定期写入磁盘。
+ * 应用启动后按热度从高到低将瓦片预先读入瓦片缓存，使部署后的首批请求不必等待冷缓存。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileHeatMapService {
+
+    /**
+     * 记录一次瓦片访问
+     * <p>
+     * 非瓦片路径会被忽略。
+     * </p>
+     *
+     * @param key 瓦片的DZI相对路径
+     */
+    void recordAccess(String key);
+
+    /**
+     * 获取热度最高的瓦片
+     *
+     * @param limit 数量上限
+     * @return 按热度从高到低排列的瓦片相对路径
+     */
+    List<String> getHottestTiles(int limit);
+
+    /**
+     * 获取热度统计信息
+     *
+     * @return 热度表规模和预热结果
+     */
+    TileHeatMapStats getStats();
+}
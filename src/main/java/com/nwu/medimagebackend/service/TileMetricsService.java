@@ -0,0 +1,74 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.TileMetricsSnapshot;
+
+/**
+ * 瓦片服务指标接口
+ * <p>
+ * 记录瓦片请求的延迟直方图（按层级、响应状态和读取来源划分）、返回字节数、
+ * 正在处理的请求数以及每个切片最近一分钟的请求速率。
+ * 记录方法无锁且不分配对象，可在生产环境常开。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileMetricsService {
+
+    /**
+     * 瓦片读取来源
+     */
+    enum Lookup {
+        /**
+         * 瓦片缓存命中
+         */
+        CACHE_HIT,
+        /**
+         * 从磁盘文件读取
+         */
+        DISK,
+        /**
+         * 从金字塔容器读取
+         */
+        PACK,
+        /**
+         * 由子瓦片合成
+         */
+        SYNTHESIZED,
+        /**
+         * 资源不存在或读取失败
+         */
+        NOT_FOUND
+    }
+
+    /**
+     * 记录请求开始，与{@link #recordRequest}成对调用
+     */
+    void requestStarted();
+
+    /**
+     * 记录请求完成
+     *
+     * @param key DZI相对路径，可为null
+     * @param status HTTP状态码
+     * @param bytes 返回的字节数
+     * @param elapsedNanos 请求耗时（纳秒）
+     */
+    void recordRequest(String key, int status, long bytes, long elapsedNanos);
+
+    /**
+     * 记录一次资源读取
+     *
+     * @param key DZI相对路径
+     * @param lookup 读取来源
+     * @param elapsedNanos 读取耗时（纳秒）
+     */
+    void recordLookup(String key, Lookup lookup, long elapsedNanos);
+
+    /**
+     * 获取指标快照
+     *
+     * @param topSlides 返回请求速率最高的切片数
+     * @return 指标快照
+     */
+    TileMetricsSnapshot snapshot(int topSlides);
+}
@@ -0,0 +1,39 @@
+package com.nwu.medimagebackend.service;
+
+/**
+ * 瓦片不存在结果缓存服务接口
+ * <p>
+ * 查看器会持续请求边缘以外或尚未生成的瓦片。记录最近确认不存在的DZI资源路径，
+ * 再次请求时无需访问文件系统和金字塔容器即可返回404。
+ * 条目有存活时间和数量上限，瓦片写入时按前缀失效。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileNegativeCacheService {
+
+    /**
+     * 判断资源是否最近被确认为不存在
+     *
+     * @param key DZI相对路径
+     * @return 是否不存在
+     */
+    boolean isMissing(String key);
+
+    /**
+     * 记录资源不存在
+     *
+     * @param key DZI相对路径
+     */
+    void markMissing(String key);
+
+    /**
+     * 移除指定前缀下的所有记录
+     * <p>
+     * 用于生成、上传或替换瓦片后使记录失效。
+     * </p>
+     *
+     * @param prefix DZI相对路径前缀
+     */
+    void invalidatePrefix(String prefix);
+}
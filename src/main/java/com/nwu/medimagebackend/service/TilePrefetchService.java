@@ -0,0 +1,32 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.TilePrefetchStats;
+
+/**
+ * 瓦片预取服务接口
+ * <p>
+ * 浏览器访问瓦片(L, x, y)后，下一步通常是平移到相邻的8个瓦片或放大到L+1层的4个子瓦片。
+ * 预取服务在瓦片被请求时异步将这些瓦片读入瓦片缓存。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TilePrefetchService {
+
+    /**
+     * 通知某个瓦片被请求，异步预取其相邻瓦片和下一层子瓦片
+     * <p>
+     * 该方法不阻塞调用方，非瓦片路径会被忽略。
+     * </p>
+     *
+     * @param key 瓦片的DZI相对路径
+     */
+    void onTileRequested(String key);
+
+    /**
+     * 获取预取统计信息
+     *
+     * @return 预取统计信息
+     */
+    TilePrefetchStats getStats();
+}
@@ -0,0 +1,28 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.utils.DziTilePath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 瓦片合成服务接口
+ * <p>
+ * 为节省磁盘，金字塔可以只保存部分层级（见tile.generator.dropped-levels）。
+ * 请求的瓦片在磁盘和金字塔容器中都不存在时，由下一层的子瓦片合成，
+ * 子瓦片同样缺失时递归合成。合成结果写入瓦片缓存，缓存命中后与普通瓦片没有区别。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileSynthesisService {
+
+    /**
+     * 由下一层的子瓦片合成瓦片
+     *
+     * @param tile 瓦片路径
+     * @return 编码后的瓦片内容；金字塔不存在、坐标超出范围、超过递归深度或子瓦片都不存在时返回null
+     * @throws IOException 如果读取或编码瓦片失败
+     */
+    ByteBuffer synthesize(DziTilePath tile) throws IOException;
+}
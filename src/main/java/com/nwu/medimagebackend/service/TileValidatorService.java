@@ -0,0 +1,55 @@
+package com.nwu.medimagebackend.service;
+
+import com.nwu.medimagebackend.entity.TileValidator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * 瓦片校验信息索引服务接口
+ * <p>
+ * 为DZI瓦片和描述文件维护ETag/Last-Modified索引。
+ * 每个资源的ETag只在首次访问时根据内容计算一次，之后的条件请求直接查询索引，
+ * 无需打开文件即可判断是否返回304。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public interface TileValidatorService {
+
+    /**
+     * 查询已索引的校验信息，不进行任何磁盘访问
+     *
+     * @param key DZI相对路径
+     * @return 校验信息，未索引时返回null
+     */
+    TileValidator get(String key);
+
+    /**
+     * 根据内存中的内容计算并登记校验信息
+     *
+     * @param key DZI相对路径
+     * @param content 资源内容
+     * @param lastModified 最后修改时间（毫秒时间戳）
+     * @return 登记的校验信息
+     */
+    TileValidator register(String key, ByteBuffer content, long lastModified);
+
+    /**
+     * 读取文件内容计算并登记校验信息
+     *
+     * @param key DZI相对路径
+     * @param file 资源文件
+     * @return 登记的校验信息
+     * @throws IOException 如果读取文件失败
+     */
+    TileValidator register(String key, Path file) throws IOException;
+
+    /**
+     * 移除指定前缀下的所有校验信息
+     *
+     * @param prefix DZI相对路径前缀
+     */
+    void invalidatePrefix(String prefix);
+}
@@ -0,0 +1,422 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.entity.TileValidator;
+import com.nwu.medimagebackend.service.DynamicTileService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.DziDescriptorReader;
+import com.nwu.medimagebackend.utils.DziTileUtils;
+import com.nwu.medimagebackend.utils.OmeTiffSlide;
+import io.scif.SCIFIO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 动态瓦片服务实现类
+ * <p>
+ * 瓦片所需的缩放倍数与最近子分辨率层之间的差距不超过阈值时，直接从切片读取区域并缩小；
+ * 否则由下一层的子瓦片合成（子瓦片同样按需生成并缓存），
+ * 避免在没有子分辨率层的切片上为低层级瓦片读取过大的区域。
+ * 同一瓦片的并发请求只计算一次。
+ * 已打开的切片按最近最少使用保留有限个，切片文件被替换后自动重新打开并使旧瓦片失效。
+ * 切片按引用计数管理，被淘汰或替换的切片在最后一个读取结束后才关闭，且关闭不占用切片表锁。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class DynamicTileServiceImpl implements DynamicTileService {
+
+    /**
+     * 动态瓦片缓存键前缀，与DZI目录下的相对路径区分
+     */
+    private static final String KEY_PREFIX = "dynamic:";
+
+    /**
+     * 配准结果目录路径
+     */
+    @Value("${uploads.register.dir}")
+    private String imageDir;
+
+    /**
+     * 瓦片边长
+     */
+    @Value("${tile.dynamic.tile-size:254}")
+    private int tileSize;
+
+    /**
+     * 瓦片重叠像素数
+     */
+    @Value("${tile.dynamic.overlap:1}")
+    private int overlap;
+
+    /**
+     * 瓦片格式
+     */
+    @Value("${tile.dynamic.format:jpeg}")
+    private String format;
+
+    /**
+     * JPEG压缩质量
+     */
+    @Value("${tile.dynamic.quality:0.85}")
+    private float quality;
+
+    /**
+     * 直接读取切片区域时允许的最大缩小倍数，超过时由子瓦片合成
+     */
+    @Value("${tile.dynamic.max-direct-factor:8}")
+    private long maxDirectFactor;
+
+    /**
+     * 同时打开的切片数上限
+     */
+    @Value("${tile.dynamic.max-open-slides:8}")
+    private int maxOpenSlides;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    private TileValidatorService tileValidatorService;
+
+    @Autowired
+    private SCIFIO scifio;
+
+    /**
+     * 已打开的切片，按访问顺序排列
+     */
+    private final LinkedHashMap<Path, SlideRef> slides = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ReentrantLock slidesLock = new ReentrantLock();
+
+    /**
+     * 正在生成的瓦片，避免并发请求重复计算
+     */
+    private final Map<String, CompletableFuture<ByteBuffer>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 服务初始化
+     */
+    @PostConstruct
+    public void init() {
+        log.info("初始化动态瓦片服务: 瓦片大小={}, 重叠={}, 格式={}, 直接读取最大缩小倍数={}",
+                tileSize, overlap, format, maxDirectFactor);
+    }
+
+    /**
+     * 应用关闭时关闭所有切片
+     */
+    @PreDestroy
+    public void destroy() {
+        List<OmeTiffSlide> toClose = new ArrayList<>();
+        slidesLock.lock();
+        try {
+            slides.values().forEach(ref -> retire(ref, toClose));
+            slides.clear();
+        } finally {
+            slidesLock.unlock();
+        }
+        toClose.forEach(this::closeQuietly);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DziDescriptor getDescriptor(String folderName, String fileName) throws IOException {
+        SlideRef ref = acquireSlide(resolveSlide(folderName, fileName));
+        if (ref == null) {
+            return null;
+        }
+        try {
+            OmeTiffSlide slide = ref.slide;
+            return new DziDescriptor(slide.getWidth(), slide.getHeight(), tileSize, overlap, format,
+                    DziDescriptorReader.levelCount(slide.getWidth(), slide.getHeight()));
+        } finally {
+            release(ref);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastModified(String folderName, String fileName) throws IOException {
+        Path file = resolveSlide(folderName, fileName);
+        return Files.isRegularFile(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Resource getTile(String folderName, String fileName, int level, int col, int row,
+                            String tileFormat) throws IOException {
+        if (!format.equalsIgnoreCase(tileFormat)) {
+            return null;
+        }
+        SlideRef ref = acquireSlide(resolveSlide(folderName, fileName));
+        if (ref == null) {
+            return null;
+        }
+        try {
+            ByteBuffer content = getTileContent(ref.slide, folderName + "/" + fileName, level, col, row);
+            if (content == null) {
+                return null;
+            }
+            return new ByteBufferResource(content, col + "_" + row + "." + format, ref.slide.getLastModified());
+        } finally {
+            release(ref);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileValidator getTileValidator(String folderName, String fileName, int level, int col, int row,
+                                          String tileFormat) throws IOException {
+        TileValidator validator = tileValidatorService.get(tileKey(folderName + "/" + fileName, level, col, row));
+        if (validator == null) {
+            return null;
+        }
+        // 切片被替换后旧校验信息不再有效，由getTile重新打开切片并登记
+        return validator.getLastModified() == getLastModified(folderName, fileName) ? validator : null;
+    }
+
+    /**
+     * 获取瓦片内容，依次查询缓存、等待正在进行的计算或自行计算
+     *
+     * @param slide 切片
+     * @param pyramid 金字塔路径（folder/name）
+     * @param level 层级
+     * @param col 列号
+     * @param row 行号
+     * @return 编码后的瓦片内容，坐标超出范围时返回null
+     * @throws IOException 如果生成瓦片失败
+     */
+    private ByteBuffer getTileContent(OmeTiffSlide slide, String pyramid, int level, int col, int row)
+            throws IOException {
+        int maxLevel = DziDescriptorReader.levelCount(slide.getWidth(), slide.getHeight()) - 1;
+        if (level < 0 || level > maxLevel) {
+            return null;
+        }
+        long levelWidth = DziTileUtils.levelDimension(slide.getWidth(), maxLevel, level);
+        long levelHeight = DziTileUtils.levelDimension(slide.getHeight(), maxLevel, level);
+        long[] bounds = DziTileUtils.tileBounds(levelWidth, levelHeight, tileSize, overlap, col, row);
+        if (bounds == null) {
+            return null;
+        }
+
+        String key = tileKey(pyramid, level, col, row);
+        ByteBuffer cached = tileCacheService.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+        }
+
+        try {
+            BufferedImage image;
+            long scale = 1L << (maxLevel - level);
+            if (scale / slide.bestFactor(scale) <= maxDirectFactor) {
+                image = slide.readRegion(scale, bounds[0], bounds[1], bounds[2], bounds[3]);
+            } else {
+                long childWidth = DziTileUtils.levelDimension(slide.getWidth(), maxLevel, level + 1);
+                long childHeight = DziTileUtils.levelDimension(slide.getHeight(), maxLevel, level + 1);
+                image = DziTileUtils.composeFromChildren(
+                        (childLevel, childCol, childRow) -> decode(
+                                getTileContent(slide, pyramid, childLevel, childCol, childRow)),
+                        level + 1, bounds, childWidth, childHeight, tileSize, overlap);
+            }
+            byte[] encoded = DziTileUtils.encode(image, format, quality);
+            tileValidatorService.register(key, ByteBuffer.wrap(encoded), slide.getLastModified());
+            ByteBuffer buffer = tileCacheService.put(key, encoded);
+            if (buffer == null) {
+                buffer = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+            }
+            future.complete(buffer);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * 解码瓦片内容
+     */
+    private BufferedImage decode(ByteBuffer content) throws IOException {
+        if (content == null) {
+            return null;
+        }
+        try (InputStream in = new ByteBufferResource(content, "tile").getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+
+    /**
+     * 打开切片并增加引用计数，切片文件已变化时重新打开并使旧瓦片失效。
+     * 调用方读取结束后必须调用{@link #release(SlideRef)}。
+     *
+     * @param file 切片文件
+     * @return 切片引用，文件不存在时返回null
+     * @throws IOException 如果切片无法打开
+     */
+    private SlideRef acquireSlide(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        List<OmeTiffSlide> toClose = new ArrayList<>();
+        slidesLock.lock();
+        try {
+            SlideRef ref = slides.get(file);
+            if (ref != null && ref.slide.getLastModified() == lastModified) {
+                ref.refs++;
+                return ref;
+            }
+            if (ref != null) {
+                log.info("切片已更新，重新打开: {}", file);
+                slides.remove(file);
+                retire(ref, toClose);
+                String prefix = KEY_PREFIX + pyramidOf(file) + "_files/";
+                tileCacheService.invalidatePrefix(prefix);
+                tileValidatorService.invalidatePrefix(prefix);
+            }
+
+            log.info("打开切片: {}", file);
+            ref = new SlideRef(new OmeTiffSlide(scifio, file));
+            slides.put(file, ref);
+            Iterator<SlideRef> it = slides.values().iterator();
+            while (slides.size() > maxOpenSlides && it.hasNext()) {
+                SlideRef eldest = it.next();
+                it.remove();
+                retire(eldest, toClose);
+            }
+            ref.refs++;
+            return ref;
+        } finally {
+            slidesLock.unlock();
+            toClose.forEach(this::closeQuietly);
+        }
+    }
+
+    /**
+     * 释放切片引用，切片已被移出且没有其他读取时关闭
+     */
+    private void release(SlideRef ref) {
+        boolean close;
+        slidesLock.lock();
+        try {
+            close = --ref.refs == 0;
+        } finally {
+            slidesLock.unlock();
+        }
+        if (close) {
+            closeQuietly(ref.slide);
+        }
+    }
+
+    /**
+     * 释放切片表自身持有的引用，须在持有切片表锁时调用；
+     * 没有其他读取时把切片加入待关闭列表，由调用方在释放锁后关闭
+     */
+    private void retire(SlideRef ref, List<OmeTiffSlide> toClose) {
+        if (--ref.refs == 0) {
+            toClose.add(ref.slide);
+        }
+    }
+
+    /**
+     * 解析切片路径，并防止目录穿越攻击
+     */
+    private Path resolveSlide(String folderName, String fileName) throws IOException {
+        Path baseDir = Paths.get(imageDir).toAbsolutePath().normalize();
+        Path file = baseDir.resolve(folderName).resolve("registered_slides")
+                .resolve(fileName + ".ome.tiff").normalize();
+        if (!file.startsWith(baseDir)) {
+            log.warn("安全警告：尝试访问不在目录内的切片: {}", file);
+            throw new IOException("非法的切片路径: " + folderName + "/" + fileName);
+        }
+        return file;
+    }
+
+    /**
+     * 由切片文件路径得到金字塔路径（folder/name）
+     */
+    private String pyramidOf(Path file) {
+        String name = file.getFileName().toString();
+        String folder = file.getParent().getParent().getFileName().toString();
+        return folder + "/" + name.substring(0, name.length() - ".ome.tiff".length());
+    }
+
+    /**
+     * 生成动态瓦片的缓存键
+     */
+    private String tileKey(String pyramid, int level, int col, int row) {
+        return KEY_PREFIX + pyramid + "_files/" + level + "/" + col + "_" + row + "." + format;
+    }
+
+    private void closeQuietly(OmeTiffSlide slide) {
+        try {
+            slide.close();
+        } catch (IOException e) {
+            log.warn("关闭切片失败: {}, 错误: {}", slide.getFile(), e.getMessage());
+        }
+    }
+
+    /**
+     * 带引用计数的切片，切片表本身持有一个引用
+     */
+    private static final class SlideRef {
+
+        private final OmeTiffSlide slide;
+
+        /**
+         * 引用数，由切片表锁保护
+         */
+        private int refs = 1;
+
+        private SlideRef(OmeTiffSlide slide) {
+            this.slide = slide;
+        }
+    }
+}
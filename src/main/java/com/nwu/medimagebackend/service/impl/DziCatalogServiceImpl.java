@@ -0,0 +1,473 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DziCatalogFolder;
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.entity.FileEntry;
+import com.nwu.medimagebackend.entity.FileItem;
+import com.nwu.medimagebackend.service.DziCatalogService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileNegativeCacheService;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import com.nwu.medimagebackend.utils.DziDescriptorReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DZI目录索引服务实现类
+ * <p>
+ * 索引以文件夹为单位保存不可变快照，扫描完成后整体替换，读取无需加锁。
+ * 监听线程只记录发生变化的文件夹，由调度线程在防抖间隔后统一重新扫描，
+ * 批量上传或打包时大量事件只触发一次扫描。
+ * 只监听上传目录及其第一层文件夹，瓦片目录内部的变化不影响索引内容。
+ * 监听到文件夹内的条目变化时，同时清除对应金字塔的瓦片缓存和校验信息，
+ * 避免在生成和删除流程之外改写的文件仍以旧内容或旧ETag返回。
+ * 以"."开头的内部目录不计入索引。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class DziCatalogServiceImpl implements DziCatalogService {
+
+    /**
+     * 重新扫描整个目录的标记
+     */
+    private static final String FULL_RESCAN = "";
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    /**
+     * 是否监听目录变化
+     */
+    @Value("${tile.catalog.watch:true}")
+    private boolean watchEnabled;
+
+    /**
+     * 监听事件的防抖间隔（毫秒）
+     */
+    @Value("${tile.catalog.debounce-ms:500}")
+    private long debounceMillis;
+
+    @Autowired
+    private TileNegativeCacheService tileNegativeCacheService;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    private TileValidatorService tileValidatorService;
+
+    /**
+     * 文件夹名称到文件夹快照的索引，按名称排序
+     */
+    private final ConcurrentSkipListMap<String, DziCatalogFolder> folders = new ConcurrentSkipListMap<>();
+
+    /**
+     * 等待重新扫描的文件夹
+     */
+    private final Set<String> dirtyFolders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 等待清除瓦片缓存和校验信息的DZI相对路径前缀
+     */
+    private final Set<String> dirtyPrefixes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否已安排防抖扫描
+     */
+    private final AtomicBoolean rescanScheduled = new AtomicBoolean();
+
+    /**
+     * 监听键到被监听目录的映射
+     */
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    private Path baseDir;
+
+    private WatchService watchService;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 启动时建立索引并开始监听
+     */
+    @PostConstruct
+    public void init() {
+        baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dzi-catalog-rescan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuild();
+
+        if (!watchEnabled) {
+            log.info("DZI目录监听已关闭，索引仅在删除操作时更新");
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            if (Files.isDirectory(baseDir)) {
+                registerAll();
+            }
+            Thread watcher = new Thread(this::watchLoop, "dzi-catalog-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            log.warn("无法监听DZI上传目录，索引仅在删除操作时更新: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭时停止监听
+     */
+    @PreDestroy
+    public void destroy() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("关闭DZI目录监听失败: {}", e.getMessage());
+            }
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<DziCatalogFolder> getFolders() {
+        return Collections.unmodifiableCollection(folders.values());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DziCatalogFolder getFolder(String folderName) {
+        DziCatalogFolder folder = folders.get(folderName);
+        if (folder == null) {
+            refreshFolder(folderName);
+            folder = folders.get(folderName);
+        }
+        return folder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DziDescriptor getDescriptor(String folderName, String dziFileName) {
+        DziCatalogFolder folder = getFolder(folderName);
+        return folder == null ? null : folder.getDescriptors().get(dziFileName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshFolder(String folderName) {
+        // 文件夹内容有变化，之前确认不存在的瓦片可能已经写入
+        tileNegativeCacheService.invalidatePrefix(folderName + "/");
+        Path folder = resolveFolder(folderName);
+        if (folder == null || !isCatalogFolder(folder)) {
+            folders.remove(folderName);
+            return;
+        }
+        try {
+            folders.put(folderName, scanFolder(folder));
+        } catch (IOException e) {
+            log.warn("扫描DZI文件夹失败: {}, 错误: {}", folder, e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeFolder(String folderName) {
+        if (folders.remove(folderName) != null) {
+            log.debug("已从DZI目录索引中移除文件夹: {}", folderName);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rebuild() {
+        long start = System.nanoTime();
+        if (!Files.isDirectory(baseDir)) {
+            log.warn("DZI上传目录不存在或不是一个目录: {}", baseDir);
+            folders.clear();
+            return;
+        }
+        List<String> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(baseDir, this::isCatalogFolder)) {
+            for (Path dir : stream) {
+                String name = dir.getFileName().toString();
+                found.add(name);
+                try {
+                    folders.put(name, scanFolder(dir));
+                } catch (IOException e) {
+                    log.warn("扫描DZI文件夹失败: {}, 错误: {}", dir, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("扫描DZI上传目录失败: {}", e.getMessage(), e);
+            return;
+        }
+        folders.keySet().retainAll(found);
+        log.info("DZI目录索引构建完成，共{}个文件夹，耗时{}ms",
+                folders.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 扫描单个文件夹，生成不可变快照
+     *
+     * @param folder 文件夹路径
+     * @return 文件夹快照
+     * @throws IOException 如果无法读取文件夹
+     */
+    private DziCatalogFolder scanFolder(Path folder) throws IOException {
+        List<FileItem> items = new ArrayList<>();
+        List<FileEntry> entries = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        Map<String, DziDescriptor> descriptors = new LinkedHashMap<>();
+        long totalBytes = 0;
+        int directoryCount = 0;
+
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            stream.forEach(children::add);
+        }
+        children.sort(Comparator.comparing(path -> path.getFileName().toString()));
+
+        for (Path child : children) {
+            String name = child.getFileName().toString();
+            if (name.startsWith(".")) {
+                // 以.开头的是生成或删除过程中的临时文件
+                continue;
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(child, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // 扫描过程中被删除的文件直接跳过
+                continue;
+            }
+            items.add(new FileItem(name, attributes.isDirectory()));
+            entries.add(new FileEntry(name, attributes.isDirectory(),
+                    attributes.isDirectory() ? 0 : attributes.size(), attributes.lastModifiedTime().toMillis()));
+            if (attributes.isDirectory()) {
+                directoryCount++;
+                continue;
+            }
+            fileNames.add(name);
+            totalBytes += attributes.size();
+            if (name.endsWith(".dzi")) {
+                try {
+                    descriptors.put(name, DziDescriptorReader.read(child));
+                } catch (IOException e) {
+                    log.warn("读取DZI描述文件失败: {}, 错误: {}", child, e.getMessage());
+                }
+            }
+        }
+
+        return new DziCatalogFolder(folder.getFileName().toString(), List.copyOf(items), List.copyOf(entries),
+                List.copyOf(fileNames), fileNames.size(), directoryCount, totalBytes,
+                Files.getLastModifiedTime(folder).toMillis(), Collections.unmodifiableMap(descriptors));
+    }
+
+    /**
+     * 监听线程主循环，只记录发生变化的文件夹
+     */
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                        markDirty(FULL_RESCAN);
+                        continue;
+                    }
+                    if (dir.equals(baseDir)) {
+                        Path child = dir.resolve((Path) event.context());
+                        if (!isCatalogFolder(child)) {
+                            continue;
+                        }
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            register(child);
+                        }
+                        String folderName = child.getFileName().toString();
+                        dirtyPrefixes.add(folderName + "/");
+                        markDirty(folderName);
+                    } else {
+                        String folderName = dir.getFileName().toString();
+                        markChanged(folderName, ((Path) event.context()).getFileName().toString());
+                        markDirty(folderName);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("DZI目录监听已关闭");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 记录需要重新扫描的文件夹，并在防抖间隔后执行扫描
+     */
+    private void markDirty(String folderName) {
+        dirtyFolders.add(folderName);
+        if (rescanScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::rescanDirty, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 记录文件夹内发生变化的条目对应的缓存前缀；
+     * 描述文件或容器文件变化时，同名金字塔的瓦片也视为已变化
+     */
+    private void markChanged(String folderName, String entryName) {
+        if (entryName.startsWith(".")) {
+            // 临时文件在改名为正式文件时会再产生一次事件
+            return;
+        }
+        dirtyPrefixes.add(folderName + "/" + entryName);
+        for (String suffix : new String[]{".dzi", ".dzp"}) {
+            if (entryName.endsWith(suffix)) {
+                String pyramid = entryName.substring(0, entryName.length() - suffix.length());
+                dirtyPrefixes.add(folderName + "/" + pyramid + "_files/");
+            }
+        }
+    }
+
+    /**
+     * 重新扫描防抖期间记录的文件夹
+     */
+    private void rescanDirty() {
+        rescanScheduled.set(false);
+        List<String> pending = new ArrayList<>(dirtyFolders);
+        dirtyFolders.removeAll(pending);
+        List<String> prefixes = new ArrayList<>(dirtyPrefixes);
+        dirtyPrefixes.removeAll(prefixes);
+        try {
+            if (pending.contains(FULL_RESCAN)) {
+                // 事件溢出时无法确定变化的文件，清除全部DZI资源的缓存
+                tileNegativeCacheService.invalidatePrefix("");
+                invalidateCached(List.of(""));
+                registerAll();
+                rebuild();
+                return;
+            }
+            invalidateCached(prefixes);
+            for (String folderName : pending) {
+                refreshFolder(folderName);
+            }
+            log.debug("DZI目录索引已更新: {}", pending);
+        } catch (Exception e) {
+            log.error("更新DZI目录索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 清除指定前缀下的瓦片缓存和校验信息
+     */
+    private void invalidateCached(Collection<String> prefixes) {
+        for (String prefix : prefixes) {
+            tileCacheService.invalidatePrefix(prefix);
+            tileValidatorService.invalidatePrefix(prefix);
+        }
+    }
+
+    /**
+     * 监听上传目录及其所有第一层文件夹
+     */
+    private void registerAll() throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        register(baseDir);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(baseDir, this::isCatalogFolder)) {
+            for (Path dir : stream) {
+                register(dir);
+            }
+        }
+    }
+
+    /**
+     * 监听单个目录
+     */
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirs.put(key, dir);
+        } catch (IOException e) {
+            log.warn("无法监听目录: {}, 错误: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * 判断上传目录下的路径是否为需要索引的文件夹
+     */
+    private boolean isCatalogFolder(Path path) {
+        return !path.getFileName().toString().startsWith(".") && Files.isDirectory(path);
+    }
+
+    /**
+     * 解析文件夹路径，非法名称返回null
+     */
+    private Path resolveFolder(String folderName) {
+        Path folder = baseDir.resolve(folderName).normalize();
+        if (!baseDir.equals(folder.getParent())) {
+            return null;
+        }
+        return folder;
+    }
+}
@@ -0,0 +1,395 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DeletionTask;
+import com.nwu.medimagebackend.service.DziDeletionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * DZI后台删除服务实现类
+ * <p>
+ * 删除分两个阶段：先用Files.walkFileTree遍历回收目录，把文件按批交给少量低优先级线程并行删除，
+ * 删除速率受每秒文件数上限约束，避免占满磁盘IO影响瓦片读取；
+ * 全部文件删除后再自底向上删除目录。
+ * 有文件删除失败时任务标记为失败，回收目录中的残留内容在应用下次启动时继续删除。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class DziDeletionServiceImpl implements DziDeletionService {
+
+    /**
+     * 回收目录名，以.开头使其不出现在DZI目录索引中
+     */
+    private static final String TRASH_DIR = ".deleting";
+
+    /**
+     * 每批删除的文件数
+     */
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * 保留的任务记录数上限，超出后移除最早结束的任务
+     */
+    private static final int MAX_RETAINED_TASKS = 500;
+
+    /**
+     * DZI图像目录路径
+     */
+    @Value("${uploads.dzi.dir}")
+    private String dziUploadDir;
+
+    /**
+     * 并行删除文件的线程数
+     */
+    @Value("${tile.delete.parallelism:2}")
+    private int parallelism;
+
+    /**
+     * 每秒最多删除的文件数，不大于0时不限速
+     */
+    @Value("${tile.delete.max-files-per-second:2000}")
+    private long maxFilesPerSecond;
+
+    @Autowired
+    @Qualifier("dziDeleteExecutor")
+    private Executor dziDeleteExecutor;
+
+    /**
+     * 删除文件的工作线程
+     */
+    private ExecutorService workers;
+
+    /**
+     * 任务ID到任务的映射
+     */
+    private final Map<String, DeletionTask> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * 服务初始化，继续删除上次未完成的内容
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "dzi-delete-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        log.info("初始化后台删除服务: 并行度={}, 每秒文件数上限={}", parallelism, maxFilesPerSecond);
+
+        Path trashDir = getTrashDir();
+        if (!Files.isDirectory(trashDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(trashDir)) {
+            for (Path leftover : stream) {
+                String id = leftover.getFileName().toString();
+                log.info("继续删除上次未完成的内容: {}", leftover);
+                schedule(newTask(id, "(重启后继续) " + id), leftover);
+            }
+        } catch (IOException e) {
+            log.warn("读取回收目录失败: {}, 错误: {}", trashDir, e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭时停止工作线程，未删除的内容留待下次启动
+     */
+    @PreDestroy
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeletionTask submit(Path target, String description) throws IOException {
+        Path trashDir = Files.createDirectories(getTrashDir());
+        String id = UUID.randomUUID().toString();
+        Path tombstone = trashDir.resolve(id);
+        // 同一文件系统内的重命名是原子的，完成后目标立即不可见
+        Files.move(target, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        log.info("已将[{}]移入回收目录: {}", description, tombstone);
+
+        DeletionTask task = newTask(id, description);
+        schedule(task, tombstone);
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeletionTask recordCompleted(String description, long deletedFiles) {
+        DeletionTask task = newTask(UUID.randomUUID().toString(), description);
+        task.setDeletedFiles(deletedFiles);
+        finish(task, "COMPLETED", null);
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeletionTask getTask(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DeletionTask> listTasks() {
+        List<DeletionTask> result = new ArrayList<>(tasks.values());
+        result.sort(Comparator.comparing(DeletionTask::getCreatedTime).reversed());
+        return result;
+    }
+
+    private DeletionTask newTask(String id, String description) {
+        evictFinishedTasks();
+        DeletionTask task = new DeletionTask();
+        task.setId(id);
+        task.setTarget(description);
+        task.setStatus("PENDING");
+        task.setCreatedTime(new Date());
+        tasks.put(id, task);
+        return task;
+    }
+
+    private void schedule(DeletionTask task, Path tombstone) {
+        try {
+            dziDeleteExecutor.execute(() -> run(task, tombstone));
+        } catch (TaskRejectedException e) {
+            // 内容已在回收目录中，下次启动时会继续删除
+            log.warn("删除任务队列已满，[{}]将在下次启动时删除", task.getTarget());
+            finish(task, "FAILED", "删除任务队列已满");
+        }
+    }
+
+    /**
+     * 执行删除任务
+     */
+    private void run(DeletionTask task, Path tombstone) {
+        long start = System.currentTimeMillis();
+        synchronized (task) {
+            task.setStatus("PROCESSING");
+        }
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        try {
+            if (Files.isDirectory(tombstone)) {
+                deleteFiles(task, tombstone, deleted, failed, firstError);
+            }
+            if (failed.get() == 0) {
+                deleteDirectories(tombstone);
+            }
+        } catch (IOException e) {
+            firstError.compareAndSet(null, e.getMessage());
+            failed.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            firstError.compareAndSet(null, "删除被中断");
+            failed.incrementAndGet();
+        }
+
+        synchronized (task) {
+            task.setDeletedFiles(deleted.get());
+            task.setFailedFiles(failed.get());
+        }
+        if (failed.get() == 0) {
+            log.info("[{}]删除完成，共删除{}个文件，耗时{}ms", task.getTarget(), deleted.get(),
+                    System.currentTimeMillis() - start);
+            finish(task, "COMPLETED", null);
+        } else {
+            log.warn("[{}]删除失败，{}个文件未能删除，残留内容将在下次启动时继续删除: {}", task.getTarget(),
+                    failed.get(), firstError.get());
+            finish(task, "FAILED", firstError.get());
+        }
+    }
+
+    /**
+     * 遍历目录，将文件按批交给工作线程删除，并等待全部删除完成
+     */
+    private void deleteFiles(DeletionTask task, Path root, AtomicLong deleted, AtomicLong failed,
+                             AtomicReference<String> firstError) throws IOException, InterruptedException {
+        // 限制已提交未完成的批次数，避免遍历速度远快于删除时积压大量路径
+        int permits = Math.max(1, parallelism) * 2;
+        Semaphore inFlight = new Semaphore(permits);
+        long startNanos = System.nanoTime();
+        List<Path> batch = new ArrayList<>(BATCH_SIZE);
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                batch.add(file);
+                if (batch.size() >= BATCH_SIZE) {
+                    submitBatch(new ArrayList<>(batch));
+                    batch.clear();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                failed.incrementAndGet();
+                firstError.compareAndSet(null, file + ": " + exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+
+            private void submitBatch(List<Path> files) throws IOException {
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("删除被中断", e);
+                }
+                try {
+                    workers.execute(() -> {
+                        try {
+                            deleteBatch(files, startNanos, deleted, failed, firstError);
+                            synchronized (task) {
+                                task.setDeletedFiles(deleted.get());
+                                task.setFailedFiles(failed.get());
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+        });
+
+        deleteBatch(batch, startNanos, deleted, failed, firstError);
+        // 取得全部许可即表示所有批次都已完成
+        inFlight.acquire(permits);
+        inFlight.release(permits);
+    }
+
+    /**
+     * 删除一批文件，失败的文件计数后继续
+     */
+    private void deleteBatch(List<Path> files, long startNanos, AtomicLong deleted, AtomicLong failed,
+                             AtomicReference<String> firstError) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+                throttle(deleted.incrementAndGet(), startNanos);
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                firstError.compareAndSet(null, file + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.incrementAndGet();
+                firstError.compareAndSet(null, "删除被中断");
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按每秒文件数上限限速
+     */
+    private void throttle(long deletedSoFar, long startNanos) throws InterruptedException {
+        if (maxFilesPerSecond <= 0) {
+            return;
+        }
+        long expectedNanos = deletedSoFar * 1_000_000_000L / maxFilesPerSecond;
+        long aheadNanos = expectedNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+
+    /**
+     * 自底向上删除已清空的目录及遍历后新出现的残留文件
+     */
+    private void deleteDirectories(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void finish(DeletionTask task, String status, String errorMessage) {
+        synchronized (task) {
+            task.setStatus(status);
+            task.setErrorMessage(errorMessage);
+            task.setCompletedTime(new Date());
+        }
+    }
+
+    /**
+     * 任务记录超过上限时移除最早结束的任务
+     */
+    private void evictFinishedTasks() {
+        if (tasks.size() < MAX_RETAINED_TASKS) {
+            return;
+        }
+        tasks.values().stream()
+                .filter(task -> task.getCompletedTime() != null)
+                .sorted(Comparator.comparing(DeletionTask::getCompletedTime))
+                .limit(tasks.size() - MAX_RETAINED_TASKS + 1L)
+                .map(DeletionTask::getId)
+                .toList()
+                .forEach(tasks::remove);
+    }
+
+    private Path getTrashDir() {
+        return Paths.get(dziUploadDir).toAbsolutePath().normalize().resolve(TRASH_DIR);
+    }
+}
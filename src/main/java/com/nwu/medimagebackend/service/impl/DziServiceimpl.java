@@ -1,9 +1,30 @@
 package com.nwu.medimagebackend.service.impl;
 
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.DeletionTask;
+import com.nwu.medimagebackend.entity.DziCatalogFolder;
+import com.nwu.medimagebackend.entity.FileEntry;
 import com.nwu.medimagebackend.entity.FileInfo;
 import com.nwu.medimagebackend.entity.FileItem;
+import com.nwu.medimagebackend.entity.TileValidator;
+import com.nwu.medimagebackend.service.DziCatalogService;
+import com.nwu.medimagebackend.service.DziDeletionService;
 import com.nwu.medimagebackend.service.DziService;
 import com.nwu.medimagebackend.mapper.DziMapper;
+import com.nwu.medimagebackend.service.PyramidPackService;
+import com.nwu.medimagebackend.service.ThumbnailService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileCompositeService;
+import com.nwu.medimagebackend.service.TileHeatMapService;
+import com.nwu.medimagebackend.service.TileMetricsService;
+import com.nwu.medimagebackend.service.TileNegativeCacheService;
+import com.nwu.medimagebackend.service.TileSynthesisService;
+import com.nwu.medimagebackend.service.TilePrefetchService;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.CursorPager;
+import com.nwu.medimagebackend.utils.DziTilePath;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +33,11 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -42,32 +68,82 @@ public class DziServiceimpl implements DziService {
     @Autowired
     private DziMapper dziMapper;
 
+    /**
+     * 瓦片缓存服务
+     */
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    /**
+     * 瓦片ETag索引服务
+     */
+    @Autowired
+    private TileValidatorService tileValidatorService;
+
+    /**
+     * 瓦片预取服务
+     */
+    @Autowired
+    private TilePrefetchService tilePrefetchService;
+
+    /**
+     * DZI目录索引服务
+     */
+    @Autowired
+    private DziCatalogService dziCatalogService;
+
+    /**
+     * 金字塔容器服务
+     */
+    @Autowired
+    private PyramidPackService pyramidPackService;
+
+    /**
+     * 后台删除服务
+     */
+    @Autowired
+    private DziDeletionService dziDeletionService;
+
+    /**
+     * 瓦片服务指标
+     */
+    @Autowired
+    private TileMetricsService tileMetricsService;
+
+    /**
+     * 瓦片热度服务
+     */
+    @Autowired
+    private TileHeatMapService tileHeatMapService;
+
+    /**
+     * 缩略图服务
+     */
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    /**
+     * 瓦片不存在结果缓存
+     */
+    @Autowired
+    private TileNegativeCacheService tileNegativeCacheService;
+
+    /**
+     * 缺失层级的瓦片合成
+     */
+    @Autowired
+    private TileSynthesisService tileSynthesisService;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public List<FileInfo> listDziFiles() {
-        log.info("开始获取DZI文件列表，路径: {}", dziUploadDir);
+        log.debug("开始获取DZI文件列表，路径: {}", dziUploadDir);
+        // 直接读取目录索引，不再遍历磁盘
         List<FileInfo> result = new ArrayList<>();
-        File baseDir = new File(dziUploadDir);
-        if (!baseDir.exists() || !baseDir.isDirectory()) {
-            log.warn("DZI上传目录不存在或不是一个目录: {}", dziUploadDir);
-            return result;
-        }
-        // 遍历 uploads/dzi 下的每个子文件夹
-        File[] subDirs = baseDir.listFiles(File::isDirectory);
-        if (subDirs != null) {
-            for (File subDir : subDirs) {
-                List<String> fileNames = new ArrayList<>();
-                File[] files = subDir.listFiles(File::isFile);
-                if (files != null) {
-                    for (File f : files) {
-                        fileNames.add(f.getName());
-                    }
-                }
-                result.add(new FileInfo(subDir.getName(), fileNames));
-                log.debug("找到DZI文件夹: {}, 包含{}个文件", subDir.getName(), fileNames.size());
-            }
+        for (DziCatalogFolder folder : dziCatalogService.getFolders()) {
+            result.add(new FileInfo(folder.getName(), folder.getFileNames()));
         }
         log.info("DZI文件列表获取完成，共找到{}个文件夹", result.size());
         return result;
@@ -79,14 +155,94 @@ public class DziServiceimpl implements DziService {
     @Override
     public Resource getDziFile(String relativePath) throws Exception {
         // 构造文件系统中的路径
-        Path filePath = Paths.get(dziUploadDir).resolve(relativePath).normalize();
-        Resource resource = new UrlResource(filePath.toUri());
-        if (resource.exists()) {
-            return resource;
-        } else {
-            log.warn("请求的DZI资源不存在: {}", filePath);
-            throw new Exception("文件未找到: " + relativePath);
+        Path baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        Path filePath = resolveDziPath(baseDir, relativePath);
+        if (filePath == null) {
+            return null;
         }
+
+        // 优先从瓦片缓存读取
+        String cacheKey = toCacheKey(baseDir, filePath);
+        String fileName = filePath.getFileName().toString();
+        // 按资源来源记录查找耗时
+        long start = System.nanoTime();
+        TileMetricsService.Lookup lookup = TileMetricsService.Lookup.NOT_FOUND;
+        try {
+            ByteBuffer cached = tileCacheService.get(cacheKey);
+            if (cached != null) {
+                lookup = TileMetricsService.Lookup.CACHE_HIT;
+                if (tileValidatorService.get(cacheKey) == null) {
+                    long lastModified = sourceLastModified(baseDir, filePath, cacheKey);
+                    if (lastModified > 0) {
+                        tileValidatorService.register(cacheKey, cached, lastModified);
+                    }
+                }
+                return new ByteBufferResource(cached, fileName);
+            }
+
+            // 最近确认不存在的资源直接返回，不再访问文件系统
+            if (tileNegativeCacheService.isMissing(cacheKey)) {
+                return null;
+            }
+
+            if (!Files.isRegularFile(filePath)) {
+                // 瓦片目录已打包为容器时从容器读取，容器内容由操作系统页缓存缓存，不再放入瓦片缓存
+                Resource packed = pyramidPackService.readPackedTile(cacheKey);
+                if (packed != null) {
+                    lookup = TileMetricsService.Lookup.PACK;
+                    if (tileValidatorService.get(cacheKey) == null) {
+                        tileValidatorService.register(cacheKey,
+                                ((ByteBufferResource) packed).getByteBuffer(), packed.lastModified());
+                    }
+                    return packed;
+                }
+                // 未保存的低分辨率层级由子瓦片合成
+                DziTilePath tile = DziTilePath.parse(cacheKey);
+                ByteBuffer synthesized = tile == null ? null : tileSynthesisService.synthesize(tile);
+                if (synthesized != null) {
+                    lookup = TileMetricsService.Lookup.SYNTHESIZED;
+                    return new ByteBufferResource(synthesized, fileName);
+                }
+                // 查看器经常请求边缘以外的瓦片，属于正常情况，不记录警告
+                log.debug("请求的DZI资源不存在: {}", filePath);
+                tileNegativeCacheService.markMissing(cacheKey);
+                return null;
+            }
+
+            lookup = TileMetricsService.Lookup.DISK;
+            // 大小在缓存限制内的文件读入缓存，其余直接返回文件资源
+            if (tileCacheService.isCacheable(Files.size(filePath))) {
+                byte[] content = Files.readAllBytes(filePath);
+                tileValidatorService.register(cacheKey, ByteBuffer.wrap(content),
+                        Files.getLastModifiedTime(filePath).toMillis());
+                ByteBuffer buffer = tileCacheService.put(cacheKey, content);
+                if (buffer != null) {
+                    return new ByteBufferResource(buffer, fileName);
+                }
+            } else if (tileValidatorService.get(cacheKey) == null) {
+                tileValidatorService.register(cacheKey, filePath);
+            }
+            return new UrlResource(filePath.toUri());
+        } finally {
+            tileMetricsService.recordLookup(cacheKey, lookup, System.nanoTime() - start);
+            // 只有找到的资源才记录热度和触发预取，不存在的探测请求不占用热度表，也不预取其相邻瓦片
+            if (lookup != TileMetricsService.Lookup.NOT_FOUND) {
+                // 异步预取相邻瓦片和下一层子瓦片
+                tilePrefetchService.onTileRequested(cacheKey);
+                // 记录访问热度，供重启后预热缓存
+                tileHeatMapService.recordAccess(cacheKey);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileValidator getDziFileValidator(String relativePath) throws Exception {
+        Path baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        Path filePath = resolveDziPath(baseDir, relativePath);
+        return filePath == null ? null : tileValidatorService.get(toCacheKey(baseDir, filePath));
     }
 
     /**
@@ -94,21 +250,13 @@ public class DziServiceimpl implements DziService {
      */
     @Override
     public List<FileItem> listFilesInFolder(String folderName) {
-        log.info("开始获取文件夹[{}]中的文件列表", folderName);
-        List<FileItem> items = new ArrayList<>();
-        File folder = new File(dziUploadDir, folderName);
-        if (!folder.exists() || !folder.isDirectory()) {
-            log.warn("指定的文件夹不存在或不是一个目录: {}", folder.getAbsolutePath());
-            return items;
-        }
-        // 获取文件夹下的所有子项（文件和目录）
-        File[] subItems = folder.listFiles();
-        if (subItems != null) {
-            for (File f : subItems) {
-                items.add(new FileItem(f.getName(), f.isDirectory()));
-                log.debug("找到{}[{}]", f.isDirectory() ? "目录" : "文件", f.getName());
-            }
+        log.debug("开始获取文件夹[{}]中的文件列表", folderName);
+        DziCatalogFolder folder = dziCatalogService.getFolder(folderName);
+        if (folder == null) {
+            log.warn("指定的文件夹不存在或不是一个目录: {}", folderName);
+            return new ArrayList<>();
         }
+        List<FileItem> items = folder.getItems();
         log.info("文件夹[{}]中文件列表获取完成，共找到{}个项目", folderName, items.size());
         return items;
     }
@@ -117,34 +265,63 @@ public class DziServiceimpl implements DziService {
      * {@inheritDoc}
      */
     @Override
-    public boolean deleteFolder(String folderName) {
+    public CursorPage<FileEntry> pageDziFolders(PageQuery query) {
+        CursorPager pager = new CursorPager(query);
+        for (DziCatalogFolder folder : dziCatalogService.getFolders()) {
+            pager.offer(new FileEntry(folder.getName(), true, folder.getTotalBytes(), folder.getLastModified()));
+        }
+        return pager.finish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CursorPage<FileEntry> pageFilesInFolder(String folderName, PageQuery query) {
+        CursorPager pager = new CursorPager(query);
+        DziCatalogFolder folder = dziCatalogService.getFolder(folderName);
+        if (folder == null) {
+            log.warn("指定的文件夹不存在或不是一个目录: {}", folderName);
+            return null;
+        }
+        folder.getEntries().forEach(pager::offer);
+        return pager.finish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeletionTask deleteFolder(String folderName) {
         log.info("开始删除文件夹: {}", folderName);
         try {
             Path baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
             Path targetDirPath = baseDir.resolve(folderName).normalize();
             
             // 防止目录穿越攻击
-            if (!targetDirPath.startsWith(baseDir)) {
+            if (!targetDirPath.startsWith(baseDir) || targetDirPath.equals(baseDir)) {
                 log.warn("安全警告：尝试删除不在目录内的文件夹: {}", targetDirPath);
-                return false;
+                return null;
             }
             
-            File targetDir = targetDirPath.toFile();
-            if (!targetDir.exists() || !targetDir.isDirectory()) {
+            if (!Files.isDirectory(targetDirPath)) {
                 log.warn("要删除的文件夹不存在或不是一个目录: {}", targetDirPath);
-                return false;
+                return null;
             }
             
-            boolean result = deleteDirectoryRecursively(targetDir);
-            if (result) {
-                log.info("文件夹[{}]删除成功", folderName);
-            } else {
-                log.warn("文件夹[{}]删除失败", folderName);
-            }
-            return result;
+            pyramidPackService.closePacks(folderName);
+            // 移入回收目录后立即从索引和缓存中移除，文件由后台任务删除
+            DeletionTask task = dziDeletionService.submit(targetDirPath, folderName);
+            dziCatalogService.refreshFolder(folderName);
+            tileCacheService.invalidatePrefix(toCacheKey(baseDir, targetDirPath) + "/");
+            tileValidatorService.invalidatePrefix(toCacheKey(baseDir, targetDirPath) + "/");
+            thumbnailService.invalidate(folderName, null);
+            tileCacheService.invalidatePrefix(TileCompositeService.CACHE_PREFIX + folderName + "/");
+            log.info("文件夹[{}]已标记删除，后台删除任务: {}", folderName, task.getId());
+            return task;
         } catch (Exception e) {
             log.error("删除文件夹[{}]时发生异常: {}", folderName, e.getMessage(), e);
-            return false;
+            return null;
         }
     }
 
@@ -152,7 +329,7 @@ public class DziServiceimpl implements DziService {
      * {@inheritDoc}
      */
     @Override
-    public boolean deleteFile(String folderName, String fileName) {
+    public DeletionTask deleteFile(String folderName, String fileName) {
         log.info("开始删除文件: {}/{}", folderName, fileName);
         try {
             Path baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
@@ -162,55 +339,110 @@ public class DziServiceimpl implements DziService {
             // 防止目录穿越攻击
             if (!targetPath.startsWith(baseDir)) {
                 log.warn("安全警告：尝试删除不在目录内的文件: {}", targetPath);
-                return false;
+                return null;
             }
             
-            File target = targetPath.toFile();
+            // 已打包的金字塔只需删除单个容器文件
+            boolean packDeleted = pyramidPackService.deletePack(folderName, fileName);
+
             // 此处按照原逻辑，要求目标存在且为目录
-            if (!target.exists() || !target.isDirectory()) {
-                log.warn("要删除的文件不存在或不是一个目录: {}", targetPath);
-                return false;
-            }
-            
-            boolean fileDeleted = deleteDirectoryRecursively(target);
-            if (fileDeleted) {
-                // 删除数据库中对应folderName的数据
-                int rows = dziMapper.deleteByFilename(folderName, fileName);
-                log.info("数据库删除成功，影响行数: {}", rows);
-                log.info("文件[{}/{}]删除成功", folderName, fileName);
+            DeletionTask task;
+            if (Files.isDirectory(targetPath)) {
+                task = dziDeletionService.submit(targetPath, folderName + "/" + fileName);
+            } else if (packDeleted) {
+                task = dziDeletionService.recordCompleted(folderName + "/" + fileName, 1);
             } else {
-                log.warn("文件[{}/{}]删除失败", folderName, fileName);
+                log.warn("要删除的文件不存在或不是一个目录: {}", targetPath);
+                return null;
             }
-            return fileDeleted;
+
+            dziCatalogService.refreshFolder(folderName);
+            tileCacheService.invalidatePrefix(toCacheKey(baseDir, targetPath) + "/");
+            tileValidatorService.invalidatePrefix(toCacheKey(baseDir, targetPath) + "/");
+            thumbnailService.invalidate(folderName, fileName.endsWith(DziTilePath.FILES_SUFFIX)
+                    ? fileName.substring(0, fileName.length() - DziTilePath.FILES_SUFFIX.length()) : fileName);
+            // 删除数据库中对应folderName的数据
+            int rows = dziMapper.deleteByFilename(folderName, fileName);
+            log.info("数据库删除成功，影响行数: {}", rows);
+            log.info("文件[{}/{}]已标记删除，删除任务: {}", folderName, fileName, task.getId());
+            return task;
         } catch (Exception e) {
             log.error("删除文件[{}/{}]时发生异常: {}", folderName, fileName, e.getMessage(), e);
-            return false;
+            return null;
         }
     }
 
     /**
-     * 递归删除目录及其所有内容
-     * 
-     * @param dir 要删除的目录
-     * @return 是否成功删除
+     * 解析DZI资源的相对路径，并防止目录穿越攻击
+     * <p>
+     * 穿越尝试和以.开头的路径都按资源不存在处理，调用方返回404；
+     * 穿越尝试只记录一行警告，不抛出异常，避免被探测请求刷出错误日志。
+     * </p>
+     *
+     * @param baseDir DZI根目录
+     * @param relativePath DZI资源的相对路径
+     * @return 规范化后的绝对路径，路径不在DZI根目录内或指向不对外提供的文件时返回null
      */
-    private boolean deleteDirectoryRecursively(File dir) {
-        if (dir.isDirectory()) {
-            File[] children = dir.listFiles();
-            if (children != null) {
-                for (File child : children) {
-                    if (!deleteDirectoryRecursively(child)) {
-                        log.warn("无法删除子项: {}", child.getAbsolutePath());
-                        return false;
-                    }
-                }
+    private Path resolveDziPath(Path baseDir, String relativePath) {
+        Path filePath;
+        try {
+            filePath = baseDir.resolve(relativePath).normalize();
+        } catch (InvalidPathException e) {
+            log.warn("请求的DZI资源路径非法: {}", relativePath);
+            return null;
+        }
+        if (!filePath.startsWith(baseDir)) {
+            log.warn("安全警告：尝试访问不在目录内的DZI资源: {}", relativePath);
+            return null;
+        }
+        // 以.开头的是回收目录或生成中的临时文件，不对外提供
+        for (Path segment : baseDir.relativize(filePath)) {
+            if (segment.toString().startsWith(".")) {
+                return null;
             }
         }
-        
-        boolean result = dir.delete();
-        if (!result && dir.exists()) {
-            log.warn("无法删除: {}", dir.getAbsolutePath());
+        return filePath;
+    }
+
+    /**
+     * 获取缓存内容来源的修改时间
+     * <p>
+     * 容器中的瓦片和合成的瓦片没有对应的文件，使用容器和DZI描述文件中较晚的修改时间；
+     * 都不存在时返回0，不登记校验信息。
+     * </p>
+     *
+     * @param baseDir DZI根目录
+     * @param filePath 资源文件路径
+     * @param cacheKey 缓存键
+     * @return 修改时间（毫秒），来源不存在时返回0
+     */
+    private long sourceLastModified(Path baseDir, Path filePath, String cacheKey) throws IOException {
+        try {
+            return Files.getLastModifiedTime(filePath).toMillis();
+        } catch (NoSuchFileException e) {
+            DziTilePath tile = DziTilePath.parse(cacheKey);
+            if (tile == null) {
+                return 0;
+            }
+            long lastModified = 0;
+            for (String extension : new String[]{".dzp", ".dzi"}) {
+                Path source = baseDir.resolve(tile.pyramid() + extension);
+                if (Files.isRegularFile(source)) {
+                    lastModified = Math.max(lastModified, Files.getLastModifiedTime(source).toMillis());
+                }
+            }
+            return lastModified;
         }
-        return result;
+    }
+
+    /**
+     * 将DZI目录下的绝对路径转换为缓存键
+     *
+     * @param baseDir DZI根目录
+     * @param path DZI根目录下的路径
+     * @return 使用"/"分隔的相对路径
+     */
+    private String toCacheKey(Path baseDir, Path path) {
+        return baseDir.relativize(path).toString().replace(File.separatorChar, '/');
     }
 }
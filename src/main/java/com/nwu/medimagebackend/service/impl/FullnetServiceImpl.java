@@ -648,4 +648,43 @@ public class FullnetServiceImpl implements FullnetService {
         log.info("模糊匹配文件名查询历史记录: {}", filenamePattern);
         return fullnetMapper.findAllByFilenameLike(filenamePattern);
     }
-} 
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path resolveImagePath(String relativePath) {
+        // 如果路径包含fullnet_results前缀，移除它
+        if (relativePath.startsWith("fullnet_results/")) {
+            relativePath = relativePath.substring("fullnet_results/".length());
+        }
+
+        // 安全检查，确保文件路径在允许的目录内
+        Path baseDir = Paths.get(fullnetResultsDir).normalize();
+        Path filePath = baseDir.resolve(relativePath).normalize();
+        if (!filePath.startsWith(baseDir)) {
+            log.warn("非法图像访问请求: {}", relativePath);
+            throw new IllegalArgumentException("非法的图像路径: " + relativePath);
+        }
+        return filePath;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getImageContentType(Path filePath) {
+        String fileName = filePath.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".png")) {
+            return "image/png";
+        } else if (fileName.endsWith(".jpg") || fileName.endsWith(".jpeg")) {
+            return "image/jpeg";
+        } else if (fileName.endsWith(".tif") || fileName.endsWith(".tiff")) {
+            return "image/tiff";
+        } else if (fileName.endsWith(".svs")) {
+            return "image/svs";
+        } else {
+            return "application/octet-stream";
+        }
+    }
+}
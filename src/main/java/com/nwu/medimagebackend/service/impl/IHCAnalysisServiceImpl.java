@@ -1,17 +1,20 @@
 package com.nwu.medimagebackend.service.impl;
 
 import com.nwu.medimagebackend.entity.IhcAnalysisResult;
+import com.nwu.medimagebackend.entity.IhcRescoreResult;
 import com.nwu.medimagebackend.mapper.IHCAnalysisMapper;
 import com.nwu.medimagebackend.service.IHCAnalysisService;
+import com.nwu.medimagebackend.service.ImageStatisticsService;
+import com.nwu.medimagebackend.utils.IntensityHistogram;
 import com.nwu.medimagebackend.utils.PathUtils;
 import lombok.extern.slf4j.Slf4j;
 import net.imagej.Dataset;
 import net.imagej.ImageJ;
-import net.imglib2.Cursor;
 import net.imglib2.img.Img;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
@@ -22,9 +25,10 @@ import java.math.RoundingMode;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 
@@ -43,6 +47,15 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
     @Autowired
     private IHCAnalysisMapper mapper;
 
+    /**
+     * 共享的ImageJ实例，见{@link com.nwu.medimagebackend.config.ImageJConfig}
+     */
+    @Autowired
+    private ImageJ imageJ;
+
+    @Autowired
+    private ImageStatisticsService imageStatisticsService;
+
     /**
      * 图像目录路径
      */
@@ -60,6 +73,30 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
      */
     @Value("${uploads.processed.dir:../uploads/processed/}")
     private String processedImagesDir;
+
+    /**
+     * 默认阳性阈值，像素值不小于该值计为阳性
+     */
+    @Value("${ihc.default-threshold:195}")
+    private double defaultThreshold;
+
+    /**
+     * 批量重新评分时每条更新语句包含的图像数
+     */
+    @Value("${ihc.rescore-batch-size:500}")
+    private int rescoreBatchSize;
+
+    /**
+     * 是否对大文件按块流式统计
+     */
+    @Value("${ihc.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    /**
+     * 整幅读入内存的图像解码后字节数上限，超过时按块流式统计；不大于0时使用最大堆内存的四分之一
+     */
+    @Value("${ihc.streaming.memory-budget-bytes:0}")
+    private long streamingMemoryBudget;
     
     /**
      * 服务初始化
@@ -86,6 +123,14 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
      */
     @Override
     public IhcAnalysisResult analyzeImage(String folderName, String fileName) throws Exception {
+        return analyzeImage(folderName, fileName, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IhcAnalysisResult analyzeImage(String folderName, String fileName, int parallelism) throws Exception {
         // 构造图像完整路径
         String slidesDir = PathUtils.toAbsolutePath(imageDir, folderName + "/registered_slides");
         Path imagePath = Paths.get(slidesDir, fileName + ".ome.tiff");
@@ -96,22 +141,16 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
             throw new IOException("文件不存在: " + imagePath.toString());
         }
 
-        // 创建ImageJ2实例并打开图像
-        ImageJ ij = new ImageJ();
-        Dataset dataset = ij.scifio().datasetIO().open(imagePath.toString());
-        if (dataset == null) {
-            throw new Exception("无法打开图像文件: " + imagePath);
-        }
-
-        // 分析图像
-        @SuppressWarnings("unchecked")
-        Img<UnsignedByteType> img = (Img<UnsignedByteType>) dataset.getImgPlus().getImg();
-        
-        // 计算阈值统计数据
-        AnalysisResult analysis = calculateDefaultThresholdStatistics(img);
+        // 统计强度直方图并保存，之后调整阈值无需重新读取图像
+        BasicFileAttributes source = Files.readAttributes(imagePath, BasicFileAttributes.class);
+        IntensityHistogram histogram = isStreaming(imagePath)
+                ? imageStatisticsService.histogram(imagePath, parallelism)
+                : imageStatisticsService.histogram(openImage(imagePath), parallelism);
+        saveHistogram(folderName, fileName, histogram, source);
 
         // 构造免疫组化分析结果
-        IhcAnalysisResult result = createAnalysisResult(folderName, fileName, analysis);
+        IhcAnalysisResult result = createAnalysisResult(folderName, fileName,
+                calculateThresholdStatistics(histogram, defaultThreshold));
 
         // 保存分析结果
         mapper.updateIhcAnalysisResult(result);
@@ -155,28 +194,6 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
         return results;
     }
 
-    /**
-     * 计算图像的阈值统计数据
-     * 
-     * @param img 图像数据
-     * @return 分析结果包含总像素数和阳性像素数
-     */
-    private AnalysisResult calculateThresholdStatistics(Img<UnsignedByteType> img) {
-        long totalPixels = img.size();
-        long positiveCount = 0;
-        double threshold = 195.0; // 阈值
-        
-        Cursor<UnsignedByteType> cursor = img.cursor();
-        while (cursor.hasNext()) {
-            UnsignedByteType pixel = cursor.next();
-            if (pixel.getRealDouble() >= threshold) {
-                positiveCount++;
-            }
-        }
-        
-        return new AnalysisResult(totalPixels, positiveCount);
-    }
-    
     /**
      * 创建分析结果对象
      * 
@@ -264,6 +281,15 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
      */
     @Override
     public IhcAnalysisResult analyzeImageWithThreshold(String folderName, String fileName, double threshold) throws Exception {
+        return analyzeImageWithThreshold(folderName, fileName, threshold, true, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IhcAnalysisResult analyzeImageWithThreshold(String folderName, String fileName, double threshold,
+                                                       boolean renderOverlay, int parallelism) throws Exception {
         // 确保阈值在有效范围内(0-255)
         threshold = Math.max(0, Math.min(255, threshold));
         
@@ -277,30 +303,45 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
             throw new IOException("文件不存在: " + imagePath.toString());
         }
 
-        // 创建ImageJ2实例并打开图像
-        ImageJ ij = new ImageJ();
-        Dataset dataset = ij.scifio().datasetIO().open(imagePath.toString());
-        if (dataset == null) {
-            throw new Exception("无法打开图像文件: " + imagePath);
+        // 已保存与当前原图对应的直方图时直接计算，可视化图像已存在且不早于原图时直接复用
+        BasicFileAttributes source = Files.readAttributes(imagePath, BasicFileAttributes.class);
+        IntensityHistogram histogram = storedHistogram(mapper.findByImageName(folderName, fileName), source);
+        Path overlayPath = Paths.get(PathUtils.toAbsolutePath(processedImagesDir, folderName),
+                overlayFileName(fileName, threshold));
+        boolean overlayReady = Files.isRegularFile(overlayPath)
+                && Files.getLastModifiedTime(overlayPath).compareTo(source.lastModifiedTime()) >= 0;
+
+        // 大切片按块流式统计直方图，高亮图像需要整幅图像，不支持
+        boolean streaming = (histogram == null || (renderOverlay && !overlayReady)) && isStreaming(imagePath);
+        if (renderOverlay && !overlayReady && streaming) {
+            throw new IOException("图像过大，无法生成高亮图像，请使用overlay=false只计算阳性率: " + imagePath);
+        }
+        if (histogram == null && streaming) {
+            histogram = imageStatisticsService.histogram(imagePath, parallelism);
+            saveHistogram(folderName, fileName, histogram, source);
+        }
+        if (histogram == null || (renderOverlay && !overlayReady)) {
+            Img<UnsignedByteType> img = openImage(imagePath);
+            if (histogram == null) {
+                histogram = imageStatisticsService.histogram(img, parallelism);
+                saveHistogram(folderName, fileName, histogram, source);
+            }
+            if (renderOverlay && !overlayReady) {
+                // 生成可视化结果图像(将大于阈值的区域标红)
+                generateProcessedImage(img, threshold, folderName, fileName, parallelism);
+            }
         }
 
-        // 分析图像
-        @SuppressWarnings("unchecked")
-        Img<UnsignedByteType> img = (Img<UnsignedByteType>) dataset.getImgPlus().getImg();
-        
-        // 计算阈值统计数据
-        AnalysisResult analysis = calculateThresholdStatistics(img, threshold);
-        
-        // 生成可视化结果图像(将大于阈值的区域标红)
-        String processedImagePath = generateProcessedImage(img, threshold, folderName, fileName);
-        
         // 构造免疫组化分析结果
-        IhcAnalysisResult result = createAnalysisResult(folderName, fileName, analysis);
+        IhcAnalysisResult result = createAnalysisResult(folderName, fileName,
+                calculateThresholdStatistics(histogram, threshold));
         
-        // 设置处理后的图像URL
-        String processedImageUrl = PathUtils.buildUrlPath(backendUrl, "/processed-images/", 
-                folderName + "/" + fileName + "_threshold_" + (int)threshold + ".png");
-        result.setImageUrl(processedImageUrl);
+        if (renderOverlay) {
+            // 设置处理后的图像URL
+            String processedImageUrl = PathUtils.buildUrlPath(backendUrl, "/processed-images/",
+                    folderName + "/" + overlayFileName(fileName, threshold));
+            result.setImageUrl(processedImageUrl);
+        }
         
         // 保存分析结果
         mapper.updateIhcAnalysisResult(result);
@@ -309,27 +350,152 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
 
         return result;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IhcRescoreResult rescore(String folderName, double threshold) {
+        long start = System.currentTimeMillis();
+        threshold = Math.max(0, Math.min(255, threshold));
+
+        List<IhcAnalysisResult> rows = mapper.findWithHistogram(folderName);
+        List<IhcAnalysisResult> rescored = new ArrayList<>(rows.size());
+        for (IhcAnalysisResult row : rows) {
+            // 原图已被替换或删除的图像需重新分析，不使用旧直方图
+            Path imagePath = Paths.get(PathUtils.toAbsolutePath(imageDir, row.getFolderName() + "/registered_slides"),
+                    row.getImageName() + ".ome.tiff");
+            IntensityHistogram histogram;
+            try {
+                histogram = storedHistogram(row, Files.readAttributes(imagePath, BasicFileAttributes.class));
+            } catch (IOException e) {
+                histogram = null;
+            }
+            if (histogram == null) {
+                log.debug("图像的直方图已失效，跳过: {}/{}", row.getFolderName(), row.getImageName());
+                continue;
+            }
+            IhcAnalysisResult result = createAnalysisResult(row.getFolderName(), row.getImageName(),
+                    calculateThresholdStatistics(histogram, threshold));
+            result.setId(row.getId());
+            rescored.add(result);
+        }
+
+        // 按批更新，每批一条语句
+        Date analysisDate = new Date();
+        for (int from = 0; from < rescored.size(); from += rescoreBatchSize) {
+            mapper.updateScores(rescored.subList(from, Math.min(rescored.size(), from + rescoreBatchSize)),
+                    analysisDate);
+        }
+        int skipped = mapper.countWithoutHistogram(folderName) + rows.size() - rescored.size();
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("按阈值[{}]重新评分完成: 文件夹[{}], 共{}个图像, 跳过{}个未保存直方图或直方图已失效的图像, 耗时={}ms",
+                threshold, folderName == null ? "全部" : folderName, rescored.size(), skipped, elapsed);
+        return new IhcRescoreResult(folderName, threshold, rescored.size(), skipped, elapsed);
+    }
     
     /**
-     * 使用指定阈值计算图像的阈值统计数据
+     * 保存直方图及统计时原图的修改时间和大小
+     * <p>
+     * 直方图只用于加速之后的阈值调整，保存失败（如数据库尚未执行templates_upgrade.sql）时只记录警告，不影响本次分析。
+     * </p>
+     *
+     * @param folderName 文件夹名称
+     * @param fileName 文件名
+     * @param histogram 强度直方图
+     * @param source 统计前读取的原图属性
+     */
+    private void saveHistogram(String folderName, String fileName, IntensityHistogram histogram,
+                               BasicFileAttributes source) {
+        try {
+            mapper.updateHistogram(folderName, fileName, histogram.toBytes(),
+                    source.lastModifiedTime().toMillis(), source.size());
+        } catch (DataAccessException e) {
+            log.warn("保存强度直方图失败: {}/{}, 请确认已执行templates_upgrade.sql, 错误: {}",
+                    folderName, fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * 取出已保存的直方图，原图的修改时间或大小与统计时不同时视为失效
+     *
+     * @param stored 数据库中的分析记录
+     * @param source 当前原图属性
+     * @return 直方图，不存在或已失效时返回null
+     */
+    private IntensityHistogram storedHistogram(IhcAnalysisResult stored, BasicFileAttributes source) {
+        if (stored == null || stored.getHistogramSourceModified() == null || stored.getHistogramSourceSize() == null
+                || stored.getHistogramSourceModified() != source.lastModifiedTime().toMillis()
+                || stored.getHistogramSourceSize() != source.size()) {
+            return null;
+        }
+        return IntensityHistogram.fromBytes(stored.getHistogram());
+    }
+
+    /**
+     * 高亮图像的文件名
+     * <p>
+     * 像素值为整数，阈值t与不小于t的最小整数划分出相同的阳性区域，
+     * 因此按该整数命名，与阳性像素数的计算保持一致。
+     * </p>
+     *
+     * @param fileName 文件名
+     * @param threshold 阈值
+     * @return 高亮图像文件名
+     */
+    private String overlayFileName(String fileName, double threshold) {
+        return fileName + "_threshold_" + (int) Math.ceil(threshold) + ".png";
+    }
+
+    /**
+     * 判断图像是否按块流式统计
+     * <p>
+     * 打开为数据集会把整幅图像解码读入内存，压缩切片的文件大小不能反映解码后的大小，
+     * 因此按文件头中的尺寸、平面数和像素类型计算，超过内存预算时改为从文件逐块读取。
+     * </p>
+     *
+     * @param imagePath 图像路径
+     * @return 是否流式统计
+     * @throws IOException 如果读取文件头失败
+     */
+    private boolean isStreaming(Path imagePath) throws IOException {
+        if (!streamingEnabled) {
+            return false;
+        }
+        long budget = streamingMemoryBudget > 0 ? streamingMemoryBudget : Runtime.getRuntime().maxMemory() / 4;
+        long decoded = imageStatisticsService.decodedBytes(imagePath);
+        log.debug("图像解码后{}字节, 内存预算{}字节: {}", decoded, budget, imagePath);
+        return decoded > budget;
+    }
+
+    /**
+     * 打开图像
+     *
+     * @param imagePath 图像路径
+     * @return 8位灰度图像数据
+     * @throws Exception 如果无法打开图像
+     */
+    private Img<UnsignedByteType> openImage(Path imagePath) throws Exception {
+        // 使用共享的ImageJ上下文打开图像
+        Dataset dataset = imageJ.scifio().datasetIO().open(imagePath.toString());
+        if (dataset == null) {
+            throw new Exception("无法打开图像文件: " + imagePath);
+        }
+        @SuppressWarnings("unchecked")
+        Img<UnsignedByteType> img = (Img<UnsignedByteType>) dataset.getImgPlus().getImg();
+        return img;
+    }
+
+    /**
+     * 由直方图计算指定阈值下的统计数据
      * 
-     * @param img 图像数据
+     * @param histogram 强度直方图
      * @param threshold 阈值
      * @return 分析结果包含总像素数和阳性像素数
      */
-    private AnalysisResult calculateThresholdStatistics(Img<UnsignedByteType> img, double threshold) {
-        long totalPixels = img.size();
-        long positiveCount = 0;
-        
-        Cursor<UnsignedByteType> cursor = img.cursor();
-        while (cursor.hasNext()) {
-            UnsignedByteType pixel = cursor.next();
-            if (pixel.getRealDouble() >= threshold) {
-                positiveCount++;
-            }
-        }
-        
-        return new AnalysisResult(totalPixels, positiveCount);
+    private AnalysisResult calculateThresholdStatistics(IntensityHistogram histogram, double threshold) {
+        return new AnalysisResult(histogram.total(), histogram.countAtLeast(threshold));
     }
     
     /**
@@ -339,68 +505,25 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
      * @param threshold 阈值
      * @param folderName 文件夹名称
      * @param fileName 文件名
+     * @param parallelism 渲染并行度，不大于0时使用配置的并行度
      * @return 处理后图像的文件路径
      * @throws IOException 如果图像处理或保存失败
      */
     private String generateProcessedImage(Img<UnsignedByteType> img, double threshold, 
-                                         String folderName, String fileName) throws IOException {
-        // 创建相同尺寸的彩色图像
-        long[] dimensions = new long[img.numDimensions()];
-        img.dimensions(dimensions);
-        
+                                         String folderName, String fileName, int parallelism) throws IOException {
         // 创建处理后图像的存储目录
         String outputDirPath = PathUtils.toAbsolutePath(processedImagesDir, folderName);
         PathUtils.ensureDirectoryExists(outputDirPath);
         
         // 处理后图像的文件名
-        String outputFileName = fileName + "_threshold_" + (int)threshold + ".png";
+        String outputFileName = overlayFileName(fileName, threshold);
         Path outputPath = Paths.get(outputDirPath, outputFileName);
         
-        // 先创建一个临时数组存储所有像素值
-        int width = (int)dimensions[0];
-        int height = (int)dimensions[1];
-        double[][] pixelValues = new double[width][height];
-        
-        // 第一次遍历：读取所有像素值
-        Cursor<UnsignedByteType> firstCursor = img.localizingCursor();
-        while (firstCursor.hasNext()) {
-            UnsignedByteType pixel = firstCursor.next();
-            int[] position = new int[img.numDimensions()];
-            firstCursor.localize(position);
-            
-            int x = position[0];
-            int y = position[1];
-            
-            if (x < width && y < height) {
-                pixelValues[x][y] = pixel.getRealDouble();
-            }
-        }
-        
-        // 创建Java AWT BufferedImage用于保存结果 - 使用RGB类型
-        BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        
-        // 第二次遍历：创建输出图像
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                double value = pixelValues[x][y];
-                int rgb;
-                
-                if (value >= threshold) {
-                    // 大于阈值的区域标红 - 半透明红色，保留一些原始灰度信息
-                    int gray = (int)value;
-                    int red = Math.min(255, 255);
-                    int green = Math.min(255, gray / 3);
-                    int blue = Math.min(255, gray / 3);
-                    rgb = new Color(red, green, blue).getRGB();
-                } else {
-                    // 其他区域保持原灰度
-                    int gray = (int)value;
-                    rgb = new Color(gray, gray, gray).getRGB();
-                }
-                
-                bufferedImage.setRGB(x, y, rgb);
-            }
-        }
+        // 在图像统计线程池中按行分段并行渲染，直接写入图像的数据缓冲区
+        long start = System.currentTimeMillis();
+        BufferedImage bufferedImage = imageStatisticsService.renderOverlay(img, threshold, parallelism);
+        log.debug("高亮图像渲染完成: {}x{}, 耗时={}ms", bufferedImage.getWidth(), bufferedImage.getHeight(),
+                System.currentTimeMillis() - start);
         
         // 保存图像
         ImageIO.write(bufferedImage, "PNG", outputPath.toFile());
@@ -409,16 +532,6 @@ public class IHCAnalysisServiceImpl implements IHCAnalysisService {
         return outputPath.toString();
     }
     
-    /**
-     * 计算图像的阈值统计数据，使用默认阈值(195.0)
-     * 
-     * @param img 图像数据
-     * @return 分析结果包含总像素数和阳性像素数
-     */
-    private AnalysisResult calculateDefaultThresholdStatistics(Img<UnsignedByteType> img) {
-        return calculateThresholdStatistics(img, 195.0); // 使用默认阈值195.0
-    }
-    
     /**
      * 内部类：分析结果统计数据
      */
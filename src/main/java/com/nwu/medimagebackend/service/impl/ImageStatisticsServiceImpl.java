@@ -0,0 +1,396 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.service.ImageStatisticsService;
+import com.nwu.medimagebackend.utils.IntensityHistogram;
+import com.nwu.medimagebackend.utils.ThresholdOverlayRenderer;
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Reader;
+import io.scif.SCIFIO;
+import io.scif.util.FormatTools;
+import lombok.extern.slf4j.Slf4j;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imagej.axis.CalibratedAxis;
+import net.imglib2.Cursor;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import org.scijava.io.location.FileLocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图像像素统计服务实现类
+ * <p>
+ * 图像先划分为若干块：ArrayImg和PlanarImg按固定字节数切分底层数组，
+ * CellImg每个单元格为一块（单元格按需加载时由各工作线程分别加载），
+ * 其他图像按游标位置区间切分。
+ * 按并行度提交相应数量的工作任务到ForkJoin线程池，各任务依次领取未处理的块，
+ * 在本地直方图中按byte计数，全部完成后合并。
+ * </p>
+ * <p>
+ * 超出堆内存的切片直接从文件流式统计，不经过ImgLib2图像，见{@link #histogram(Path, int)}。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class ImageStatisticsServiceImpl implements ImageStatisticsService {
+
+    /**
+     * 线程池大小，不大于0时使用CPU核数
+     */
+    @Value("${ihc.statistics.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * 每块的像素数
+     */
+    @Value("${ihc.statistics.chunk-pixels:4194304}")
+    private int chunkPixels;
+
+    /**
+     * 流式统计时每块的边长（像素）
+     */
+    @Value("${ihc.streaming.tile-size:2048}")
+    private int streamingTileSize;
+
+    /**
+     * 流式统计时同时解码的块数上限，决定内存占用
+     */
+    @Value("${ihc.streaming.max-tiles-in-flight:4}")
+    private int maxTilesInFlight;
+
+    @Autowired
+    private SCIFIO scifio;
+
+    private ForkJoinPool pool;
+
+    /**
+     * 统计块，将块内像素计入给定的直方图
+     */
+    @FunctionalInterface
+    private interface Chunk {
+        void count(long[] counts);
+    }
+
+    /**
+     * 服务初始化
+     */
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        log.info("初始化图像统计服务: 并行度={}, 每块{}像素", threads, chunkPixels);
+    }
+
+    /**
+     * 应用关闭时停止线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IntensityHistogram histogram(Img<UnsignedByteType> img, int parallelism) {
+        long start = System.nanoTime();
+        List<Chunk> chunks = split(img);
+        int workers = Math.min(chunks.size(), workers(parallelism));
+
+        long[] counts = new long[IntensityHistogram.BINS];
+        if (workers <= 1) {
+            for (Chunk chunk : chunks) {
+                chunk.count(counts);
+            }
+        } else {
+            AtomicInteger next = new AtomicInteger();
+            List<Callable<long[]>> tasks = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                tasks.add(() -> {
+                    long[] local = new long[IntensityHistogram.BINS];
+                    for (int index = next.getAndIncrement(); index < chunks.size(); index = next.getAndIncrement()) {
+                        chunks.get(index).count(local);
+                    }
+                    return local;
+                });
+            }
+            for (Future<long[]> future : pool.invokeAll(tasks)) {
+                long[] local = join(future);
+                for (int value = 0; value < counts.length; value++) {
+                    counts[value] += local[value];
+                }
+            }
+        }
+        log.debug("直方图统计完成: {}像素, {}块, 并行度={}, 耗时={}ms", img.size(), chunks.size(), workers,
+                (System.nanoTime() - start) / 1_000_000);
+        return new IntensityHistogram(counts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IntensityHistogram histogram(Path file, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        ImageMetadata meta = readMetadata(file);
+        if (FormatTools.getBytesPerPixel(meta.getPixelType()) != 1) {
+            throw new IOException("仅支持8位像素的切片: " + file);
+        }
+
+        long width = meta.getAxisLength(Axes.X);
+        long height = meta.getAxisLength(Axes.Y);
+        long cols = (width + streamingTileSize - 1) / streamingTileSize;
+        long tilesPerPlane = cols * ((height + streamingTileSize - 1) / streamingTileSize);
+        long totalTiles = tilesPerPlane * meta.getPlaneCount();
+        int workers = (int) Math.max(1, Math.min(totalTiles, Math.min(maxTilesInFlight, workers(parallelism))));
+
+        // 每个工作线程使用独立的读取器，依次领取未处理的块，任一线程失败时其余线程停止领取
+        AtomicLong next = new AtomicLong();
+        List<Callable<long[]>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                long[] local = new long[IntensityHistogram.BINS];
+                Reader reader = openReader(file);
+                try {
+                    for (long index = next.getAndIncrement(); index < totalTiles; index = next.getAndIncrement()) {
+                        long plane = index / tilesPerPlane;
+                        long tile = index % tilesPerPlane;
+                        long x0 = tile % cols * streamingTileSize;
+                        long y0 = tile / cols * streamingTileSize;
+                        byte[] bytes = reader.openPlane(0, plane, regionBounds(meta, x0, y0,
+                                Math.min(width, x0 + streamingTileSize), Math.min(height, y0 + streamingTileSize)))
+                                .getBytes();
+                        countBytes(bytes, 0, bytes.length, local);
+                    }
+                } catch (Exception e) {
+                    next.set(totalTiles);
+                    throw e;
+                } finally {
+                    reader.close();
+                }
+                return local;
+            });
+        }
+
+        long[] counts = new long[IntensityHistogram.BINS];
+        for (Future<long[]> future : pool.invokeAll(tasks)) {
+            long[] local;
+            try {
+                local = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("直方图统计被中断: " + file, e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io
+                        : new IOException("读取切片失败: " + file + ", 错误: " + e.getCause().getMessage(), e.getCause());
+            }
+            for (int value = 0; value < counts.length; value++) {
+                counts[value] += local[value];
+            }
+        }
+        log.info("流式直方图统计完成: {}, {}x{}, {}个平面, {}块, 并行度={}, 耗时={}ms", file.getFileName(), width,
+                height, meta.getPlaneCount(), totalTiles, workers, (System.nanoTime() - start) / 1_000_000);
+        return new IntensityHistogram(counts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long decodedBytes(Path file) throws IOException {
+        ImageMetadata meta = readMetadata(file);
+        long bytes = FormatTools.getBytesPerPixel(meta.getPixelType());
+        for (long length : meta.getAxesLengths()) {
+            bytes *= length;
+        }
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedImage renderOverlay(Img<UnsignedByteType> img, double threshold, int parallelism) {
+        return ThresholdOverlayRenderer.render(img, threshold, pool, workers(parallelism));
+    }
+
+    /**
+     * 请求的并行度，不大于0时使用线程池大小，且不超过线程池大小
+     */
+    private int workers(int parallelism) {
+        return parallelism > 0 ? Math.min(parallelism, pool.getParallelism()) : pool.getParallelism();
+    }
+
+    /**
+     * 读取原始分辨率图像的元数据
+     */
+    private ImageMetadata readMetadata(Path file) throws IOException {
+        Reader probe = openReader(file);
+        try {
+            return probe.getMetadata().get(0);
+        } finally {
+            probe.close();
+        }
+    }
+
+    /**
+     * 打开SCIFIO读取器，只读取文件头
+     */
+    private Reader openReader(Path file) throws IOException {
+        try {
+            return scifio.initializer().initializeReader(new FileLocation(file.toFile()));
+        } catch (FormatException e) {
+            throw new IOException("无法打开切片: " + file + ", 错误: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 构造平面内的读取区域，X、Y以外的平面轴（如通道）读取全部
+     */
+    private Interval regionBounds(ImageMetadata meta, long x0, long y0, long x1, long y1) {
+        List<CalibratedAxis> axes = meta.getAxesPlanar();
+        long[] lengths = meta.getAxesLengthsPlanar();
+        long[] minSize = new long[axes.size() * 2];
+        for (int i = 0; i < axes.size(); i++) {
+            AxisType type = axes.get(i).type();
+            if (type == Axes.X) {
+                minSize[i] = x0;
+                minSize[axes.size() + i] = x1 - x0;
+            } else if (type == Axes.Y) {
+                minSize[i] = y0;
+                minSize[axes.size() + i] = y1 - y0;
+            } else {
+                minSize[axes.size() + i] = lengths[i];
+            }
+        }
+        return Intervals.createMinSize(minSize);
+    }
+
+    /**
+     * 按图像的存储方式划分统计块
+     */
+    private List<Chunk> split(Img<UnsignedByteType> img) {
+        List<Chunk> chunks = new ArrayList<>();
+        if (img instanceof ArrayImg<?, ?> arrayImg && arrayImg.update(null) instanceof ByteArray access) {
+            splitArray(access.getCurrentStorageArray(), (int) img.size(), chunks);
+            return chunks;
+        }
+        if (img instanceof PlanarImg<?, ?> planarImg && planarImg.getPlane(0) instanceof ByteArray) {
+            long planeSize = img.size() / planarImg.numSlices();
+            for (int i = 0; i < planarImg.numSlices(); i++) {
+                splitArray(((ByteArray) planarImg.getPlane(i)).getCurrentStorageArray(), (int) planeSize, chunks);
+            }
+            return chunks;
+        }
+        if (img instanceof AbstractCellImg<?, ?, ?, ?> cellImg && firstCellData(cellImg.getCells()) instanceof ByteArray) {
+            RandomAccessibleInterval<?> cells = cellImg.getCells();
+            long[] gridDimensions = Intervals.dimensionsAsLongArray(cells);
+            long cellCount = Intervals.numElements(cells);
+            for (long index = 0; index < cellCount; index++) {
+                long cellIndex = index;
+                chunks.add(counts -> {
+                    long[] position = new long[gridDimensions.length];
+                    IntervalIndexer.indexToPosition(cellIndex, gridDimensions, position);
+                    RandomAccess<?> access = cells.randomAccess();
+                    access.setPosition(position);
+                    Cell<?> cell = (Cell<?>) access.get();
+                    byte[] data = ((ByteArray) cell.getData()).getCurrentStorageArray();
+                    countBytes(data, 0, (int) Math.min(data.length, cell.size()), counts);
+                });
+            }
+            return chunks;
+        }
+
+        // 其他图像按游标位置区间划分，每块使用独立的游标
+        long size = img.size();
+        for (long from = 0; from < size; from += chunkPixels) {
+            long offset = from;
+            long length = Math.min(chunkPixels, size - from);
+            chunks.add(counts -> {
+                Cursor<UnsignedByteType> cursor = img.cursor();
+                cursor.jumpFwd(offset);
+                for (long i = 0; i < length; i++) {
+                    counts[cursor.next().get()]++;
+                }
+            });
+        }
+        return chunks;
+    }
+
+    /**
+     * 将byte数组按块大小切分
+     */
+    private void splitArray(byte[] data, int length, List<Chunk> chunks) {
+        int end = Math.min(length, data.length);
+        for (int from = 0; from < end; from += chunkPixels) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(end, from + chunkPixels);
+            chunks.add(counts -> countBytes(data, chunkStart, chunkEnd, counts));
+        }
+    }
+
+    /**
+     * 获取第一个单元格的存储，用于判断单元格是否以byte数组存储
+     */
+    private Object firstCellData(RandomAccessibleInterval<?> cells) {
+        RandomAccess<?> access = cells.randomAccess();
+        access.setPosition(Intervals.minAsLongArray(cells));
+        return ((Cell<?>) access.get()).getData();
+    }
+
+    /**
+     * 统计数组区间内各像素值的个数
+     */
+    private static void countBytes(byte[] data, int from, int to, long[] counts) {
+        for (int i = from; i < to; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+    }
+
+    /**
+     * 获取任务结果，还原任务中抛出的异常
+     */
+    private long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("直方图统计被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("直方图统计失败", e.getCause());
+        }
+    }
+}
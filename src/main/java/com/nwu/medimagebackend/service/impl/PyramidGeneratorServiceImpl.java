@@ -0,0 +1,658 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.entity.PyramidJob;
+import com.nwu.medimagebackend.service.DziCatalogService;
+import com.nwu.medimagebackend.service.DziDeletionService;
+import com.nwu.medimagebackend.service.PyramidGeneratorService;
+import com.nwu.medimagebackend.service.PyramidPackService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileNegativeCacheService;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import com.nwu.medimagebackend.utils.DziDescriptorReader;
+import com.nwu.medimagebackend.utils.DziDescriptorWriter;
+import com.nwu.medimagebackend.utils.DziTileUtils;
+import com.nwu.medimagebackend.utils.OmeTiffSlide;
+import com.nwu.medimagebackend.utils.TileDeduplicator;
+import io.scif.SCIFIO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * DZI金字塔生成服务实现类
+ * <p>
+ * 最高层级按块读取切片：每次读取block-tiles x block-tiles个瓦片（含重叠）对应的区域，
+ * 在ForkJoin线程池中并行切分和编码，同时读取下一块，内存中最多同时驻留两块区域。
+ * 较低层级逐层由上一层已写出的瓦片合成，每个瓦片只读取其下一层的至多3x3个子瓦片，
+ * 因此内存占用与切片尺寸无关。
+ * 瓦片先写入隐藏的.name_files.part临时目录（目录索引忽略以.开头的文件），
+ * 全部完成后再替换原有的瓦片目录和描述文件，
+ * 生成过程中原有金字塔仍可正常访问，失败时不会留下不完整的金字塔。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class PyramidGeneratorServiceImpl implements PyramidGeneratorService {
+
+    /**
+     * 支持的切片扩展名，按优先顺序排列
+     */
+    private static final String[] SOURCE_EXTENSIONS = {".ome.tiff", ".ome.tif", ".tiff", ".tif"};
+
+    /**
+     * 保留的任务记录数上限，超出后移除最早结束的任务
+     */
+    private static final int MAX_RETAINED_JOBS = 500;
+
+    /**
+     * DZI图像目录路径
+     */
+    @Value("${uploads.dzi.dir}")
+    private String dziUploadDir;
+
+    /**
+     * 配准结果目录路径
+     */
+    @Value("${uploads.register.dir}")
+    private String registerDir;
+
+    /**
+     * 瓦片边长
+     */
+    @Value("${tile.generator.tile-size:254}")
+    private int tileSize;
+
+    /**
+     * 瓦片重叠像素数
+     */
+    @Value("${tile.generator.overlap:1}")
+    private int overlap;
+
+    /**
+     * 瓦片格式
+     */
+    @Value("${tile.generator.format:jpeg}")
+    private String format;
+
+    /**
+     * JPEG压缩质量
+     */
+    @Value("${tile.generator.quality:0.85}")
+    private float quality;
+
+    /**
+     * 最高层级每次读取的区域边长（以瓦片数计）
+     */
+    @Value("${tile.generator.block-tiles:8}")
+    private int blockTiles;
+
+    /**
+     * 并行编码的线程数，不大于0时使用CPU核数
+     */
+    @Value("${tile.generator.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * 参与去重的瓦片大小上限，内容相同的瓦片以硬链接保存，不大于0时不去重
+     */
+    @Value("${tile.generator.dedup-max-tile-bytes:16384}")
+    private long dedupMaxTileBytes;
+
+    /**
+     * 生成后删除的层级数，从最高层级的下一层开始计数，这些层级的瓦片在请求时由子瓦片合成；
+     * 不大于0时保留所有层级
+     */
+    @Value("${tile.generator.dropped-levels:0}")
+    private int droppedLevels;
+
+    @Autowired
+    private SCIFIO scifio;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    private TileValidatorService tileValidatorService;
+
+    @Autowired
+    private TileNegativeCacheService tileNegativeCacheService;
+
+    @Autowired
+    private PyramidPackService pyramidPackService;
+
+    @Autowired
+    private DziCatalogService dziCatalogService;
+
+    @Autowired
+    private DziDeletionService dziDeletionService;
+
+    @Autowired
+    @Qualifier("pyramidJobExecutor")
+    private Executor pyramidJobExecutor;
+
+    /**
+     * 瓦片切分、合成和编码使用的线程池
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * 任务ID到任务的映射
+     */
+    private final Map<String, PyramidJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 任务ID到已生成瓦片数的映射，查询任务时同步到任务信息中
+     */
+    private final Map<String, AtomicLong> progressCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 服务初始化
+     */
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        log.info("初始化金字塔生成服务: 瓦片大小={}, 重叠={}, 格式={}, 分块={}x{}瓦片, 并行度={}",
+                tileSize, overlap, format, blockTiles, blockTiles, threads);
+    }
+
+    /**
+     * 应用关闭时停止线程池
+     */
+    @PreDestroy
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PyramidJob generate(String folderName, String fileName) throws IOException {
+        Path source = resolveSource(folderName, fileName);
+        if (source == null) {
+            throw new IOException("切片不存在: " + folderName + "/" + fileName);
+        }
+        return submit(folderName, source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PyramidJob> generateFolder(String folderName) throws IOException {
+        Path slidesDir = getSlidesDir(folderName);
+        if (!Files.isDirectory(slidesDir)) {
+            throw new IOException("配准切片目录不存在: " + folderName);
+        }
+        List<Path> sources = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(slidesDir)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && pyramidName(file.getFileName().toString()) != null) {
+                    sources.add(file);
+                }
+            }
+        }
+        sources.sort(Comparator.naturalOrder());
+
+        List<PyramidJob> result = new ArrayList<>();
+        for (Path source : sources) {
+            result.add(submit(folderName, source));
+        }
+        log.info("文件夹[{}]已提交{}个金字塔生成任务", folderName, result.size());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PyramidJob getJob(String jobId) {
+        PyramidJob job = jobs.get(jobId);
+        if (job != null) {
+            refreshProgress(job);
+        }
+        return job;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PyramidJob> listJobs() {
+        List<PyramidJob> result = new ArrayList<>(jobs.values());
+        result.forEach(this::refreshProgress);
+        result.sort(Comparator.comparing(PyramidJob::getCreatedTime).reversed());
+        return result;
+    }
+
+    /**
+     * 提交生成任务，同一金字塔已有未结束的任务时直接返回该任务
+     */
+    private synchronized PyramidJob submit(String folderName, Path source) {
+        String name = pyramidName(source.getFileName().toString());
+        for (PyramidJob existing : jobs.values()) {
+            if (existing.getFolderName().equals(folderName) && existing.getFileName().equals(name)
+                    && ("PENDING".equals(existing.getStatus()) || "PROCESSING".equals(existing.getStatus()))) {
+                log.info("金字塔[{}/{}]已有未完成的生成任务: {}", folderName, name, existing.getId());
+                return existing;
+            }
+        }
+        evictFinishedJobs();
+
+        PyramidJob job = new PyramidJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setFolderName(folderName);
+        job.setFileName(name);
+        job.setSource(source.getFileName().toString());
+        job.setStatus("PENDING");
+        job.setProgress("等待生成");
+        job.setCreatedTime(new Date());
+        jobs.put(job.getId(), job);
+        progressCounters.put(job.getId(), new AtomicLong());
+
+        try {
+            pyramidJobExecutor.execute(() -> run(job, source));
+            log.info("已提交金字塔生成任务: {}, 切片: {}", job.getId(), source);
+        } catch (TaskRejectedException e) {
+            log.warn("金字塔生成任务队列已满，拒绝任务: {}/{}", folderName, name);
+            finish(job, "FAILED", "任务队列已满", e.getMessage());
+        }
+        return job;
+    }
+
+    /**
+     * 执行生成任务
+     */
+    private void run(PyramidJob job, Path source) {
+        AtomicLong completed = progressCounters.get(job.getId());
+        long start = System.currentTimeMillis();
+        synchronized (job) {
+            job.setStatus("PROCESSING");
+            job.setProgress("正在生成");
+        }
+        try (OmeTiffSlide slide = new OmeTiffSlide(scifio, source)) {
+            generatePyramid(job, slide, completed);
+            log.info("金字塔[{}/{}]生成完成，共{}个瓦片，耗时{}ms", job.getFolderName(), job.getFileName(),
+                    completed.get(), System.currentTimeMillis() - start);
+            finish(job, "COMPLETED", "生成完成", null);
+        } catch (Exception e) {
+            log.error("金字塔[{}/{}]生成失败: {}", job.getFolderName(), job.getFileName(), e.getMessage(), e);
+            finish(job, "FAILED", "生成失败", e.getMessage());
+        }
+    }
+
+    /**
+     * 生成金字塔并替换原有的瓦片目录和描述文件
+     */
+    private void generatePyramid(PyramidJob job, OmeTiffSlide slide, AtomicLong completed) throws IOException {
+        long width = slide.getWidth();
+        long height = slide.getHeight();
+        int levelCount = DziDescriptorReader.levelCount(width, height);
+        int maxLevel = levelCount - 1;
+
+        long total = 0;
+        for (int level = 0; level <= maxLevel; level++) {
+            total += (long) DziTileUtils.tileCount(DziTileUtils.levelDimension(width, maxLevel, level), tileSize)
+                    * DziTileUtils.tileCount(DziTileUtils.levelDimension(height, maxLevel, level), tileSize);
+        }
+        synchronized (job) {
+            job.setTotalTiles(total);
+        }
+        log.info("开始生成金字塔[{}/{}]: {}x{}, {}个层级, {}个瓦片", job.getFolderName(), job.getFileName(),
+                width, height, levelCount, total);
+
+        Path outputDir = getDziDir(job.getFolderName());
+        Path filesDir = outputDir.resolve(job.getFileName() + "_files");
+        Path partDir = outputDir.resolve("." + job.getFileName() + "_files.part");
+        if (Files.exists(partDir)) {
+            deleteRecursively(partDir);
+        }
+        Files.createDirectories(partDir);
+
+        TileDeduplicator deduplicator = new TileDeduplicator(dedupMaxTileBytes);
+        try {
+            writeTopLevel(job, slide, partDir, maxLevel, deduplicator, completed);
+            for (int level = maxLevel - 1; level >= 0; level--) {
+                writeLevel(job, slide, partDir, maxLevel, level, deduplicator, completed);
+            }
+            // 低层级由已写出的上一层合成，全部生成后才能删除
+            for (int level = maxLevel - 1; level >= Math.max(0, maxLevel - droppedLevels); level--) {
+                deleteRecursively(partDir.resolve(String.valueOf(level)));
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(partDir);
+            throw e;
+        }
+        synchronized (job) {
+            job.setDedupedTiles(deduplicator.getDedupedTiles());
+            job.setDedupedBytes(deduplicator.getDedupedBytes());
+        }
+        log.info("金字塔[{}/{}]瓦片去重: {}个瓦片以硬链接保存, 节省{}字节", job.getFolderName(), job.getFileName(),
+                deduplicator.getDedupedTiles(), deduplicator.getDedupedBytes());
+
+        // 原瓦片目录移入回收目录后在后台删除，新目录随即放入，瓦片不可用的时间只有两次重命名
+        if (Files.exists(filesDir)) {
+            dziDeletionService.submit(filesDir, job.getFolderName() + "/" + job.getFileName() + "_files");
+        }
+        Files.move(partDir, filesDir, StandardCopyOption.ATOMIC_MOVE);
+
+        DziDescriptor descriptor = new DziDescriptor(width, height, tileSize, overlap, format, levelCount);
+        Path dziFile = outputDir.resolve(job.getFileName() + ".dzi");
+        Path tempFile = outputDir.resolve("." + job.getFileName() + ".dzi.tmp");
+        Files.writeString(tempFile, DziDescriptorWriter.toXml(descriptor), StandardCharsets.UTF_8);
+        Files.move(tempFile, dziFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // 旧的容器文件和缓存内容已与新瓦片不一致
+        pyramidPackService.deletePack(job.getFolderName(), job.getFileName());
+        String pyramid = job.getFolderName() + "/" + job.getFileName();
+        tileCacheService.invalidatePrefix(pyramid + "_files/");
+        tileCacheService.invalidatePrefix(pyramid + ".dzi");
+        tileValidatorService.invalidatePrefix(pyramid + "_files/");
+        tileValidatorService.invalidatePrefix(pyramid + ".dzi");
+        tileNegativeCacheService.invalidatePrefix(pyramid + "_files/");
+        tileNegativeCacheService.invalidatePrefix(pyramid + ".dzi");
+        dziCatalogService.refreshFolder(job.getFolderName());
+    }
+
+    /**
+     * 按块读取切片并写出最高层级的瓦片
+     * <p>
+     * 当前块在线程池中编码的同时读取下一块，切片读取是串行的，编码是并行的。
+     * </p>
+     */
+    private void writeTopLevel(PyramidJob job, OmeTiffSlide slide, Path partDir, int maxLevel,
+                               TileDeduplicator deduplicator, AtomicLong completed) throws IOException {
+        long width = slide.getWidth();
+        long height = slide.getHeight();
+        int cols = DziTileUtils.tileCount(width, tileSize);
+        int rows = DziTileUtils.tileCount(height, tileSize);
+        Path levelDir = Files.createDirectories(partDir.resolve(String.valueOf(maxLevel)));
+        updateProgress(job, "正在生成第" + maxLevel + "层");
+
+        ForkJoinTask<?> pending = null;
+        for (int blockRow = 0; blockRow < rows; blockRow += blockTiles) {
+            for (int blockCol = 0; blockCol < cols; blockCol += blockTiles) {
+                int firstCol = blockCol;
+                int firstRow = blockRow;
+                int lastCol = Math.min(cols, blockCol + blockTiles);
+                int lastRow = Math.min(rows, blockRow + blockTiles);
+                long[] first = DziTileUtils.tileBounds(width, height, tileSize, overlap, firstCol, firstRow);
+                long[] last = DziTileUtils.tileBounds(width, height, tileSize, overlap, lastCol - 1, lastRow - 1);
+                BufferedImage region = slide.readRegion(1, first[0], first[1], last[2], last[3]);
+
+                if (pending != null) {
+                    await(pending);
+                }
+                int blockWidth = lastCol - firstCol;
+                pending = pool.submit(() -> IntStream.range(0, blockWidth * (lastRow - firstRow)).parallel()
+                        .forEach(i -> {
+                            int col = firstCol + i % blockWidth;
+                            int row = firstRow + i / blockWidth;
+                            long[] bounds = DziTileUtils.tileBounds(width, height, tileSize, overlap, col, row);
+                            BufferedImage tile = region.getSubimage((int) (bounds[0] - first[0]),
+                                    (int) (bounds[1] - first[1]),
+                                    (int) (bounds[2] - bounds[0]), (int) (bounds[3] - bounds[1]));
+                            writeTile(levelDir, col, row, tile, deduplicator);
+                            completed.incrementAndGet();
+                        }));
+            }
+        }
+        if (pending != null) {
+            await(pending);
+        }
+    }
+
+    /**
+     * 由上一层已写出的瓦片合成并写出指定层级的瓦片
+     */
+    private void writeLevel(PyramidJob job, OmeTiffSlide slide, Path partDir, int maxLevel, int level,
+                            TileDeduplicator deduplicator, AtomicLong completed) throws IOException {
+        long levelWidth = DziTileUtils.levelDimension(slide.getWidth(), maxLevel, level);
+        long levelHeight = DziTileUtils.levelDimension(slide.getHeight(), maxLevel, level);
+        long childWidth = DziTileUtils.levelDimension(slide.getWidth(), maxLevel, level + 1);
+        long childHeight = DziTileUtils.levelDimension(slide.getHeight(), maxLevel, level + 1);
+        int cols = DziTileUtils.tileCount(levelWidth, tileSize);
+        int rows = DziTileUtils.tileCount(levelHeight, tileSize);
+        Path levelDir = Files.createDirectories(partDir.resolve(String.valueOf(level)));
+        Path childDir = partDir.resolve(String.valueOf(level + 1));
+        updateProgress(job, "正在生成第" + level + "层");
+
+        await(pool.submit(() -> IntStream.range(0, cols * rows).parallel().forEach(i -> {
+            int col = i % cols;
+            int row = i / cols;
+            long[] bounds = DziTileUtils.tileBounds(levelWidth, levelHeight, tileSize, overlap, col, row);
+            try {
+                BufferedImage tile = DziTileUtils.composeFromChildren(
+                        (childLevel, childCol, childRow) -> readTile(childDir, childCol, childRow),
+                        level + 1, bounds, childWidth, childHeight, tileSize, overlap);
+                writeTile(levelDir, col, row, tile, deduplicator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            completed.incrementAndGet();
+        })));
+    }
+
+    /**
+     * 编码并写出瓦片，与已写出瓦片内容相同时以硬链接保存
+     */
+    private void writeTile(Path levelDir, int col, int row, BufferedImage tile, TileDeduplicator deduplicator) {
+        try {
+            deduplicator.write(levelDir.resolve(col + "_" + row + "." + format),
+                    DziTileUtils.encode(tile, format, quality));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读取已写出的瓦片，不存在时返回null
+     */
+    private BufferedImage readTile(Path levelDir, int col, int row) throws IOException {
+        Path file = levelDir.resolve(col + "_" + row + "." + format);
+        return Files.isRegularFile(file) ? ImageIO.read(file.toFile()) : null;
+    }
+
+    /**
+     * 等待线程池中的任务完成，并还原其中抛出的IO异常
+     */
+    private void await(ForkJoinTask<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            throw new IOException("金字塔生成被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void updateProgress(PyramidJob job, String progress) {
+        synchronized (job) {
+            job.setProgress(progress);
+        }
+    }
+
+    private void finish(PyramidJob job, String status, String progress, String errorMessage) {
+        synchronized (job) {
+            job.setStatus(status);
+            job.setProgress(progress);
+            job.setErrorMessage(errorMessage);
+            job.setCompletedTime(new Date());
+        }
+    }
+
+    /**
+     * 将已生成的瓦片数同步到任务信息中
+     */
+    private void refreshProgress(PyramidJob job) {
+        AtomicLong completed = progressCounters.get(job.getId());
+        if (completed == null) {
+            return;
+        }
+        synchronized (job) {
+            job.setCompletedTiles(completed.get());
+            job.setPercent(job.getTotalTiles() > 0
+                    ? Math.round(completed.get() * 1000.0 / job.getTotalTiles()) / 10.0 : 0);
+        }
+    }
+
+    /**
+     * 任务记录超过上限时移除最早结束的任务
+     */
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getCompletedTime() != null)
+                .sorted(Comparator.comparing(PyramidJob::getCompletedTime))
+                .limit(jobs.size() - MAX_RETAINED_JOBS + 1L)
+                .map(PyramidJob::getId)
+                .toList()
+                .forEach(id -> {
+                    jobs.remove(id);
+                    progressCounters.remove(id);
+                });
+    }
+
+    /**
+     * 查找切片文件，并防止目录穿越攻击
+     *
+     * @return 切片文件，不存在时返回null
+     */
+    private Path resolveSource(String folderName, String fileName) throws IOException {
+        Path slidesDir = getSlidesDir(folderName);
+        List<Path> candidates = new ArrayList<>();
+        if (pyramidName(fileName) != null) {
+            candidates.add(slidesDir.resolve(fileName).normalize());
+        }
+        for (String extension : SOURCE_EXTENSIONS) {
+            candidates.add(slidesDir.resolve(fileName + extension).normalize());
+        }
+        for (Path candidate : candidates) {
+            if (!candidate.startsWith(slidesDir)) {
+                log.warn("安全警告：尝试访问不在目录内的切片: {}", candidate);
+                throw new IOException("非法的切片路径: " + folderName + "/" + fileName);
+            }
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取配准切片目录，并防止目录穿越攻击
+     */
+    private Path getSlidesDir(String folderName) throws IOException {
+        Path baseDir = Paths.get(registerDir).toAbsolutePath().normalize();
+        Path dir = baseDir.resolve(folderName).resolve("registered_slides").normalize();
+        if (!dir.startsWith(baseDir)) {
+            log.warn("安全警告：尝试访问不在目录内的文件夹: {}", dir);
+            throw new IOException("非法的文件夹路径: " + folderName);
+        }
+        return dir;
+    }
+
+    /**
+     * 获取金字塔输出目录，并防止目录穿越攻击
+     */
+    private Path getDziDir(String folderName) throws IOException {
+        Path baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        Path dir = baseDir.resolve(folderName).normalize();
+        if (!dir.startsWith(baseDir) || dir.equals(baseDir)) {
+            throw new IOException("非法的文件夹路径: " + folderName);
+        }
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * 由切片文件名得到金字塔名称
+     *
+     * @return 去掉扩展名的名称，扩展名不受支持时返回null
+     */
+    private String pyramidName(String fileName) {
+        String lower = fileName.toLowerCase();
+        for (String extension : SOURCE_EXTENSIONS) {
+            if (lower.endsWith(extension) && lower.length() > extension.length()) {
+                return fileName.substring(0, fileName.length() - extension.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 递归删除目录
+     */
+    private void deleteRecursively(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void deleteQuietly(Path dir) {
+        try {
+            deleteRecursively(dir);
+        } catch (IOException e) {
+            log.warn("删除临时目录失败: {}, 错误: {}", dir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DeletionTask;
+import com.nwu.medimagebackend.entity.PyramidPackJob;
+import com.nwu.medimagebackend.entity.PyramidPackResult;
+import com.nwu.medimagebackend.service.DziDeletionService;
+import com.nwu.medimagebackend.service.PyramidPackService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import com.nwu.medimagebackend.utils.PyramidPackReader;
+import com.nwu.medimagebackend.utils.PyramidPackWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 金字塔容器服务实现类
+ * <p>
+ * 维护已打开容器的读取器缓存，同一容器只读取一次索引。
+ * 容器路径由瓦片路径中的"name_files/"段推导：folder/name_files/12/3_4.jpeg
+ * 对应容器 folder/name.dzp 中的条目 12/3_4.jpeg。
+ * 打包在金字塔任务执行器中逐个进行，容器写入完成后原瓦片目录移入回收目录，
+ * 由{@link DziDeletionService}在后台限速删除。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class PyramidPackServiceImpl implements PyramidPackService {
+
+    /**
+     * 瓦片目录后缀
+     */
+    private static final String FILES_SUFFIX = "_files";
+
+    /**
+     * 容器文件扩展名
+     */
+    private static final String PACK_EXTENSION = ".dzp";
+
+    /**
+     * 保留的任务记录数上限，超出后移除最早结束的任务
+     */
+    private static final int MAX_RETAINED_JOBS = 500;
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    /**
+     * 是否使用内存映射读取容器，Windows上内存映射的文件在释放前无法删除
+     */
+    @Value("${tile.pack.mmap:true}")
+    private boolean mmap;
+
+    @Autowired
+    private DziDeletionService dziDeletionService;
+
+    /**
+     * 打包与金字塔生成共用同一个单线程执行器，避免同一金字塔同时被生成和打包
+     */
+    @Autowired
+    @Qualifier("pyramidJobExecutor")
+    private Executor pyramidJobExecutor;
+
+    /**
+     * 任务ID到任务的映射
+     */
+    private final Map<String, PyramidPackJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 已打开的容器读取器，键为容器文件的绝对路径
+     */
+    private final Map<Path, PyramidPackReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Resource readPackedTile(String relativeKey) throws IOException {
+        // 按最后一个"_files/"段划分，文件夹名本身以_files结尾时也能找到正确的容器
+        DziTilePath path = DziTilePath.parse(relativeKey);
+        if (path == null) {
+            return null;
+        }
+        Path baseDir = getBaseDir();
+        Path packFile = baseDir.resolve(path.pyramid() + PACK_EXTENSION).normalize();
+        if (!packFile.startsWith(baseDir)) {
+            return null;
+        }
+        PyramidPackReader reader = readers.get(packFile);
+        if (reader == null) {
+            if (!Files.isRegularFile(packFile)) {
+                return null;
+            }
+            reader = openReader(packFile);
+        }
+
+        String entryName = relativeKey.substring(path.pyramid().length() + FILES_SUFFIX.length() + 1);
+        ByteBuffer content = reader.read(entryName);
+        if (content == null) {
+            return null;
+        }
+        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+        return new ByteBufferResource(content, fileName, Files.getLastModifiedTime(packFile).toMillis());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PyramidPackJob packPyramid(String folderName, String fileName) throws IOException {
+        String name = stripSuffixes(fileName);
+        Path folder = resolveFolder(folderName);
+        Path sourceDir = folder.resolve(name + FILES_SUFFIX).normalize();
+        if (!sourceDir.startsWith(folder) || !Files.isDirectory(sourceDir)) {
+            throw new IOException("瓦片目录不存在: " + folderName + "/" + name + FILES_SUFFIX);
+        }
+        return submit(folderName, name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PyramidPackJob> packFolder(String folderName) throws IOException {
+        Path folder = resolveFolder(folderName);
+        if (!Files.isDirectory(folder)) {
+            throw new IOException("文件夹不存在: " + folderName);
+        }
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "*" + FILES_SUFFIX)) {
+            for (Path dir : stream) {
+                if (Files.isDirectory(dir)) {
+                    names.add(stripSuffixes(dir.getFileName().toString()));
+                }
+            }
+        }
+        names.sort(Comparator.naturalOrder());
+
+        List<PyramidPackJob> result = new ArrayList<>();
+        for (String name : names) {
+            result.add(submit(folderName, name));
+        }
+        log.info("文件夹[{}]已提交{}个金字塔打包任务", folderName, result.size());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PyramidPackJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PyramidPackJob> listJobs() {
+        List<PyramidPackJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(PyramidPackJob::getCreatedTime).reversed());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deletePack(String folderName, String fileName) throws IOException {
+        Path folder = resolveFolder(folderName);
+        Path packFile = folder.resolve(stripSuffixes(fileName) + PACK_EXTENSION).normalize();
+        if (!packFile.startsWith(folder)) {
+            return false;
+        }
+        closeReader(packFile);
+        boolean deleted = Files.deleteIfExists(packFile);
+        if (deleted) {
+            log.info("已删除金字塔容器: {}", packFile);
+        }
+        return deleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void closePacks(String folderName) {
+        Path folder = getBaseDir().resolve(folderName).normalize();
+        readers.keySet().removeIf(packFile -> {
+            if (packFile.startsWith(folder)) {
+                closeQuietly(readers.get(packFile));
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 应用关闭时释放所有容器
+     */
+    @PreDestroy
+    public void destroy() {
+        readers.values().forEach(this::closeQuietly);
+        readers.clear();
+    }
+
+    /**
+     * 提交打包任务，同一金字塔已有未结束的任务时直接返回该任务
+     */
+    private synchronized PyramidPackJob submit(String folderName, String name) {
+        for (PyramidPackJob existing : jobs.values()) {
+            if (existing.getFolderName().equals(folderName) && existing.getFileName().equals(name)
+                    && ("PENDING".equals(existing.getStatus()) || "PROCESSING".equals(existing.getStatus()))) {
+                log.info("金字塔[{}/{}]已有未完成的打包任务: {}", folderName, name, existing.getId());
+                return existing;
+            }
+        }
+        evictFinishedJobs();
+
+        PyramidPackJob job = new PyramidPackJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setFolderName(folderName);
+        job.setFileName(name);
+        job.setStatus("PENDING");
+        job.setCreatedTime(new Date());
+        jobs.put(job.getId(), job);
+
+        try {
+            pyramidJobExecutor.execute(() -> run(job));
+            log.info("已提交金字塔打包任务: {}, 金字塔: {}/{}", job.getId(), folderName, name);
+        } catch (TaskRejectedException e) {
+            log.warn("金字塔任务队列已满，拒绝打包任务: {}/{}", folderName, name);
+            finish(job, "FAILED", "任务队列已满");
+        }
+        return job;
+    }
+
+    /**
+     * 执行打包任务：写入容器后将原瓦片目录移入回收目录，由后台删除服务删除
+     */
+    private void run(PyramidPackJob job) {
+        long start = System.currentTimeMillis();
+        synchronized (job) {
+            job.setStatus("PROCESSING");
+        }
+        String description = job.getFolderName() + "/" + job.getFileName() + FILES_SUFFIX;
+        try {
+            Path folder = resolveFolder(job.getFolderName());
+            Path sourceDir = folder.resolve(job.getFileName() + FILES_SUFFIX);
+            Path packFile = folder.resolve(job.getFileName() + PACK_EXTENSION);
+            if (!Files.isDirectory(sourceDir)) {
+                throw new IOException("瓦片目录不存在: " + description);
+            }
+
+            log.info("开始打包金字塔: {} -> {}", sourceDir, packFile);
+            closeReader(packFile);
+            PyramidPackResult result = PyramidPackWriter.pack(sourceDir, packFile);
+            result.setFolderName(job.getFolderName());
+            result.setFileName(job.getFileName());
+            // 打包期间可能按旧容器打开了读取器
+            closeReader(packFile);
+
+            // 容器写入完成后原瓦片目录立即移出，文件由后台删除服务限速删除
+            DeletionTask deletion = dziDeletionService.submit(sourceDir, description);
+            synchronized (job) {
+                job.setResult(result);
+                job.setDeletionTaskId(deletion.getId());
+            }
+            log.info("金字塔打包完成: {}/{}, {}个瓦片, 内容{}字节, 容器{}字节, 耗时{}ms",
+                    job.getFolderName(), job.getFileName(), result.getEntryCount(), result.getContentBytes(),
+                    result.getPackBytes(), System.currentTimeMillis() - start);
+            finish(job, "COMPLETED", null);
+        } catch (Exception e) {
+            log.error("金字塔[{}/{}]打包失败: {}", job.getFolderName(), job.getFileName(), e.getMessage(), e);
+            finish(job, "FAILED", e.getMessage());
+        }
+    }
+
+    private void finish(PyramidPackJob job, String status, String errorMessage) {
+        synchronized (job) {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage);
+            job.setCompletedTime(new Date());
+        }
+    }
+
+    /**
+     * 任务记录超过上限时移除最早结束的任务
+     */
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getCompletedTime() != null)
+                .sorted(Comparator.comparing(PyramidPackJob::getCompletedTime))
+                .limit(jobs.size() - MAX_RETAINED_JOBS + 1L)
+                .map(PyramidPackJob::getId)
+                .toList()
+                .forEach(jobs::remove);
+    }
+
+    /**
+     * 打开容器并放入读取器缓存，并发打开同一容器时只保留一个读取器
+     */
+    private PyramidPackReader openReader(Path packFile) throws IOException {
+        try {
+            return readers.computeIfAbsent(packFile, file -> {
+                try {
+                    log.info("打开金字塔容器: {}", file);
+                    return new PyramidPackReader(file, mmap);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 关闭并移除指定容器的读取器
+     */
+    private void closeReader(Path packFile) {
+        closeQuietly(readers.remove(packFile));
+    }
+
+    private void closeQuietly(PyramidPackReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (IOException e) {
+            log.warn("关闭金字塔容器失败: {}, 错误: {}", reader.getFile(), e.getMessage());
+        }
+    }
+
+    /**
+     * 去掉金字塔名称上的_files或.dzp后缀
+     */
+    private String stripSuffixes(String fileName) {
+        if (fileName.endsWith(FILES_SUFFIX)) {
+            return fileName.substring(0, fileName.length() - FILES_SUFFIX.length());
+        }
+        if (fileName.endsWith(PACK_EXTENSION)) {
+            return fileName.substring(0, fileName.length() - PACK_EXTENSION.length());
+        }
+        return fileName;
+    }
+
+    /**
+     * 解析文件夹路径，并防止目录穿越攻击
+     */
+    private Path resolveFolder(String folderName) throws IOException {
+        Path baseDir = getBaseDir();
+        Path folder = baseDir.resolve(folderName).normalize();
+        if (!folder.startsWith(baseDir) || folder.equals(baseDir)) {
+            throw new IOException("非法的文件夹路径: " + folderName);
+        }
+        return folder;
+    }
+
+    private Path getBaseDir() {
+        return Paths.get(dziUploadDir).toAbsolutePath().normalize();
+    }
+}
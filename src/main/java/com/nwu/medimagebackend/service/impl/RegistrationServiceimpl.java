@@ -1,9 +1,14 @@
 package com.nwu.medimagebackend.service.impl;
 
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.FileEntry;
 import com.nwu.medimagebackend.entity.FileInfo;
 import com.nwu.medimagebackend.entity.IhcAnalysisResult;
 import com.nwu.medimagebackend.mapper.RegistrationMapper;
+import com.nwu.medimagebackend.service.PyramidGeneratorService;
 import com.nwu.medimagebackend.service.RegistrationService;
+import com.nwu.medimagebackend.utils.CursorPager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +21,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Date;
 import java.util.*;
 import java.util.stream.Stream;
@@ -28,9 +34,16 @@ public class RegistrationServiceimpl implements RegistrationService {
     @Value("${uploads.svs.dir:./uploads/svs/}")
     private String svsUploadDir;
 
+    // 配准完成后是否自动生成DZI金字塔
+    @Value("${tile.generator.auto-after-registration:false}")
+    private boolean autoGeneratePyramids;
+
     @Autowired
     private RegistrationMapper registrationMapper;
 
+    @Autowired
+    private PyramidGeneratorService pyramidGeneratorService;
+
     @Override
     public Map<String, Object> handleSvsUpload(MultipartFile[] files) throws IOException {
         if (files == null || files.length == 0) {
@@ -87,6 +100,31 @@ public class RegistrationServiceimpl implements RegistrationService {
         return result;
     }
 
+    @Override
+    public CursorPage<FileEntry> pageSvsFolders(PageQuery query) throws IOException {
+        CursorPager pager = new CursorPager(query);
+        Path baseDir = Paths.get(svsUploadDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(baseDir)) {
+            return pager.finish();
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(baseDir)) {
+            for (Path dir : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(dir, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // 读取过程中被删除的目录直接跳过
+                    continue;
+                }
+                if (attributes.isDirectory()) {
+                    pager.offer(new FileEntry(dir.getFileName().toString(), true, 0,
+                            attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        return pager.finish();
+    }
+
     @Override
     public Map<String, Object> registerFolder(String folderName, String userName) {
         log.info("接收到文件夹 [{}] 的配准请求", folderName);
@@ -125,6 +163,14 @@ public class RegistrationServiceimpl implements RegistrationService {
             throw new RuntimeException("遍历文件夹时发生错误", e);
         }
 
+        if (autoGeneratePyramids) {
+            try {
+                pyramidGeneratorService.generateFolder(folderName);
+            } catch (IOException e) {
+                log.warn("提交文件夹[{}]金字塔生成任务失败: {}", folderName, e.getMessage());
+            }
+        }
+
 //        log.info("配准结果：{}", response.getBody());
         Map<String, Object> responseMap = new HashMap<>();
         responseMap.put("message", "配准完毕");
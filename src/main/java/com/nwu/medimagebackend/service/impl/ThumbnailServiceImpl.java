@@ -0,0 +1,371 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.entity.SlideThumbnail;
+import com.nwu.medimagebackend.service.DynamicTileService;
+import com.nwu.medimagebackend.service.PyramidPackService;
+import com.nwu.medimagebackend.service.ThumbnailService;
+import com.nwu.medimagebackend.service.TileSynthesisService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.DziDescriptorReader;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import com.nwu.medimagebackend.utils.DziTileUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 切片缩略图服务实现类
+ * <p>
+ * 生成时选择长边不小于目标尺寸的最低金字塔层级，只读取该层级的少量瓦片拼接，
+ * 再用均值滤波缩小到目标尺寸并编码为JPEG。DZI瓦片直接从磁盘或金字塔容器读取，
+ * 不经过瓦片缓存，避免缩略图生成把浏览中的瓦片挤出缓存。
+ * </p>
+ * <p>
+ * 缩略图保存在按字节预算淘汰的LRU缓存中，同时写入DZI目录下的隐藏目录.thumbnails，
+ * 磁盘文件的修改时间设为源切片的修改时间，两者不一致即视为过期。
+ * 同一缩略图的并发请求只生成一次。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final String THUMBNAIL_DIR = ".thumbnails";
+
+    private static final String FORMAT = "jpeg";
+
+    /**
+     * 支持的缩略图长边像素数
+     */
+    @Value("${tile.thumbnail.sizes:128,256,512}")
+    private int[] sizes;
+
+    /**
+     * 内存缓存的字节上限
+     */
+    @Value("${tile.thumbnail.cache-max-bytes:33554432}")
+    private long cacheMaxBytes;
+
+    /**
+     * JPEG压缩质量
+     */
+    @Value("${tile.thumbnail.quality:0.85}")
+    private float quality;
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    @Autowired
+    private DynamicTileService dynamicTileService;
+
+    @Autowired
+    private PyramidPackService pyramidPackService;
+
+    @Autowired
+    private TileSynthesisService tileSynthesisService;
+
+    /**
+     * 按访问顺序排列的内存缓存，访问时需持有自身的锁
+     */
+    private final LinkedHashMap<String, SlideThumbnail> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * 正在生成的缩略图
+     */
+    private final Map<String, CompletableFuture<SlideThumbnail>> rendering = new ConcurrentHashMap<>();
+
+    private long cachedBytes;
+
+    private Path baseDir;
+
+    private Path thumbnailDir;
+
+    @PostConstruct
+    public void init() {
+        baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        thumbnailDir = baseDir.resolve(THUMBNAIL_DIR);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SlideThumbnail getThumbnail(String folderName, String fileName, int size) throws IOException {
+        if (Arrays.stream(sizes).noneMatch(s -> s == size)) {
+            throw new IllegalArgumentException("不支持的缩略图尺寸: " + size);
+        }
+        checkName(folderName);
+        checkName(fileName);
+
+        Path dziFile = baseDir.resolve(folderName).resolve(fileName + ".dzi");
+        long lastModified = Files.isRegularFile(dziFile)
+                ? Files.getLastModifiedTime(dziFile).toMillis()
+                : dynamicTileService.getLastModified(folderName, fileName);
+        if (lastModified <= 0) {
+            return null;
+        }
+
+        String key = folderName + "/" + fileName + "_" + size;
+        SlideThumbnail cached = getCached(key);
+        if (cached != null && cached.getLastModified() == lastModified) {
+            return cached;
+        }
+
+        CompletableFuture<SlideThumbnail> future = new CompletableFuture<>();
+        CompletableFuture<SlideThumbnail> existing = rendering.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            SlideThumbnail thumbnail = load(key, folderName, fileName, size, dziFile, lastModified);
+            if (thumbnail != null) {
+                putCached(key, thumbnail);
+            }
+            future.complete(thumbnail);
+            return thumbnail;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(String folderName, String fileName) {
+        String prefix = fileName == null ? folderName + "/" : folderName + "/" + fileName + "_";
+        synchronized (cache) {
+            Iterator<Map.Entry<String, SlideThumbnail>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, SlideThumbnail> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    cachedBytes -= entry.getValue().getContent().length;
+                    it.remove();
+                }
+            }
+        }
+
+        Path folderDir = thumbnailDir.resolve(folderName).normalize();
+        if (!folderDir.startsWith(thumbnailDir) || !Files.isDirectory(folderDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folderDir)) {
+            for (Path file : files) {
+                if (fileName == null || file.getFileName().toString().startsWith(fileName + "_")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            if (fileName == null) {
+                Files.deleteIfExists(folderDir);
+            }
+        } catch (IOException e) {
+            log.warn("删除缩略图失败: {}/{}, 错误: {}", folderName, fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * 从磁盘读取缩略图，不存在或已过期时重新生成
+     */
+    private SlideThumbnail load(String key, String folderName, String fileName, int size, Path dziFile,
+                                long lastModified) throws IOException {
+        Path file = thumbnailDir.resolve(key + "." + FORMAT);
+        if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toMillis() == lastModified) {
+            return new SlideThumbnail(Files.readAllBytes(file), lastModified, etag(lastModified, size));
+        }
+
+        long start = System.currentTimeMillis();
+        BufferedImage overview = Files.isRegularFile(dziFile)
+                ? renderFromPyramid(folderName, fileName, dziFile, size)
+                : renderFromSlide(folderName, fileName, size);
+        if (overview == null) {
+            return null;
+        }
+        byte[] content = DziTileUtils.encode(scaleToFit(overview, size), FORMAT, quality);
+
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling("." + file.getFileName() + ".tmp");
+        Files.write(tmp, content);
+        Files.setLastModifiedTime(tmp, FileTime.fromMillis(lastModified));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("缩略图已生成: {}, 尺寸={}, 耗时={}ms", key, size, System.currentTimeMillis() - start);
+        return new SlideThumbnail(content, lastModified, etag(lastModified, size));
+    }
+
+    /**
+     * 由DZI金字塔的瓦片拼接概览图
+     */
+    private BufferedImage renderFromPyramid(String folderName, String fileName, Path dziFile, int size)
+            throws IOException {
+        DziDescriptor dzi = DziDescriptorReader.read(dziFile);
+        String pyramid = folderName + "/" + fileName;
+        return renderLevel(dzi, size, (level, col, row) -> {
+            String tileKey = new DziTilePath(pyramid, level, col, row, dzi.getFormat()).toKey();
+            Path tileFile = baseDir.resolve(tileKey);
+            if (Files.isRegularFile(tileFile)) {
+                return ImageIO.read(tileFile.toFile());
+            }
+            Resource packed = pyramidPackService.readPackedTile(tileKey);
+            if (packed != null) {
+                return decode(packed);
+            }
+            // 未保存的低分辨率层级由子瓦片合成
+            ByteBuffer synthesized = tileSynthesisService.synthesize(DziTilePath.parse(tileKey));
+            return synthesized == null ? null : decode(new ByteBufferResource(synthesized, tileKey));
+        });
+    }
+
+    /**
+     * 由OME-TIFF切片的动态瓦片拼接概览图
+     */
+    private BufferedImage renderFromSlide(String folderName, String fileName, int size) throws IOException {
+        DziDescriptor dzi = dynamicTileService.getDescriptor(folderName, fileName);
+        if (dzi == null) {
+            return null;
+        }
+        return renderLevel(dzi, size, (level, col, row) ->
+                decode(dynamicTileService.getTile(folderName, fileName, level, col, row, dzi.getFormat())));
+    }
+
+    /**
+     * 选择长边不小于目标尺寸的最低层级，并将该层级的全部瓦片拼接为一幅图像
+     */
+    private BufferedImage renderLevel(DziDescriptor dzi, int size, DziTileUtils.TileImageSource source)
+            throws IOException {
+        int maxLevel = dzi.getLevelCount() - 1;
+        int level = maxLevel;
+        for (int l = 0; l <= maxLevel; l++) {
+            long longSide = Math.max(DziTileUtils.levelDimension(dzi.getWidth(), maxLevel, l),
+                    DziTileUtils.levelDimension(dzi.getHeight(), maxLevel, l));
+            if (longSide >= size) {
+                level = l;
+                break;
+            }
+        }
+        int width = (int) DziTileUtils.levelDimension(dzi.getWidth(), maxLevel, level);
+        int height = (int) DziTileUtils.levelDimension(dzi.getHeight(), maxLevel, level);
+        int tileSize = dzi.getTileSize();
+
+        BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = canvas.createGraphics();
+        try {
+            for (int row = 0; row < DziTileUtils.tileCount(height, tileSize); row++) {
+                for (int col = 0; col < DziTileUtils.tileCount(width, tileSize); col++) {
+                    long[] bounds = DziTileUtils.tileBounds(width, height, tileSize, dzi.getOverlap(), col, row);
+                    BufferedImage tile = source.get(level, col, row);
+                    if (bounds != null && tile != null) {
+                        g.drawImage(tile, (int) bounds[0], (int) bounds[1], null);
+                    }
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return canvas;
+    }
+
+    /**
+     * 保持宽高比缩小，使长边等于目标尺寸；图像本身更小时保持原尺寸
+     */
+    private BufferedImage scaleToFit(BufferedImage image, int size) {
+        int longSide = Math.max(image.getWidth(), image.getHeight());
+        if (longSide <= size) {
+            return DziTileUtils.downsample(image, image.getWidth(), image.getHeight());
+        }
+        int width = Math.max(1, (int) Math.round((double) image.getWidth() * size / longSide));
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * size / longSide));
+        return DziTileUtils.downsample(image, width, height);
+    }
+
+    private BufferedImage decode(Resource resource) throws IOException {
+        if (resource == null) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+
+    private SlideThumbnail getCached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void putCached(String key, SlideThumbnail thumbnail) {
+        synchronized (cache) {
+            SlideThumbnail previous = cache.put(key, thumbnail);
+            if (previous != null) {
+                cachedBytes -= previous.getContent().length;
+            }
+            cachedBytes += thumbnail.getContent().length;
+            Iterator<SlideThumbnail> it = cache.values().iterator();
+            while (cachedBytes > cacheMaxBytes && it.hasNext()) {
+                cachedBytes -= it.next().getContent().length;
+                it.remove();
+            }
+        }
+    }
+
+    private SlideThumbnail await(CompletableFuture<SlideThumbnail> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待缩略图生成时被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private String etag(long lastModified, int size) {
+        return "\"" + Long.toHexString(lastModified) + "-" + size + "\"";
+    }
+
+    /**
+     * 文件夹名和切片名不允许包含路径分隔符或以"."开头
+     */
+    private void checkName(String name) {
+        if (name == null || name.isEmpty() || name.startsWith(".")
+                || name.contains("/") || name.contains("\\")) {
+            throw new IllegalArgumentException("非法的名称: " + name);
+        }
+    }
+}
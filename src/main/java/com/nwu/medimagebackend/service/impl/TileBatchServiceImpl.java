@@ -0,0 +1,184 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.DTO.TileBatchRequest;
+import com.nwu.medimagebackend.DTO.TileBatchRequest.TileCoordinate;
+import com.nwu.medimagebackend.service.DziService;
+import com.nwu.medimagebackend.service.TileBatchService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * 批量瓦片服务实现类
+ * <p>
+ * 瓦片通过{@link DziService#getDziFile(String)}读取，与单瓦片接口共享缓存、容器和ETag索引。
+ * 读取任务提交到独立的瓦片读取线程池，写出线程按完成顺序逐帧写出。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileBatchServiceImpl implements TileBatchService {
+
+    /**
+     * 瓦片格式只允许字母和数字，防止通过扩展名拼接出其他路径
+     */
+    private static final Pattern FORMAT_PATTERN = Pattern.compile("[A-Za-z0-9]+");
+
+    /**
+     * 单次批量请求的最大瓦片数
+     */
+    @Value("${tile.batch.max-tiles:256}")
+    private int maxTiles;
+
+    @Autowired
+    private DziService dziService;
+
+    @Autowired
+    @Qualifier("tileIoExecutor")
+    private Executor tileIoExecutor;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int writeTiles(TileBatchRequest request, OutputStream out) throws IOException {
+        String pyramid = validate(request);
+        List<TileCoordinate> tiles = request.getTiles();
+
+        CompletionService<TileFrame> completionService = new ExecutorCompletionService<>(tileIoExecutor);
+        List<Future<TileFrame>> futures = new ArrayList<>(tiles.size());
+        for (int i = 0; i < tiles.size(); i++) {
+            int index = i;
+            TileCoordinate tile = tiles.get(i);
+            String path = new DziTilePath(pyramid, tile.getLevel(), tile.getX(), tile.getY(), request.getFormat()).toKey();
+            futures.add(completionService.submit(() -> readTile(index, tile, path)));
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        WritableByteChannel channel = Channels.newChannel(data);
+        int written = 0;
+        try {
+            data.writeInt(MAGIC);
+            data.writeInt(tiles.size());
+            data.flush();
+            for (int i = 0; i < tiles.size(); i++) {
+                TileFrame frame = completionService.take().get();
+                data.writeInt(frame.index());
+                data.writeInt(frame.tile().getLevel());
+                data.writeInt(frame.tile().getX());
+                data.writeInt(frame.tile().getY());
+                data.writeShort(frame.status());
+                if (frame.content() == null) {
+                    data.writeInt(0);
+                } else {
+                    data.writeInt(frame.content().remaining());
+                    ByteBuffer content = frame.content();
+                    while (content.hasRemaining()) {
+                        channel.write(content);
+                    }
+                    written++;
+                }
+                data.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量瓦片读取被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("批量瓦片读取失败", e.getCause());
+        } finally {
+            // 客户端断开等异常情况下取消尚未执行的读取任务
+            futures.forEach(future -> future.cancel(false));
+        }
+        log.debug("批量瓦片写出完成: {}, 请求{}个, 成功{}个", request.getSlide(), tiles.size(), written);
+        return written;
+    }
+
+    /**
+     * 校验请求参数
+     *
+     * @param request 批量瓦片请求
+     * @return 金字塔路径，不含.dzi后缀
+     */
+    private String validate(TileBatchRequest request) {
+        if (request == null || request.getSlide() == null || request.getSlide().isBlank()) {
+            throw new IllegalArgumentException("切片路径不能为空");
+        }
+        if (request.getFormat() == null || !FORMAT_PATTERN.matcher(request.getFormat()).matches()) {
+            throw new IllegalArgumentException("不支持的瓦片格式: " + request.getFormat());
+        }
+        List<TileCoordinate> tiles = request.getTiles();
+        if (tiles == null || tiles.isEmpty()) {
+            throw new IllegalArgumentException("瓦片列表不能为空");
+        }
+        if (tiles.size() > maxTiles) {
+            throw new IllegalArgumentException("单次最多请求" + maxTiles + "个瓦片，实际: " + tiles.size());
+        }
+        for (TileCoordinate tile : tiles) {
+            if (tile == null || tile.getLevel() < 0 || tile.getX() < 0 || tile.getY() < 0) {
+                throw new IllegalArgumentException("非法的瓦片坐标: " + tile);
+            }
+        }
+        String slide = request.getSlide();
+        if (slide.endsWith(".dzi")) {
+            slide = slide.substring(0, slide.length() - ".dzi".length());
+        }
+        return slide;
+    }
+
+    /**
+     * 读取单个瓦片，异常转换为帧状态码，不向外抛出
+     */
+    private TileFrame readTile(int index, TileCoordinate tile, String path) {
+        try {
+            Resource resource = dziService.getDziFile(path);
+            if (resource == null) {
+                return new TileFrame(index, tile, (short) HttpStatus.NOT_FOUND.value(), null);
+            }
+            ByteBuffer content;
+            if (resource instanceof ByteBufferResource bufferResource) {
+                content = bufferResource.getByteBuffer();
+            } else {
+                try (InputStream in = resource.getInputStream()) {
+                    content = ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+            return new TileFrame(index, tile, (short) HttpStatus.OK.value(), content);
+        } catch (IOException e) {
+            log.warn("批量读取瓦片失败: {}, 错误: {}", path, e.getMessage());
+            return new TileFrame(index, tile, (short) HttpStatus.INTERNAL_SERVER_ERROR.value(), null);
+        } catch (Exception e) {
+            log.debug("批量请求的瓦片路径非法: {}, 错误: {}", path, e.getMessage());
+            return new TileFrame(index, tile, (short) HttpStatus.NOT_FOUND.value(), null);
+        }
+    }
+
+    /**
+     * 单个瓦片的读取结果
+     */
+    private record TileFrame(int index, TileCoordinate tile, short status, ByteBuffer content) {
+    }
+}
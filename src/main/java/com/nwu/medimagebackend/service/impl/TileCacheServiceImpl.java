@@ -0,0 +1,450 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.TileCacheStats;
+import com.nwu.medimagebackend.service.TileCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 瓦片缓存服务实现类
+ * <p>
+ * 使用访问顺序的LinkedHashMap实现LRU淘汰，按字节预算而不是条目数限制容量。
+ * 开启堆外模式时瓦片内容保存在DirectByteBuffer中，不参与堆内GC扫描，
+ * 大量瓦片常驻内存时GC停顿保持平稳。
+ * </p>
+ * <p>
+ * 开启去重时按内容（CRC32C和长度，命中后逐字节比较确认）共享缓冲区，
+ * 大量相同的空白背景瓦片只占用一份内存，字节预算按实际占用的内存计算。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileCacheServiceImpl implements TileCacheService {
+
+    /**
+     * 是否启用瓦片缓存
+     */
+    @Value("${tile.cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 缓存字节预算，默认256MB
+     */
+    @Value("${tile.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    /**
+     * 单个条目的字节上限，超过该大小的文件直接从磁盘读取
+     */
+    @Value("${tile.cache.max-entry-bytes:1048576}")
+    private long maxEntryBytes;
+
+    /**
+     * 是否使用堆外内存保存瓦片内容
+     */
+    @Value("${tile.cache.off-heap:true}")
+    private boolean offHeap;
+
+    /**
+     * 是否在内容相同的条目之间共享缓冲区
+     */
+    @Value("${tile.cache.dedup:true}")
+    private boolean dedup;
+
+    /**
+     * 缓存条目，按访问顺序排列，链表头部为最久未访问的条目
+     */
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+    /**
+     * 内容键到共享缓冲区的映射，仅在持有锁时访问
+     */
+    private final Map<Long, SharedBuffer> sharedBuffers = new HashMap<>();
+
+    /**
+     * 保护entries、sharedBuffers和字节计数的锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 当前已使用的字节数（共享的内容只计一次），仅在持有锁时修改
+     */
+    private long usedBytes;
+
+    /**
+     * 所有条目内容的字节数之和（不考虑共享），仅在持有锁时修改
+     */
+    private long logicalBytes;
+
+    /**
+     * 尚未被访问过的预取条目占用的字节数，仅在持有锁时修改
+     */
+    private long prefetchedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder prefetchLoads = new LongAdder();
+    private final LongAdder prefetchHits = new LongAdder();
+    private final LongAdder prefetchWasted = new LongAdder();
+    private final LongAdder dedupHits = new LongAdder();
+
+    /**
+     * 服务初始化
+     */
+    @PostConstruct
+    public void init() {
+        log.info("初始化瓦片缓存: 启用={}, 字节预算={}, 单条目上限={}, 堆外内存={}, 内容去重={}",
+                enabled, maxBytes, maxEntryBytes, offHeap, dedup);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        CacheEntry entry;
+        boolean prefetchHit = false;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry != null && entry.prefetched) {
+                // 预取的条目只在首次命中时计入预取命中
+                entry.prefetched = false;
+                prefetchedBytes -= entry.buffer.capacity();
+                prefetchHit = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (prefetchHit) {
+            prefetchHits.increment();
+        }
+        return entry.buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer put(String key, byte[] data) {
+        if (!isCacheable(data.length)) {
+            return null;
+        }
+        long contentKey = contentKey(data);
+        ByteBuffer buffer = obtainBuffer(contentKey, data);
+
+        lock.lock();
+        try {
+            CacheEntry previous = entries.put(key, new CacheEntry(buffer, contentKey, false));
+            if (previous != null) {
+                // 被替换的可能是尚未命中的预取条目，与淘汰一样扣减预取字节数
+                release(previous);
+            }
+            reference(buffer, contentKey);
+            evictIfNecessary();
+        } finally {
+            lock.unlock();
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean putPrefetched(String key, byte[] data) {
+        if (!isCacheable(data.length)) {
+            return false;
+        }
+        if (contains(key)) {
+            return false;
+        }
+        long contentKey = contentKey(data);
+        ByteBuffer buffer = obtainBuffer(contentKey, data);
+
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                return false;
+            }
+            entries.put(key, new CacheEntry(buffer, contentKey, true));
+            reference(buffer, contentKey);
+            prefetchedBytes += buffer.capacity();
+            evictIfNecessary();
+        } finally {
+            lock.unlock();
+        }
+        prefetchLoads.increment();
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(String key) {
+        if (!enabled) {
+            return false;
+        }
+        lock.lock();
+        try {
+            // containsKey不改变访问顺序
+            return entries.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getUsageRatio() {
+        lock.lock();
+        try {
+            return maxBytes > 0 ? (double) usedBytes / maxBytes : 1.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getPrefetchedRatio() {
+        lock.lock();
+        try {
+            return maxBytes > 0 ? (double) prefetchedBytes / maxBytes : 1.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCacheable(long length) {
+        return enabled && length > 0 && length <= maxEntryBytes && length <= maxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            CacheEntry removed = entries.remove(key);
+            if (removed != null) {
+                release(removed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int invalidatePrefix(String prefix) {
+        int removedCount = 0;
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CacheEntry> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    release(entry.getValue());
+                    it.remove();
+                    removedCount++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removedCount > 0) {
+            log.info("瓦片缓存失效: 前缀[{}], 移除{}个条目", prefix, removedCount);
+        }
+        return removedCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileCacheStats getStats() {
+        lock.lock();
+        try {
+            return new TileCacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                    entries.size(), usedBytes, maxBytes, offHeap,
+                    prefetchLoads.sum(), prefetchHits.sum(), prefetchWasted.sum(),
+                    dedup, dedupHits.sum(), logicalBytes - usedBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的条目直到满足字节预算，调用方需持有锁
+     */
+    private void evictIfNecessary() {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            CacheEntry eldest = it.next();
+            release(eldest);
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 扣减被移除条目占用的字节数，从未被访问过的预取条目计为浪费，调用方需持有锁
+     */
+    private void release(CacheEntry entry) {
+        unreference(entry);
+        if (entry.prefetched) {
+            prefetchedBytes -= entry.buffer.capacity();
+            prefetchWasted.increment();
+        }
+    }
+
+    /**
+     * 获取用于保存内容的缓冲区：已有相同内容的共享缓冲区时直接复用，否则新分配
+     */
+    private ByteBuffer obtainBuffer(long contentKey, byte[] data) {
+        if (dedup) {
+            SharedBuffer shared;
+            lock.lock();
+            try {
+                shared = sharedBuffers.get(contentKey);
+            } finally {
+                lock.unlock();
+            }
+            // 缓冲区内容不会被修改，可在锁外比较；比较时直接使用共享缓冲区，其位置始终为0
+            if (shared != null && shared.buffer.equals(ByteBuffer.wrap(data))) {
+                return shared.buffer;
+            }
+        }
+        return allocate(data);
+    }
+
+    /**
+     * 登记条目对缓冲区的引用并计入字节数，调用方需持有锁
+     */
+    private void reference(ByteBuffer buffer, long contentKey) {
+        logicalBytes += buffer.capacity();
+        if (!dedup) {
+            usedBytes += buffer.capacity();
+            return;
+        }
+        SharedBuffer shared = sharedBuffers.get(contentKey);
+        if (shared == null) {
+            sharedBuffers.put(contentKey, new SharedBuffer(buffer));
+            usedBytes += buffer.capacity();
+        } else if (shared.buffer == buffer) {
+            shared.references++;
+            dedupHits.increment();
+        } else {
+            // 取得缓冲区后原共享缓冲区已被释放并由其他内容替代，作为独占缓冲区计数
+            usedBytes += buffer.capacity();
+        }
+    }
+
+    /**
+     * 解除条目对缓冲区的引用并扣减字节数，调用方需持有锁
+     */
+    private void unreference(CacheEntry entry) {
+        logicalBytes -= entry.buffer.capacity();
+        SharedBuffer shared = dedup ? sharedBuffers.get(entry.contentKey) : null;
+        if (shared == null || shared.buffer != entry.buffer) {
+            usedBytes -= entry.buffer.capacity();
+        } else if (--shared.references == 0) {
+            sharedBuffers.remove(entry.contentKey);
+            usedBytes -= entry.buffer.capacity();
+        }
+    }
+
+    /**
+     * 计算内容键：高32位为CRC32C，低32位为长度
+     */
+    private long contentKey(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return crc.getValue() << 32 | data.length;
+    }
+
+    /**
+     * 按配置在堆内或堆外分配缓冲区并复制内容
+     */
+    private ByteBuffer allocate(byte[] data) {
+        ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+        buffer.put(data).flip();
+        return buffer;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class CacheEntry {
+
+        private final ByteBuffer buffer;
+
+        /**
+         * 内容键，用于查找共享缓冲区
+         */
+        private final long contentKey;
+
+        /**
+         * 由预取加载且尚未被请求访问过，仅在持有锁时读写
+         */
+        private boolean prefetched;
+
+        private CacheEntry(ByteBuffer buffer, long contentKey, boolean prefetched) {
+            this.buffer = buffer;
+            this.contentKey = contentKey;
+            this.prefetched = prefetched;
+        }
+    }
+
+    /**
+     * 被多个条目共享的缓冲区
+     */
+    private static final class SharedBuffer {
+
+        private final ByteBuffer buffer;
+
+        /**
+         * 引用该缓冲区的条目数，仅在持有锁时读写
+         */
+        private int references = 1;
+
+        private SharedBuffer(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
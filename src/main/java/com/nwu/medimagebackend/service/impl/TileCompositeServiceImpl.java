@@ -0,0 +1,364 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.service.DynamicTileService;
+import com.nwu.medimagebackend.service.DziService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileCompositeService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.DziDescriptorReader;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import com.nwu.medimagebackend.utils.DziTileUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+/**
+ * 多切片瓦片合成服务实现类
+ * <p>
+ * 已生成DZI金字塔的切片通过{@link DziService#getDziFile(String)}读取，与单瓦片接口共享缓存和容器；
+ * 尚未生成金字塔的切片通过{@link DynamicTileService}从OME-TIFF读取。
+ * 各切片的瓦片在瓦片读取线程池中并行读取和解码，缺失的瓦片按白色背景处理。
+ * </p>
+ * <p>
+ * 合成结果的缓存键包含切片的最晚修改时间，切片重新生成后旧结果不再命中，由LRU自然淘汰。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileCompositeServiceImpl implements TileCompositeService {
+
+    /**
+     * 瓦片格式只允许字母和数字，防止通过扩展名拼接出其他路径
+     */
+    private static final Pattern FORMAT_PATTERN = Pattern.compile("[A-Za-z0-9]+");
+
+    private static final int BACKGROUND = 0xFFFFFF;
+
+    /**
+     * 单次合成的最大切片数
+     */
+    @Value("${tile.composite.max-slides:8}")
+    private int maxSlides;
+
+    /**
+     * 合成瓦片的JPEG压缩质量
+     */
+    @Value("${tile.composite.quality:0.85}")
+    private float quality;
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    @Autowired
+    private DziService dziService;
+
+    @Autowired
+    private DynamicTileService dynamicTileService;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    @Qualifier("tileIoExecutor")
+    private Executor tileIoExecutor;
+
+    /**
+     * 切片描述信息缓存，用于计算棋盘格在层级坐标系中的位置
+     */
+    private final Map<String, CachedDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    private Path baseDir;
+
+    @PostConstruct
+    public void init() {
+        baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBufferResource getCompositeTile(String folderName, List<String> slides, Mode mode, int cellSize,
+                                               int level, int col, int row, String format) throws IOException {
+        validate(folderName, slides, mode, cellSize, format);
+        if (level < 0 || col < 0 || row < 0) {
+            throw new IllegalArgumentException("非法的瓦片坐标: " + level + "/" + col + "_" + row);
+        }
+        long lastModified = getLastModified(folderName, slides);
+        if (lastModified <= 0) {
+            return null;
+        }
+        String fileName = col + "_" + row + "." + format;
+        String key = CACHE_PREFIX + folderName + "/" + mode.name().toLowerCase()
+                + (mode == Mode.CHECKERBOARD ? "-" + cellSize : "") + "/" + String.join(",", slides)
+                + "/" + Long.toHexString(lastModified) + "/" + level + "/" + fileName;
+        ByteBuffer cached = tileCacheService.get(key);
+        if (cached != null) {
+            return new ByteBufferResource(cached, fileName, lastModified);
+        }
+
+        // 并行读取并解码各切片的同一瓦片
+        List<CompletableFuture<BufferedImage>> futures = new ArrayList<>(slides.size());
+        for (String slide : slides) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readTile(folderName, slide, level, col, row, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, tileIoExecutor));
+        }
+        List<BufferedImage> tiles = new ArrayList<>(slides.size());
+        try {
+            for (CompletableFuture<BufferedImage> future : futures) {
+                tiles.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+        if (tiles.stream().allMatch(tile -> tile == null)) {
+            return null;
+        }
+
+        long[] origin = mode == Mode.CHECKERBOARD ? tileOrigin(folderName, slides.get(0), col, row) : new long[2];
+        BufferedImage composite = compose(tiles, mode, cellSize, origin);
+        byte[] content = DziTileUtils.encode(composite, format, quality);
+        ByteBuffer stored = tileCacheService.put(key, content);
+        return new ByteBufferResource(stored != null ? stored : ByteBuffer.wrap(content), fileName, lastModified);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastModified(String folderName, List<String> slides) throws IOException {
+        checkName(folderName);
+        long lastModified = 0;
+        for (String slide : slides) {
+            checkName(slide);
+            Path dziFile = baseDir.resolve(folderName).resolve(slide + ".dzi");
+            long modified = Files.isRegularFile(dziFile)
+                    ? Files.getLastModifiedTime(dziFile).toMillis()
+                    : dynamicTileService.getLastModified(folderName, slide);
+            lastModified = Math.max(lastModified, modified);
+        }
+        return lastModified;
+    }
+
+    /**
+     * 读取并解码单张切片的瓦片
+     *
+     * @return 瓦片图像，不存在时返回null
+     */
+    private BufferedImage readTile(String folderName, String slide, int level, int col, int row, String format)
+            throws IOException {
+        Resource resource;
+        if (Files.isRegularFile(baseDir.resolve(folderName).resolve(slide + ".dzi"))) {
+            try {
+                resource = dziService.getDziFile(new DziTilePath(folderName + "/" + slide, level, col, row, format)
+                        .toKey());
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                // 路径非法
+                return null;
+            }
+        } else {
+            resource = dynamicTileService.getTile(folderName, slide, level, col, row, format);
+        }
+        if (resource == null) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+
+    /**
+     * 按合成方式逐像素合成
+     *
+     * @param tiles 各切片的瓦片，缺失为null
+     * @param origin 瓦片左上角在层级坐标系中的位置，用于对齐棋盘格
+     */
+    private BufferedImage compose(List<BufferedImage> tiles, Mode mode, int cellSize, long[] origin) {
+        int width = 0;
+        int height = 0;
+        for (BufferedImage tile : tiles) {
+            if (tile != null) {
+                width = Math.max(width, tile.getWidth());
+                height = Math.max(height, tile.getHeight());
+            }
+        }
+        int[][] pixels = new int[tiles.size()][];
+        for (int i = 0; i < tiles.size(); i++) {
+            pixels[i] = toPixels(tiles.get(i), width, height);
+        }
+
+        int count = tiles.size();
+        int[] out = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            long cellY = (origin[1] + y) / cellSize;
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                switch (mode) {
+                    case CHECKERBOARD -> {
+                        long cellX = (origin[0] + x) / cellSize;
+                        out[index] = pixels[(int) ((cellX + cellY) % count)][index];
+                    }
+                    case CHANNELS -> {
+                        int rgb = 0;
+                        for (int i = 0; i < count; i++) {
+                            rgb |= (255 - luminance(pixels[i][index])) << (16 - 8 * i);
+                        }
+                        out[index] = rgb;
+                    }
+                    default -> {
+                        int r = 0;
+                        int g = 0;
+                        int b = 0;
+                        for (int[] p : pixels) {
+                            int rgb = p[index];
+                            r += (rgb >> 16) & 0xFF;
+                            g += (rgb >> 8) & 0xFF;
+                            b += rgb & 0xFF;
+                        }
+                        out[index] = (r / count) << 16 | (g / count) << 8 | (b / count);
+                    }
+                }
+            }
+        }
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        result.setRGB(0, 0, width, height, out, 0, width);
+        return result;
+    }
+
+    /**
+     * 将瓦片转换为指定尺寸的RGB像素数组，超出瓦片范围或瓦片缺失的部分填充背景色
+     */
+    private int[] toPixels(BufferedImage tile, int width, int height) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, BACKGROUND);
+        if (tile != null) {
+            int w = Math.min(width, tile.getWidth());
+            int h = Math.min(height, tile.getHeight());
+            tile.getRGB(0, 0, w, h, pixels, 0, width);
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] &= 0xFFFFFF;
+            }
+        }
+        return pixels;
+    }
+
+    private int luminance(int rgb) {
+        return (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+    }
+
+    /**
+     * 计算瓦片左上角（含重叠）在层级坐标系中的位置
+     */
+    private long[] tileOrigin(String folderName, String slide, int col, int row) throws IOException {
+        DziDescriptor dzi = getDescriptor(folderName, slide);
+        if (dzi == null) {
+            return new long[2];
+        }
+        int tileSize = dzi.getTileSize();
+        int overlap = dzi.getOverlap();
+        return new long[]{(long) col * tileSize - (col > 0 ? overlap : 0),
+                (long) row * tileSize - (row > 0 ? overlap : 0)};
+    }
+
+    /**
+     * 获取切片的描述信息，按修改时间缓存
+     */
+    private DziDescriptor getDescriptor(String folderName, String slide) throws IOException {
+        String key = folderName + "/" + slide;
+        long lastModified = getLastModified(folderName, List.of(slide));
+        CachedDescriptor cached = descriptors.get(key);
+        if (cached != null && cached.lastModified() == lastModified) {
+            return cached.descriptor();
+        }
+        Path dziFile = baseDir.resolve(folderName).resolve(slide + ".dzi");
+        DziDescriptor descriptor = Files.isRegularFile(dziFile)
+                ? DziDescriptorReader.read(dziFile)
+                : dynamicTileService.getDescriptor(folderName, slide);
+        if (descriptor != null) {
+            if (descriptors.size() >= 1024) {
+                descriptors.clear();
+            }
+            descriptors.put(key, new CachedDescriptor(lastModified, descriptor));
+        }
+        return descriptor;
+    }
+
+    /**
+     * 校验请求参数
+     */
+    private void validate(String folderName, List<String> slides, Mode mode, int cellSize, String format) {
+        checkName(folderName);
+        if (slides == null || slides.size() < 2) {
+            throw new IllegalArgumentException("至少需要2张切片参与合成");
+        }
+        if (slides.size() > maxSlides) {
+            throw new IllegalArgumentException("单次最多合成" + maxSlides + "张切片，实际: " + slides.size());
+        }
+        if (mode == Mode.CHANNELS && slides.size() > 3) {
+            throw new IllegalArgumentException("通道合成最多支持3张切片");
+        }
+        if (mode == Mode.CHECKERBOARD && cellSize <= 0) {
+            throw new IllegalArgumentException("棋盘格边长必须大于0");
+        }
+        if (format == null || !FORMAT_PATTERN.matcher(format).matches()) {
+            throw new IllegalArgumentException("不支持的瓦片格式: " + format);
+        }
+        slides.forEach(this::checkName);
+    }
+
+    /**
+     * 文件夹名和切片名不允许包含路径分隔符或以"."开头
+     */
+    private void checkName(String name) {
+        if (name == null || name.isEmpty() || name.startsWith(".")
+                || name.contains("/") || name.contains("\\")) {
+            throw new IllegalArgumentException("非法的名称: " + name);
+        }
+    }
+
+    /**
+     * 带修改时间的描述信息
+     */
+    private record CachedDescriptor(long lastModified, DziDescriptor descriptor) {
+    }
+}
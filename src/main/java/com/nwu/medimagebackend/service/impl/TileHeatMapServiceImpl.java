@@ -0,0 +1,437 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.TileHeatMapStats;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileHeatMapService;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 瓦片热度服务实现类
+ * <p>
+ * 请求路径上只对瓦片的访问计数器加一。后台线程按固定间隔将计数折算进热度：
+ * 热度 = 旧热度 × 衰减系数 + 本周期访问次数，衰减系数由半衰期换算，
+ * 热度过低的瓦片被移出热度表，表的规模受上限约束。
+ * 折算后热度表按金字塔分组写入上传目录下的隐藏文件，每个瓦片只保存层级、坐标和热度。
+ * </p>
+ * <p>
+ * 应用就绪后，后台线程按热度从高到低读入磁盘上的瓦片并登记校验信息，
+ * 用时、载入字节数或缓存使用率任一达到上限即停止。已打包为容器的瓦片由页缓存负责，不做预热。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileHeatMapServiceImpl implements TileHeatMapService {
+
+    /**
+     * 热度文件魔数
+     */
+    private static final int FILE_MAGIC = 0x48454154;
+
+    private static final int FILE_VERSION = 1;
+
+    private static final String FILES_MARKER = DziTilePath.FILES_SUFFIX + "/";
+
+    /**
+     * 是否启用热度记录
+     */
+    @Value("${tile.heatmap.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 热度文件路径，为空时使用DZI上传目录下的.tile-heatmap
+     */
+    @Value("${tile.heatmap.file:}")
+    private String heatMapFile;
+
+    /**
+     * 折算并写入热度文件的间隔（秒）
+     */
+    @Value("${tile.heatmap.persist-interval-seconds:300}")
+    private long persistIntervalSeconds;
+
+    /**
+     * 热度半衰期（小时）
+     */
+    @Value("${tile.heatmap.half-life-hours:24}")
+    private double halfLifeHours;
+
+    /**
+     * 热度表最多保留的瓦片数
+     */
+    @Value("${tile.heatmap.max-entries:200000}")
+    private int maxEntries;
+
+    /**
+     * 热度低于该值的瓦片被移出热度表
+     */
+    @Value("${tile.heatmap.min-score:0.05}")
+    private double minScore;
+
+    /**
+     * 是否在启动后预热瓦片缓存
+     */
+    @Value("${tile.heatmap.warmup.enabled:true}")
+    private boolean warmupEnabled;
+
+    /**
+     * 预热最长用时（秒）
+     */
+    @Value("${tile.heatmap.warmup.max-seconds:60}")
+    private long warmupMaxSeconds;
+
+    /**
+     * 预热最多载入的字节数
+     */
+    @Value("${tile.heatmap.warmup.max-bytes:268435456}")
+    private long warmupMaxBytes;
+
+    /**
+     * 缓存使用率达到该值后停止预热
+     */
+    @Value("${tile.heatmap.warmup.max-cache-usage:0.8}")
+    private double warmupMaxCacheUsage;
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    private TileValidatorService tileValidatorService;
+
+    private final Map<String, HeatEntry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder droppedAccesses = new LongAdder();
+
+    private Path baseDir;
+
+    private Path file;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Date lastPersistedTime;
+
+    private volatile String warmupStatus = "PENDING";
+
+    private volatile long warmupLoadedTiles;
+
+    private volatile long warmupLoadedBytes;
+
+    private volatile long warmupMillis;
+
+    private volatile String warmupStopReason;
+
+    /**
+     * 启动时读取热度文件并开始定期折算
+     */
+    @PostConstruct
+    public void init() {
+        baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        file = heatMapFile.isBlank() ? baseDir.resolve(".tile-heatmap") : Paths.get(heatMapFile).toAbsolutePath();
+        if (!enabled) {
+            warmupStatus = "SKIPPED";
+            return;
+        }
+        load();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "tile-heatmap");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::foldAndPersist, persistIntervalSeconds, persistIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * 应用就绪后在后台预热瓦片缓存
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled || !warmupEnabled || entries.isEmpty()) {
+            warmupStatus = "SKIPPED";
+            return;
+        }
+        scheduler.execute(this::warmup);
+    }
+
+    /**
+     * 应用关闭时折算并写入热度文件
+     */
+    @PreDestroy
+    public void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        foldAndPersist();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordAccess(String key) {
+        if (!enabled || key.lastIndexOf(FILES_MARKER) < 0) {
+            return;
+        }
+        HeatEntry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                droppedAccesses.increment();
+                return;
+            }
+            entry = entries.computeIfAbsent(key, k -> new HeatEntry());
+        }
+        entry.hits.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getHottestTiles(int limit) {
+        // 先取热度快照再排序，避免排序过程中计数变化破坏比较器的一致性
+        List<Map.Entry<String, Double>> snapshot = new ArrayList<>(entries.size());
+        for (Map.Entry<String, HeatEntry> e : entries.entrySet()) {
+            snapshot.add(Map.entry(e.getKey(), e.getValue().heat()));
+        }
+        snapshot.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return snapshot.stream()
+                .limit(Math.max(0, limit))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileHeatMapStats getStats() {
+        return new TileHeatMapStats(enabled, entries.size(), droppedAccesses.sum(), lastPersistedTime,
+                warmupStatus, warmupLoadedTiles, warmupLoadedBytes, warmupMillis, warmupStopReason);
+    }
+
+    /**
+     * 按热度从高到低将瓦片读入缓存
+     */
+    private void warmup() {
+        warmupStatus = "RUNNING";
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(warmupMaxSeconds);
+        long loadedTiles = 0;
+        long loadedBytes = 0;
+        String stopReason = "热度表中的瓦片已全部处理";
+        for (String key : getHottestTiles(entries.size())) {
+            if (Thread.currentThread().isInterrupted()) {
+                stopReason = "应用关闭";
+                break;
+            }
+            if (System.nanoTime() > deadline) {
+                stopReason = "达到时间上限";
+                break;
+            }
+            if (tileCacheService.getUsageRatio() >= warmupMaxCacheUsage) {
+                stopReason = "达到缓存使用率上限";
+                break;
+            }
+            if (tileCacheService.contains(key)) {
+                continue;
+            }
+            Path tileFile = baseDir.resolve(key).normalize();
+            try {
+                if (!tileFile.startsWith(baseDir) || !Files.isRegularFile(tileFile)) {
+                    continue;
+                }
+                long size = Files.size(tileFile);
+                if (!tileCacheService.isCacheable(size)) {
+                    continue;
+                }
+                if (loadedBytes + size > warmupMaxBytes) {
+                    stopReason = "达到字节上限";
+                    break;
+                }
+                byte[] content = Files.readAllBytes(tileFile);
+                tileValidatorService.register(key, ByteBuffer.wrap(content),
+                        Files.getLastModifiedTime(tileFile).toMillis());
+                if (tileCacheService.put(key, content) != null) {
+                    loadedTiles++;
+                    loadedBytes += content.length;
+                }
+            } catch (IOException e) {
+                log.debug("预热瓦片失败: {}, 错误: {}", key, e.getMessage());
+            }
+        }
+        warmupLoadedTiles = loadedTiles;
+        warmupLoadedBytes = loadedBytes;
+        warmupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        warmupStopReason = stopReason;
+        warmupStatus = "COMPLETED";
+        log.info("瓦片缓存预热完成: 瓦片数={}, 字节数={}, 耗时={}ms, 结束原因={}",
+                loadedTiles, loadedBytes, warmupMillis, stopReason);
+    }
+
+    /**
+     * 将本周期的访问计数折算进热度，淘汰过冷的瓦片并写入热度文件
+     */
+    private synchronized void foldAndPersist() {
+        try {
+            double decay = Math.pow(0.5, persistIntervalSeconds / (halfLifeHours * 3600.0));
+            entries.entrySet().removeIf(e -> e.getValue().fold(decay) < minScore);
+            if (entries.size() > maxEntries * 9L / 10) {
+                // 接近上限时只保留较热的部分，为新瓦片留出空间
+                List<String> hottest = getHottestTiles(maxEntries * 8 / 10);
+                entries.keySet().retainAll(new HashSet<>(hottest));
+            }
+            persist();
+        } catch (Exception e) {
+            log.warn("写入瓦片热度文件失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按金字塔和格式分组写入热度文件
+     */
+    private void persist() throws IOException {
+        Map<String, List<HeatSample>> groups = new HashMap<>();
+        for (Map.Entry<String, HeatEntry> e : entries.entrySet()) {
+            DziTilePath tile = DziTilePath.parse(e.getKey());
+            if (tile != null && tile.level() <= 0xFF) {
+                groups.computeIfAbsent(tile.pyramid() + "\n" + tile.format(), k -> new ArrayList<>())
+                        .add(new HeatSample(tile, e.getValue().score));
+            }
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(groups.size());
+            for (List<HeatSample> samples : groups.values()) {
+                DziTilePath first = samples.get(0).tile();
+                out.writeUTF(first.pyramid());
+                out.writeUTF(first.format());
+                out.writeInt(samples.size());
+                for (HeatSample sample : samples) {
+                    out.writeByte(sample.tile().level());
+                    out.writeInt(sample.tile().x());
+                    out.writeInt(sample.tile().y());
+                    out.writeFloat((float) sample.score());
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastPersistedTime = new Date();
+        log.debug("瓦片热度文件已写入: {}, 瓦片数={}", file, entries.size());
+    }
+
+    /**
+     * 读取热度文件
+     */
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                log.warn("瓦片热度文件格式不匹配，忽略: {}", file);
+                return;
+            }
+            int groupCount = in.readInt();
+            for (int g = 0; g < groupCount; g++) {
+                String pyramid = in.readUTF();
+                String format = in.readUTF();
+                int tileCount = in.readInt();
+                for (int t = 0; t < tileCount; t++) {
+                    int level = in.readUnsignedByte();
+                    int x = in.readInt();
+                    int y = in.readInt();
+                    float score = in.readFloat();
+                    if (entries.size() < maxEntries) {
+                        HeatEntry entry = new HeatEntry();
+                        entry.score = score;
+                        entries.put(new DziTilePath(pyramid, level, x, y, format).toKey(), entry);
+                    }
+                }
+            }
+            log.info("已读取瓦片热度文件: {}, 瓦片数={}", file, entries.size());
+        } catch (IOException e) {
+            log.warn("读取瓦片热度文件失败，从空热度表开始: {}", e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * 写入热度文件时的瓦片及其热度
+     */
+    private record HeatSample(DziTilePath tile, double score) {
+    }
+
+    /**
+     * 单个瓦片的热度
+     */
+    private static final class HeatEntry {
+
+        /**
+         * 本周期的访问次数
+         */
+        private final LongAdder hits = new LongAdder();
+
+        /**
+         * 截至上次折算的热度，仅由折算线程更新
+         */
+        private volatile double score;
+
+        private double heat() {
+            return score + hits.sum();
+        }
+
+        private double fold(double decay) {
+            score = score * decay + hits.sumThenReset();
+            return score;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.SlideRequestRate;
+import com.nwu.medimagebackend.entity.TileLatencyStats;
+import com.nwu.medimagebackend.entity.TileLevelMetrics;
+import com.nwu.medimagebackend.entity.TileMetricsSnapshot;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileMetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 瓦片服务指标实现类
+ * <p>
+ * 所有计数保存在预先分配的AtomicLongArray中，按[层级][维度][延迟桶]展开为一维下标；
+ * 延迟按微秒取2的幂分桶。层级直接从路径中的字符解析，不创建子串。
+ * 切片请求速率使用固定大小的开放寻址表，每个切片一个60秒的环形计数器，
+ * 只有首次出现的切片需要分配对象；长时间没有请求的切片槽位可被新切片复用。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileMetricsServiceImpl implements TileMetricsService {
+
+    private static final String FILES_SUFFIX = "_files/";
+
+    /**
+     * 层级行数：0到31层各一行，最后一行记录不属于任何层级的资源
+     */
+    private static final int LEVELS = 33;
+
+    private static final int OTHER_LEVEL = LEVELS - 1;
+
+    /**
+     * 延迟桶数，第b个桶（b大于0）覆盖[2^(b-1), 2^b)微秒
+     */
+    private static final int BUCKETS = 40;
+
+    private static final String[] STATUS_NAMES = {"2xx", "304", "4xx", "5xx"};
+
+    private static final int STATUSES = STATUS_NAMES.length;
+
+    private static final int LOOKUPS = Lookup.values().length;
+
+    /**
+     * 速率统计窗口（秒）
+     */
+    private static final int WINDOW_SECONDS = 60;
+
+    /**
+     * 切片表槽位数（2的幂）
+     */
+    private static final int SLIDE_SLOTS = 1024;
+
+    /**
+     * 查找切片时的最大探测次数
+     */
+    private static final int SLIDE_PROBES = 16;
+
+    /**
+     * 超过该时间没有请求的切片槽位可被复用（秒）
+     */
+    private static final long SLIDE_STALE_SECONDS = 600;
+
+    /**
+     * 是否启用指标记录
+     */
+    @Value("${tile.metrics.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    private final AtomicLongArray requestHistogram = new AtomicLongArray(LEVELS * STATUSES * BUCKETS);
+
+    private final AtomicLongArray requestMicros = new AtomicLongArray(LEVELS * STATUSES);
+
+    private final AtomicLongArray lookupHistogram = new AtomicLongArray(LEVELS * LOOKUPS * BUCKETS);
+
+    private final AtomicLongArray lookupMicros = new AtomicLongArray(LEVELS * LOOKUPS);
+
+    private final AtomicLongArray bytesByLevel = new AtomicLongArray(LEVELS);
+
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private final LongAdder totalRequests = new LongAdder();
+
+    private final LongAdder bytesServed = new LongAdder();
+
+    /**
+     * 切片表已满时未能计入的请求数
+     */
+    private final LongAdder untrackedSlideRequests = new LongAdder();
+
+    private final AtomicReferenceArray<SlideCounter> slides = new AtomicReferenceArray<>(SLIDE_SLOTS);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void requestStarted() {
+        if (enabled) {
+            inFlight.incrementAndGet();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordRequest(String key, int status, long bytes, long elapsedNanos) {
+        if (!enabled) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        totalRequests.increment();
+        int level = levelOf(key);
+        int row = level * STATUSES + statusIndex(status);
+        long micros = elapsedNanos / 1000;
+        requestHistogram.incrementAndGet(row * BUCKETS + bucketOf(micros));
+        requestMicros.addAndGet(row, micros);
+        if (bytes > 0) {
+            bytesByLevel.addAndGet(level, bytes);
+            bytesServed.add(bytes);
+        }
+        if (key != null) {
+            recordSlide(key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordLookup(String key, Lookup lookup, long elapsedNanos) {
+        if (!enabled) {
+            return;
+        }
+        int row = levelOf(key) * LOOKUPS + lookup.ordinal();
+        long micros = elapsedNanos / 1000;
+        lookupHistogram.incrementAndGet(row * BUCKETS + bucketOf(micros));
+        lookupMicros.addAndGet(row, micros);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileMetricsSnapshot snapshot(int topSlides) {
+        List<TileLevelMetrics> levels = new ArrayList<>();
+        for (int level = 0; level < LEVELS; level++) {
+            Map<String, TileLatencyStats> byStatus = new LinkedHashMap<>();
+            long requests = 0;
+            for (int status = 0; status < STATUSES; status++) {
+                int row = level * STATUSES + status;
+                TileLatencyStats stats = toStats(requestHistogram, row, requestMicros.get(row));
+                if (stats != null) {
+                    byStatus.put(STATUS_NAMES[status], stats);
+                    requests += stats.getCount();
+                }
+            }
+            Map<String, TileLatencyStats> byLookup = new LinkedHashMap<>();
+            for (Lookup lookup : Lookup.values()) {
+                int row = level * LOOKUPS + lookup.ordinal();
+                TileLatencyStats stats = toStats(lookupHistogram, row, lookupMicros.get(row));
+                if (stats != null) {
+                    byLookup.put(lookup.name(), stats);
+                }
+            }
+            if (requests > 0 || !byLookup.isEmpty()) {
+                levels.add(new TileLevelMetrics(level == OTHER_LEVEL ? -1 : level, requests,
+                        bytesByLevel.get(level), byStatus, byLookup));
+            }
+        }
+
+        return new TileMetricsSnapshot(enabled, inFlight.get(), totalRequests.sum(), bytesServed.sum(),
+                levels, topSlides(topSlides), tileCacheService.getStats());
+    }
+
+    /**
+     * 由直方图的一行计算延迟统计
+     *
+     * @return 延迟统计，没有样本时返回null
+     */
+    private TileLatencyStats toStats(AtomicLongArray histogram, int row, long totalMicros) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = histogram.get(row * BUCKETS + b);
+            count += counts[b];
+        }
+        if (count == 0) {
+            return null;
+        }
+        long max = 0;
+        for (int b = BUCKETS - 1; b >= 0; b--) {
+            if (counts[b] > 0) {
+                max = upperBound(b);
+                break;
+            }
+        }
+        return new TileLatencyStats(count, totalMicros / count, percentile(counts, count, 0.50),
+                percentile(counts, count, 0.90), percentile(counts, count, 0.99), max);
+    }
+
+    private long percentile(long[] counts, long total, double quantile) {
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= target) {
+                return upperBound(b);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private long upperBound(int bucket) {
+        return bucket == 0 ? 0 : 1L << bucket;
+    }
+
+    /**
+     * 汇总最近60秒的切片请求数并取前N个
+     */
+    private List<SlideRequestRate> topSlides(int limit) {
+        long now = currentSecond();
+        Map<String, Long> totals = new HashMap<>();
+        for (int i = 0; i < SLIDE_SLOTS; i++) {
+            SlideCounter counter = slides.get(i);
+            if (counter == null) {
+                continue;
+            }
+            long sum = counter.sum(now);
+            if (sum > 0) {
+                // 槽位复用时同一切片可能短暂占用两个槽位
+                totals.merge(counter.name, sum, Long::sum);
+            }
+        }
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(Math.max(0, limit))
+                .map(e -> new SlideRequestRate(e.getKey(), e.getValue(), (double) e.getValue() / WINDOW_SECONDS))
+                .toList();
+    }
+
+    /**
+     * 记录切片的一次请求
+     */
+    private void recordSlide(String key) {
+        int end = key.lastIndexOf(FILES_SUFFIX);
+        if (end <= 0) {
+            return;
+        }
+        int hash = 0;
+        for (int i = 0; i < end; i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        long now = currentSecond();
+        int slot = (hash ^ (hash >>> 16)) & (SLIDE_SLOTS - 1);
+        int reusable = -1;
+        for (int probe = 0; probe < SLIDE_PROBES; probe++) {
+            int index = (slot + probe) & (SLIDE_SLOTS - 1);
+            SlideCounter counter = slides.get(index);
+            if (counter == null) {
+                counter = claim(index, null, key, end, hash);
+                if (counter != null) {
+                    counter.hit(now);
+                    return;
+                }
+                counter = slides.get(index);
+            }
+            if (counter.matches(key, end, hash)) {
+                counter.hit(now);
+                return;
+            }
+            if (reusable < 0 && now - counter.lastSecond > SLIDE_STALE_SECONDS) {
+                reusable = index;
+            }
+        }
+        if (reusable >= 0) {
+            SlideCounter counter = claim(reusable, slides.get(reusable), key, end, hash);
+            if (counter != null) {
+                counter.hit(now);
+                return;
+            }
+        }
+        untrackedSlideRequests.increment();
+    }
+
+    /**
+     * 以CAS占用槽位，失败时返回null
+     */
+    private SlideCounter claim(int index, SlideCounter expected, String key, int end, int hash) {
+        SlideCounter counter = new SlideCounter(key.substring(0, end), hash);
+        if (slides.compareAndSet(index, expected, counter)) {
+            return counter;
+        }
+        SlideCounter current = slides.get(index);
+        return current != null && current.matches(key, end, hash) ? current : null;
+    }
+
+    /**
+     * 从路径中解析金字塔层级
+     *
+     * @return 层级，不是瓦片路径或层级超出范围时返回OTHER_LEVEL
+     */
+    private int levelOf(String key) {
+        if (key == null) {
+            return OTHER_LEVEL;
+        }
+        int start = key.lastIndexOf(FILES_SUFFIX);
+        if (start < 0) {
+            return OTHER_LEVEL;
+        }
+        int level = 0;
+        int i = start + FILES_SUFFIX.length();
+        int digitsStart = i;
+        for (; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '/') {
+                break;
+            }
+            if (c < '0' || c > '9') {
+                return OTHER_LEVEL;
+            }
+            level = level * 10 + (c - '0');
+            if (level >= OTHER_LEVEL) {
+                return OTHER_LEVEL;
+            }
+        }
+        return i > digitsStart && i < key.length() ? level : OTHER_LEVEL;
+    }
+
+    private int statusIndex(int status) {
+        if (status == 304) {
+            return 1;
+        }
+        if (status >= 500) {
+            return 3;
+        }
+        if (status >= 400) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private int bucketOf(long micros) {
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * 单个切片的60秒环形请求计数器
+     */
+    private static final class SlideCounter {
+
+        private final String name;
+
+        private final int hash;
+
+        /**
+         * 每个槽位对应的秒
+         */
+        private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS);
+
+        /**
+         * 每个槽位在对应秒内的请求数
+         */
+        private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+
+        private volatile long lastSecond;
+
+        private SlideCounter(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        private boolean matches(String key, int end, int keyHash) {
+            return hash == keyHash && name.length() == end && key.regionMatches(0, name, 0, end);
+        }
+
+        private void hit(long second) {
+            int slot = (int) (second % WINDOW_SECONDS);
+            long stamp = seconds.get(slot);
+            if (stamp != second && seconds.compareAndSet(slot, stamp, second)) {
+                // 进入新的一秒时清零，并发时可能丢失极少量计数
+                counts.set(slot, 0);
+            }
+            counts.incrementAndGet(slot);
+            if (lastSecond != second) {
+                lastSecond = second;
+            }
+        }
+
+        private long sum(long now) {
+            long sum = 0;
+            for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+                if (now - seconds.get(slot) < WINDOW_SECONDS) {
+                    sum += counts.get(slot);
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.service.TileNegativeCacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 瓦片不存在结果缓存服务实现类
+ * <p>
+ * 使用按访问顺序排列的LinkedHashMap保存路径及其过期时间，条目数超过上限时淘汰最久未访问的条目。
+ * 存活时间用于兜底：通过文件系统直接放入的瓦片即使没有触发失效，也会在过期后被重新查找。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+public class TileNegativeCacheServiceImpl implements TileNegativeCacheService {
+
+    /**
+     * 是否启用
+     */
+    @Value("${tile.negative-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最大条目数
+     */
+    @Value("${tile.negative-cache.max-entries:50000}")
+    private int maxEntries;
+
+    /**
+     * 条目存活时间（毫秒）
+     */
+    @Value("${tile.negative-cache.ttl-millis:60000}")
+    private long ttlMillis;
+
+    /**
+     * 路径到过期时间的映射
+     */
+    private final LinkedHashMap<String, Long> missing = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMissing(String key) {
+        if (!enabled) {
+            return false;
+        }
+        lock.lock();
+        try {
+            Long expiresAt = missing.get(key);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt < System.currentTimeMillis()) {
+                missing.remove(key);
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markMissing(String key) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            missing.put(key, System.currentTimeMillis() + ttlMillis);
+            Iterator<Long> it = missing.values().iterator();
+            while (missing.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidatePrefix(String prefix) {
+        lock.lock();
+        try {
+            missing.keySet().removeIf(key -> key.startsWith(prefix));
+        } finally {
+            lock.unlock();
+        }
+    }
+}
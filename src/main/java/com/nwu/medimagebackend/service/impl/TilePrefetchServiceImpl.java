@@ -0,0 +1,186 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.TileCacheStats;
+import com.nwu.medimagebackend.entity.TilePrefetchStats;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TilePrefetchService;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 瓦片预取服务实现类
+ * <p>
+ * 每次瓦片请求提交一个预取任务，任务依次检查候选瓦片：已在缓存中的跳过，
+ * 磁盘上存在且大小可缓存的读入缓存并标记为预取。
+ * 缓存接近占满、且尚未被访问的预取内容已占用一定比例时视为处于压力下，此时不再预取，
+ * 避免预取内容把用户真正访问的瓦片挤出缓存；缓存未满时预取不受限制。
+ * 已打包为容器的瓦片由页缓存负责，不做预取。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TilePrefetchServiceImpl implements TilePrefetchService {
+
+    /**
+     * 是否启用瓦片预取
+     */
+    @Value("${tile.prefetch.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 缓存使用率达到该值后视为接近占满
+     */
+    @Value("${tile.prefetch.max-cache-usage:0.9}")
+    private double maxCacheUsage;
+
+    /**
+     * 缓存接近占满时，未被访问的预取内容允许占用的字节预算比例
+     */
+    @Value("${tile.prefetch.max-pending-share:0.1}")
+    private double maxPendingShare;
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    @Qualifier("tilePrefetchExecutor")
+    private Executor tilePrefetchExecutor;
+
+    /**
+     * 已提交但尚未执行完的预取任务对应的瓦片，避免同一瓦片被连续请求时重复提交
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder skippedUnderPressure = new LongAdder();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onTileRequested(String key) {
+        if (!enabled) {
+            return;
+        }
+        DziTilePath tile = DziTilePath.parse(key);
+        if (tile == null) {
+            return;
+        }
+        if (isUnderPressure()) {
+            skippedUnderPressure.increment();
+            return;
+        }
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            tilePrefetchExecutor.execute(() -> {
+                try {
+                    prefetch(tile);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+            scheduled.increment();
+        } catch (TaskRejectedException e) {
+            pending.remove(key);
+            dropped.increment();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TilePrefetchStats getStats() {
+        TileCacheStats cacheStats = tileCacheService.getStats();
+        long hits = cacheStats.getPrefetchHits();
+        long wasted = cacheStats.getPrefetchWasted();
+        double hitRate = hits + wasted > 0 ? (double) hits / (hits + wasted) : 0.0;
+        return new TilePrefetchStats(enabled, scheduled.sum(), dropped.sum(), skippedUnderPressure.sum(),
+                cacheStats.getPrefetchLoads(), hits, wasted, hitRate);
+    }
+
+    /**
+     * 预取指定瓦片的相邻瓦片和下一层子瓦片
+     *
+     * @param tile 被请求的瓦片
+     */
+    private void prefetch(DziTilePath tile) {
+        Path baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+        for (DziTilePath candidate : candidates(tile)) {
+            if (isUnderPressure()) {
+                skippedUnderPressure.increment();
+                return;
+            }
+            String key = candidate.toKey();
+            if (tileCacheService.contains(key)) {
+                continue;
+            }
+            Path file = baseDir.resolve(key);
+            try {
+                if (Files.isRegularFile(file) && tileCacheService.isCacheable(Files.size(file))) {
+                    tileCacheService.putPrefetched(key, Files.readAllBytes(file));
+                }
+            } catch (IOException e) {
+                log.debug("预取瓦片失败: {}, 错误: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 生成候选瓦片：下一层的4个子瓦片优先，其次为同层的8个相邻瓦片
+     */
+    private List<DziTilePath> candidates(DziTilePath tile) {
+        List<DziTilePath> result = new ArrayList<>(12);
+        int childLevel = tile.level() + 1;
+        for (int dy = 0; dy <= 1; dy++) {
+            for (int dx = 0; dx <= 1; dx++) {
+                result.add(tile.at(childLevel, tile.x() * 2 + dx, tile.y() * 2 + dy));
+            }
+        }
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = tile.x() + dx;
+                int y = tile.y() + dy;
+                if ((dx != 0 || dy != 0) && x >= 0 && y >= 0) {
+                    result.add(tile.at(tile.level(), x, y));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断缓存是否处于压力下
+     */
+    private boolean isUnderPressure() {
+        return tileCacheService.getUsageRatio() >= maxCacheUsage
+                && tileCacheService.getPrefetchedRatio() >= maxPendingShare;
+    }
+}
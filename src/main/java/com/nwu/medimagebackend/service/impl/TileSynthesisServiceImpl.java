@@ -0,0 +1,224 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import com.nwu.medimagebackend.service.DziCatalogService;
+import com.nwu.medimagebackend.service.PyramidPackService;
+import com.nwu.medimagebackend.service.TileCacheService;
+import com.nwu.medimagebackend.service.TileSynthesisService;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import com.nwu.medimagebackend.utils.ByteBufferResource;
+import com.nwu.medimagebackend.utils.DziTilePath;
+import com.nwu.medimagebackend.utils.DziTileUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 瓦片合成服务实现类
+ * <p>
+ * 子瓦片依次从瓦片缓存、磁盘文件和金字塔容器读取，都不存在时递归合成，
+ * 递归深度受tile.synthesis.max-depth限制，避免在层级缺失过多的金字塔上为一个瓦片读取整张切片。
+ * 中间层级的合成结果同样写入缓存，相邻瓦片可以复用。
+ * 同一瓦片的并发请求只合成一次。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileSynthesisServiceImpl implements TileSynthesisService {
+
+    /**
+     * DZI上传目录路径
+     */
+    @Value("${uploads.dzi.dir:./uploads/dzi/}")
+    private String dziUploadDir;
+
+    /**
+     * 是否启用
+     */
+    @Value("${tile.synthesis.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 最大递归深度，即相对于磁盘上最近的已保存层级最多缺失的层数
+     */
+    @Value("${tile.synthesis.max-depth:3}")
+    private int maxDepth;
+
+    /**
+     * JPEG压缩质量
+     */
+    @Value("${tile.synthesis.quality:0.85}")
+    private float quality;
+
+    @Autowired
+    private DziCatalogService dziCatalogService;
+
+    @Autowired
+    private PyramidPackService pyramidPackService;
+
+    @Autowired
+    private TileCacheService tileCacheService;
+
+    @Autowired
+    private TileValidatorService tileValidatorService;
+
+    private Path baseDir;
+
+    /**
+     * 正在合成的瓦片
+     */
+    private final Map<String, CompletableFuture<ByteBuffer>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        baseDir = Paths.get(dziUploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer synthesize(DziTilePath tile) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        int slash = tile.pyramid().lastIndexOf('/');
+        if (slash <= 0) {
+            return null;
+        }
+        String folderName = tile.pyramid().substring(0, slash);
+        String dziFileName = tile.pyramid().substring(slash + 1) + ".dzi";
+        DziDescriptor dzi = dziCatalogService.getDescriptor(folderName, dziFileName);
+        if (dzi == null || !dzi.getFormat().equalsIgnoreCase(tile.format())) {
+            return null;
+        }
+        Path dziFile = baseDir.resolve(folderName).resolve(dziFileName);
+        if (!Files.isRegularFile(dziFile)) {
+            return null;
+        }
+        long lastModified = Files.getLastModifiedTime(dziFile).toMillis();
+        return synthesize(tile, dzi, lastModified, 1);
+    }
+
+    /**
+     * 合成瓦片，同一瓦片的并发请求等待同一次合成
+     *
+     * @param depth 当前递归深度，从1开始
+     */
+    private ByteBuffer synthesize(DziTilePath tile, DziDescriptor dzi, long lastModified, int depth)
+            throws IOException {
+        int maxLevel = dzi.getLevelCount() - 1;
+        if (depth > maxDepth || tile.level() >= maxLevel) {
+            return null;
+        }
+        long levelWidth = DziTileUtils.levelDimension(dzi.getWidth(), maxLevel, tile.level());
+        long levelHeight = DziTileUtils.levelDimension(dzi.getHeight(), maxLevel, tile.level());
+        long[] bounds = DziTileUtils.tileBounds(levelWidth, levelHeight, dzi.getTileSize(), dzi.getOverlap(),
+                tile.x(), tile.y());
+        if (bounds == null) {
+            return null;
+        }
+
+        String key = tile.toKey();
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+        }
+
+        try {
+            // 其他请求可能刚刚完成合成并写入缓存
+            ByteBuffer cached = tileCacheService.get(key);
+            if (cached != null) {
+                future.complete(cached);
+                return cached;
+            }
+
+            long start = System.nanoTime();
+            int childLevel = tile.level() + 1;
+            boolean[] found = new boolean[1];
+            BufferedImage image = DziTileUtils.composeFromChildren((level, col, row) -> {
+                BufferedImage child = decode(readTile(tile.at(level, col, row), dzi, lastModified, depth));
+                found[0] |= child != null;
+                return child;
+            }, childLevel, bounds,
+                    DziTileUtils.levelDimension(dzi.getWidth(), maxLevel, childLevel),
+                    DziTileUtils.levelDimension(dzi.getHeight(), maxLevel, childLevel),
+                    dzi.getTileSize(), dzi.getOverlap());
+            if (!found[0]) {
+                future.complete(null);
+                return null;
+            }
+
+            byte[] encoded = DziTileUtils.encode(image, tile.format(), quality);
+            tileValidatorService.register(key, ByteBuffer.wrap(encoded), lastModified);
+            ByteBuffer buffer = tileCacheService.put(key, encoded);
+            if (buffer == null) {
+                buffer = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+            }
+            log.debug("已由子瓦片合成: {}, 深度={}, 耗时={}μs", key, depth, (System.nanoTime() - start) / 1000);
+            future.complete(buffer);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * 依次从瓦片缓存、磁盘文件和金字塔容器读取子瓦片，都不存在时递归合成
+     */
+    private ByteBuffer readTile(DziTilePath tile, DziDescriptor dzi, long lastModified, int depth)
+            throws IOException {
+        String key = tile.toKey();
+        ByteBuffer cached = tileCacheService.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Path file = baseDir.resolve(key);
+        if (Files.isRegularFile(file)) {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        }
+        Resource packed = pyramidPackService.readPackedTile(key);
+        if (packed != null) {
+            return ((ByteBufferResource) packed).getByteBuffer();
+        }
+        return synthesize(tile, dzi, lastModified, depth + 1);
+    }
+
+    /**
+     * 解码瓦片内容
+     */
+    private BufferedImage decode(ByteBuffer content) throws IOException {
+        if (content == null) {
+            return null;
+        }
+        try (InputStream in = new ByteBufferResource(content, "tile").getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.nwu.medimagebackend.service.impl;
+
+import com.nwu.medimagebackend.entity.TileValidator;
+import com.nwu.medimagebackend.service.TileValidatorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 瓦片校验信息索引服务实现类
+ * <p>
+ * 使用按访问顺序排列的LinkedHashMap保存校验信息，条目数超过上限时淘汰最久未访问的条目，
+ * 被淘汰的资源在下次访问时重新计算ETag。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Service
+@Slf4j
+public class TileValidatorServiceImpl implements TileValidatorService {
+
+    /**
+     * 索引的最大条目数
+     */
+    @Value("${tile.etag.max-entries:200000}")
+    private int maxEntries;
+
+    private final LinkedHashMap<String, TileValidator> validators = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileValidator get(String key) {
+        lock.lock();
+        try {
+            return validators.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileValidator register(String key, ByteBuffer content, long lastModified) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(content.duplicate());
+            return store(key, new TileValidator(HexFormat.of().formatHex(digest.digest()), lastModified));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5算法不可用", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TileValidator register(String key, Path file) throws IOException {
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        try (InputStream in = Files.newInputStream(file)) {
+            return store(key, new TileValidator(DigestUtils.md5DigestAsHex(in), lastModified));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidatePrefix(String prefix) {
+        lock.lock();
+        try {
+            validators.keySet().removeIf(key -> key.startsWith(prefix));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入索引并在超出上限时淘汰最久未访问的条目
+     *
+     * @param key DZI相对路径
+     * @param validator 校验信息
+     * @return 写入的校验信息
+     */
+    private TileValidator store(String key, TileValidator validator) {
+        lock.lock();
+        try {
+            validators.put(key, validator);
+            Iterator<TileValidator> it = validators.values().iterator();
+            while (validators.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return validator;
+    }
+}
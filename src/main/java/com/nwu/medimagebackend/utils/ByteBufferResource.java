@@ -0,0 +1,104 @@
+package com.nwu.medimagebackend.utils;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于ByteBuffer的只读资源
+ * <p>
+ * 用于将内存（包括堆外内存）中的瓦片内容作为Spring Resource返回，
+ * 每次获取输入流时都基于独立的视图读取，互不影响读取位置。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer buffer;
+
+    private final String filename;
+
+    private final long lastModified;
+
+    /**
+     * @param buffer 资源内容，position到limit之间的字节为有效内容
+     * @param filename 文件名，用于推断Content-Type
+     */
+    public ByteBufferResource(ByteBuffer buffer, String filename) {
+        this(buffer, filename, 0L);
+    }
+
+    /**
+     * @param buffer 资源内容，position到limit之间的字节为有效内容
+     * @param filename 文件名，用于推断Content-Type
+     * @param lastModified 内容的最后修改时间（毫秒时间戳），未知时为0
+     */
+    public ByteBufferResource(ByteBuffer buffer, String filename, long lastModified) {
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.filename = filename;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 获取资源内容的只读视图
+     *
+     * @return 独立读取位置的只读ByteBuffer
+     */
+    public ByteBuffer getByteBuffer() {
+        return buffer.duplicate();
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        ByteBuffer view = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? (view.get() & 0xFF) : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, view.remaining());
+                view.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        };
+    }
+
+    @Override
+    public String getDescription() {
+        return "ByteBuffer resource [" + filename + "]";
+    }
+}
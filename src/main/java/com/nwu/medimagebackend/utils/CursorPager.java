@@ -0,0 +1,146 @@
+package com.nwu.medimagebackend.utils;
+
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.FileEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 游标分页器
+ * <p>
+ * 逐个接收条目，只保留排在游标之后的前limit+1个条目（大顶堆），
+ * 内存占用只与每页大小有关，与目录中的条目总数无关。
+ * 按名称排序时以名称为键；按修改时间排序时以（修改时间, 名称）为键，保证顺序稳定。
+ * 游标为排序方式和上一页最后一个条目排序键的Base64编码。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class CursorPager {
+
+    /**
+     * 每页条目数上限
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Comparator<FileEntry> BY_NAME = Comparator.comparing(FileEntry::getName);
+
+    private static final Comparator<FileEntry> BY_MTIME =
+            Comparator.comparingLong(FileEntry::getLastModified).thenComparing(FileEntry::getName);
+
+    private final String sortSpec;
+
+    private final Comparator<FileEntry> comparator;
+
+    private final FileEntry after;
+
+    private final String prefix;
+
+    private final int limit;
+
+    /**
+     * 排序最靠后的条目位于堆顶
+     */
+    private final PriorityQueue<FileEntry> heap;
+
+    /**
+     * @param query 分页参数
+     * @throws IllegalArgumentException 如果排序参数或游标不合法
+     */
+    public CursorPager(PageQuery query) {
+        boolean byMtime;
+        if ("mtime".equalsIgnoreCase(query.getSort())) {
+            byMtime = true;
+        } else if (query.getSort() == null || "name".equalsIgnoreCase(query.getSort())) {
+            byMtime = false;
+        } else {
+            throw new IllegalArgumentException("不支持的排序字段: " + query.getSort());
+        }
+        boolean descending;
+        if ("desc".equalsIgnoreCase(query.getOrder())) {
+            descending = true;
+        } else if (query.getOrder() == null || "asc".equalsIgnoreCase(query.getOrder())) {
+            descending = false;
+        } else {
+            throw new IllegalArgumentException("不支持的排序方向: " + query.getOrder());
+        }
+
+        Comparator<FileEntry> base = byMtime ? BY_MTIME : BY_NAME;
+        this.comparator = descending ? base.reversed() : base;
+        this.sortSpec = (byMtime ? "mtime" : "name") + (descending ? ".desc" : ".asc");
+        this.after = decodeCursor(query.getCursor());
+        this.prefix = query.getPrefix() == null ? "" : query.getPrefix();
+        this.limit = Math.max(1, Math.min(query.getLimit(), MAX_LIMIT));
+        this.heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+    }
+
+    /**
+     * 提交一个条目，不满足前缀或位于游标之前的条目被忽略
+     *
+     * @param entry 条目
+     */
+    public void offer(FileEntry entry) {
+        if (!entry.getName().startsWith(prefix)) {
+            return;
+        }
+        if (after != null && comparator.compare(entry, after) <= 0) {
+            return;
+        }
+        if (heap.size() <= limit) {
+            heap.add(entry);
+        } else if (comparator.compare(entry, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    /**
+     * 生成当前页
+     *
+     * @return 分页结果
+     */
+    public CursorPage<FileEntry> finish() {
+        List<FileEntry> items = new ArrayList<>(heap);
+        items.sort(comparator);
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
+        }
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(Collections.unmodifiableList(items), nextCursor, hasMore);
+    }
+
+    /**
+     * 将条目的排序键编码为游标
+     */
+    private String encodeCursor(FileEntry last) {
+        String raw = sortSpec + "\n" + last.getLastModified() + "\n" + last.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，并校验游标与当前排序方式一致
+     */
+    private FileEntry decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 3);
+            if (parts.length != 3 || !parts[0].equals(sortSpec)) {
+                throw new IllegalArgumentException("游标与排序方式不匹配");
+            }
+            return new FileEntry(parts[2], false, 0, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("非法的分页游标: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.nwu.medimagebackend.utils;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * DZI描述文件读取工具类
+ * <p>
+ * 解析.dzi文件中的图像尺寸、瓦片大小、重叠和格式，并按Deep Zoom规则计算金字塔层数。
+ * 解析时禁用DTD和外部实体。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class DziDescriptorReader {
+
+    /**
+     * 读取DZI描述文件
+     *
+     * @param file .dzi文件路径
+     * @return 描述文件信息
+     * @throws IOException 如果文件无法读取或格式不正确
+     */
+    public static DziDescriptor read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document document = builder.parse(in);
+
+            Element image = document.getDocumentElement();
+            NodeList sizes = image.getElementsByTagNameNS("*", "Size");
+            if (sizes.getLength() == 0) {
+                throw new IOException("DZI描述文件缺少Size元素: " + file);
+            }
+            Element size = (Element) sizes.item(0);
+
+            long width = Long.parseLong(size.getAttribute("Width"));
+            long height = Long.parseLong(size.getAttribute("Height"));
+            int tileSize = Integer.parseInt(image.getAttribute("TileSize"));
+            int overlap = Integer.parseInt(image.getAttribute("Overlap"));
+            String format = image.getAttribute("Format");
+            return new DziDescriptor(width, height, tileSize, overlap, format, levelCount(width, height));
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("无法解析DZI描述文件: " + file + ", 错误: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算金字塔层数：最高层为原图，逐层减半直到1x1
+     *
+     * @param width 原始图像宽度
+     * @param height 原始图像高度
+     * @return 层数
+     */
+    public static int levelCount(long width, long height) {
+        long maxDimension = Math.max(1, Math.max(width, height));
+        return 64 - Long.numberOfLeadingZeros(maxDimension - 1) + 1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.nwu.medimagebackend.utils;
+
+import com.nwu.medimagebackend.entity.DziDescriptor;
+
+/**
+ * DZI描述文件生成工具类
+ *
+ * @author MedImage团队
+ */
+public class DziDescriptorWriter {
+
+    /**
+     * 生成DZI描述文件的XML内容
+     *
+     * @param descriptor 描述文件信息
+     * @return XML内容
+     */
+    public static String toXml(DziDescriptor descriptor) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\""
+                + " Format=\"" + descriptor.getFormat() + "\""
+                + " Overlap=\"" + descriptor.getOverlap() + "\""
+                + " TileSize=\"" + descriptor.getTileSize() + "\">\n"
+                + "  <Size Width=\"" + descriptor.getWidth() + "\" Height=\"" + descriptor.getHeight() + "\"/>\n"
+                + "</Image>\n";
+    }
+}
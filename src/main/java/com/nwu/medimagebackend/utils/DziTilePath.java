@@ -0,0 +1,75 @@
+package com.nwu.medimagebackend.utils;
+
+/**
+ * DZI瓦片路径
+ * <p>
+ * 表示形如 folder/name_files/level/x_y.format 的瓦片相对路径，
+ * pyramid为去掉_files后缀的金字塔路径（folder/name）。
+ * </p>
+ *
+ * @param pyramid 金字塔路径，不含_files后缀
+ * @param level 金字塔层级
+ * @param x 列号
+ * @param y 行号
+ * @param format 瓦片格式（扩展名）
+ * @author MedImage团队
+ */
+public record DziTilePath(String pyramid, int level, int x, int y, String format) {
+
+    /**
+     * 瓦片目录后缀
+     */
+    public static final String FILES_SUFFIX = "_files";
+
+    /**
+     * 解析瓦片相对路径
+     *
+     * @param key 使用"/"分隔的相对路径
+     * @return 瓦片路径，不是瓦片路径时返回null
+     */
+    public static DziTilePath parse(String key) {
+        int nameStart = key.lastIndexOf('/');
+        int levelStart = nameStart > 0 ? key.lastIndexOf('/', nameStart - 1) : -1;
+        if (levelStart <= FILES_SUFFIX.length() || !key.startsWith(FILES_SUFFIX, levelStart - FILES_SUFFIX.length())) {
+            return null;
+        }
+        int separator = key.indexOf('_', nameStart + 1);
+        int dot = key.indexOf('.', nameStart + 1);
+        if (separator < 0 || dot < separator) {
+            return null;
+        }
+        try {
+            int level = Integer.parseInt(key, levelStart + 1, nameStart, 10);
+            int x = Integer.parseInt(key, nameStart + 1, separator, 10);
+            int y = Integer.parseInt(key, separator + 1, dot, 10);
+            if (level < 0 || x < 0 || y < 0) {
+                return null;
+            }
+            return new DziTilePath(key.substring(0, levelStart - FILES_SUFFIX.length()),
+                    level, x, y, key.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取同一金字塔中指定坐标的瓦片路径
+     *
+     * @param level 金字塔层级
+     * @param x 列号
+     * @param y 行号
+     * @return 新的瓦片路径
+     */
+    public DziTilePath at(int level, int x, int y) {
+        return new DziTilePath(pyramid, level, x, y, format);
+    }
+
+    /**
+     * 转换为使用"/"分隔的相对路径
+     *
+     * @return 相对路径
+     */
+    public String toKey() {
+        return pyramid + FILES_SUFFIX + "/" + level + "/" + x + "_" + y + "." + format;
+    }
+}
@@ -0,0 +1,287 @@
+package com.nwu.medimagebackend.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * DZI瓦片工具类
+ * <p>
+ * 提供Deep Zoom金字塔的层级尺寸、瓦片范围（含重叠）计算，
+ * 以及由下一层子瓦片合成上一层瓦片、缩小和编码等通用操作。
+ * 层级约定：最高层级为原始分辨率，每降低一层宽高减半（向上取整）。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class DziTileUtils {
+
+    /**
+     * 按格式缓存的空闲编码器
+     * <p>
+     * 使用共享的空闲队列而不是ThreadLocal：请求运行在虚拟线程上时每个请求都是新线程，
+     * ThreadLocal中的编码器无法被复用。
+     * </p>
+     */
+    private static final Map<String, Queue<ImageWriter>> IDLE_WRITERS = new ConcurrentHashMap<>();
+
+    /**
+     * 每种格式保留的空闲编码器数上限
+     */
+    private static final int MAX_IDLE_WRITERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 按层级读取瓦片图像的数据源
+     */
+    @FunctionalInterface
+    public interface TileImageSource {
+
+        /**
+         * 读取瓦片图像
+         *
+         * @param level 层级
+         * @param col 列号
+         * @param row 行号
+         * @return 瓦片图像（含重叠区域），不存在时返回null
+         * @throws IOException 如果读取失败
+         */
+        BufferedImage get(int level, int col, int row) throws IOException;
+    }
+
+    /**
+     * 计算指定层级的尺寸
+     *
+     * @param fullSize 原始分辨率下的尺寸
+     * @param maxLevel 最高层级
+     * @param level 层级
+     * @return 该层级的尺寸，至少为1
+     */
+    public static long levelDimension(long fullSize, int maxLevel, int level) {
+        long size = fullSize;
+        for (int i = maxLevel; i > level; i--) {
+            size = (size + 1) / 2;
+        }
+        return Math.max(1, size);
+    }
+
+    /**
+     * 计算指定尺寸下的瓦片行数或列数
+     *
+     * @param levelSize 层级尺寸
+     * @param tileSize 瓦片边长
+     * @return 瓦片数
+     */
+    public static int tileCount(long levelSize, int tileSize) {
+        return (int) ((levelSize + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * 计算瓦片在层级坐标系中的范围（含重叠）
+     *
+     * @param levelWidth 层级宽度
+     * @param levelHeight 层级高度
+     * @param tileSize 瓦片边长
+     * @param overlap 重叠像素数
+     * @param col 列号
+     * @param row 行号
+     * @return {x0, y0, x1, y1}，x1和y1不包含在内；坐标超出范围时返回null
+     */
+    public static long[] tileBounds(long levelWidth, long levelHeight, int tileSize, int overlap, int col, int row) {
+        if (col < 0 || row < 0 || col >= tileCount(levelWidth, tileSize) || row >= tileCount(levelHeight, tileSize)) {
+            return null;
+        }
+        long x0 = (long) col * tileSize - (col > 0 ? overlap : 0);
+        long y0 = (long) row * tileSize - (row > 0 ? overlap : 0);
+        long x1 = Math.min(levelWidth, (long) (col + 1) * tileSize + overlap);
+        long y1 = Math.min(levelHeight, (long) (row + 1) * tileSize + overlap);
+        return new long[]{x0, y0, x1, y1};
+    }
+
+    /**
+     * 由下一层的子瓦片合成瓦片
+     * <p>
+     * 父瓦片范围（含重叠）映射到下一层后可能跨越3x3个子瓦片，
+     * 只使用每个子瓦片去掉重叠后的核心区域拼接画布，再缩小一半。
+     * 缺失的子瓦片对应区域保持黑色。
+     * </p>
+     *
+     * @param source 子瓦片数据源
+     * @param childLevel 子瓦片层级
+     * @param bounds 父瓦片在父层级坐标系中的范围（含重叠）
+     * @param childWidth 子层级宽度
+     * @param childHeight 子层级高度
+     * @param tileSize 瓦片边长
+     * @param overlap 重叠像素数
+     * @return 合成后的父瓦片图像
+     * @throws IOException 如果读取子瓦片失败
+     */
+    public static BufferedImage composeFromChildren(TileImageSource source, int childLevel, long[] bounds,
+                                                    long childWidth, long childHeight,
+                                                    int tileSize, int overlap) throws IOException {
+        long cx0 = bounds[0] * 2;
+        long cy0 = bounds[1] * 2;
+        long cx1 = Math.min(childWidth, bounds[2] * 2);
+        long cy1 = Math.min(childHeight, bounds[3] * 2);
+        int canvasWidth = (int) (cx1 - cx0);
+        int canvasHeight = (int) (cy1 - cy0);
+        int[] canvas = new int[canvasWidth * canvasHeight];
+
+        int firstCol = (int) (cx0 / tileSize);
+        int lastCol = (int) ((cx1 - 1) / tileSize);
+        int firstRow = (int) (cy0 / tileSize);
+        int lastRow = (int) ((cy1 - 1) / tileSize);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                BufferedImage child = source.get(childLevel, col, row);
+                if (child == null) {
+                    continue;
+                }
+                // 子瓦片核心区域在子层级坐标系中的范围
+                long coreX0 = Math.max(cx0, (long) col * tileSize);
+                long coreY0 = Math.max(cy0, (long) row * tileSize);
+                long coreX1 = Math.min(cx1, (long) (col + 1) * tileSize);
+                long coreY1 = Math.min(cy1, (long) (row + 1) * tileSize);
+                // 子瓦片图像左上角在子层级坐标系中的位置
+                long imageX0 = (long) col * tileSize - (col > 0 ? overlap : 0);
+                long imageY0 = (long) row * tileSize - (row > 0 ? overlap : 0);
+                int w = (int) Math.min(coreX1 - coreX0, child.getWidth() - (coreX0 - imageX0));
+                int h = (int) Math.min(coreY1 - coreY0, child.getHeight() - (coreY0 - imageY0));
+                if (w <= 0 || h <= 0) {
+                    continue;
+                }
+                child.getRGB((int) (coreX0 - imageX0), (int) (coreY0 - imageY0), w, h, canvas,
+                        (int) ((coreY0 - cy0) * canvasWidth + (coreX0 - cx0)), canvasWidth);
+            }
+        }
+
+        int width = (int) (bounds[2] - bounds[0]);
+        int height = (int) (bounds[3] - bounds[1]);
+        return downsample(canvas, canvasWidth, canvasHeight, width, height);
+    }
+
+    /**
+     * 使用均值滤波将图像缩小到指定尺寸
+     *
+     * @param image 源图像
+     * @param width 目标宽度
+     * @param height 目标高度
+     * @return 缩小后的RGB图像
+     */
+    public static BufferedImage downsample(BufferedImage image, int width, int height) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        if (sourceWidth == width && sourceHeight == height && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        int[] pixels = image.getRGB(0, 0, sourceWidth, sourceHeight, null, 0, sourceWidth);
+        return downsample(pixels, sourceWidth, sourceHeight, width, height);
+    }
+
+    /**
+     * 使用均值滤波将RGB像素数组缩小到指定尺寸
+     *
+     * @param pixels 源像素，按行排列
+     * @param sourceWidth 源宽度
+     * @param sourceHeight 源高度
+     * @param width 目标宽度
+     * @param height 目标高度
+     * @return 缩小后的RGB图像
+     */
+    public static BufferedImage downsample(int[] pixels, int sourceWidth, int sourceHeight, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] out = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            int sy0 = (int) ((long) y * sourceHeight / height);
+            int sy1 = Math.max(sy0 + 1, (int) (((long) (y + 1) * sourceHeight + height - 1) / height));
+            sy1 = Math.min(sy1, sourceHeight);
+            for (int x = 0; x < width; x++) {
+                int sx0 = (int) ((long) x * sourceWidth / width);
+                int sx1 = Math.max(sx0 + 1, (int) (((long) (x + 1) * sourceWidth + width - 1) / width));
+                sx1 = Math.min(sx1, sourceWidth);
+                long r = 0;
+                long g = 0;
+                long b = 0;
+                for (int sy = sy0; sy < sy1; sy++) {
+                    int offset = sy * sourceWidth;
+                    for (int sx = sx0; sx < sx1; sx++) {
+                        int rgb = pixels[offset + sx];
+                        r += (rgb >> 16) & 0xFF;
+                        g += (rgb >> 8) & 0xFF;
+                        b += rgb & 0xFF;
+                    }
+                }
+                int count = Math.max(1, (sy1 - sy0) * (sx1 - sx0));
+                out[y * width + x] = (int) (r / count) << 16 | (int) (g / count) << 8 | (int) (b / count);
+            }
+        }
+        result.setRGB(0, 0, width, height, out, 0, width);
+        return result;
+    }
+
+    /**
+     * 将图像编码为瓦片格式
+     * <p>
+     * 编码器在调用之间复用，避免并行编码大量瓦片时反复查找和创建编码器。
+     * </p>
+     *
+     * @param image 图像
+     * @param format 格式（jpeg/jpg/png）
+     * @param quality JPEG压缩质量，范围0到1，PNG忽略该参数
+     * @return 编码后的字节
+     * @throws IOException 如果编码失败或格式不受支持
+     */
+    public static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        Queue<ImageWriter> idle = IDLE_WRITERS.computeIfAbsent(format.toLowerCase(),
+                key -> new ConcurrentLinkedQueue<>());
+        ImageWriter writer = idle.poll();
+        if (writer == null) {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+            if (!writers.hasNext()) {
+                throw new IOException("不支持的瓦片格式: " + format);
+            }
+            writer = writers.next();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed() && isJpeg(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            // 编码器状态可能已损坏，不再放回队列
+            writer.dispose();
+            throw e;
+        }
+        writer.reset();
+        // 队列长度只是近似值，偶尔多保留几个编码器无妨
+        if (idle.size() < MAX_IDLE_WRITERS) {
+            idle.offer(writer);
+        } else {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 判断格式是否为JPEG
+     *
+     * @param format 格式名
+     * @return 是否为JPEG
+     */
+    public static boolean isJpeg(String format) {
+        return "jpeg".equalsIgnoreCase(format) || "jpg".equalsIgnoreCase(format);
+    }
+}
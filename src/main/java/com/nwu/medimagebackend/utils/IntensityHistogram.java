@@ -0,0 +1,96 @@
+package com.nwu.medimagebackend.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 8位灰度强度直方图
+ * <p>
+ * IHC阳性判定为像素值不小于阈值，任意阈值下的阳性像素数都可以由256个区间的计数直接求出，
+ * 保存直方图后调整阈值无需重新读取图像。
+ * 序列化格式为256个大端序long，共2048字节，保存在ihcs表的histogram列中。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class IntensityHistogram {
+
+    /**
+     * 区间数
+     */
+    public static final int BINS = 256;
+
+    /**
+     * 序列化后的字节数
+     */
+    public static final int SERIALIZED_BYTES = BINS * Long.BYTES;
+
+    private final long[] counts;
+
+    /**
+     * @param counts 各像素值的计数，长度必须为256
+     */
+    public IntensityHistogram(long[] counts) {
+        if (counts.length != BINS) {
+            throw new IllegalArgumentException("直方图区间数必须为" + BINS + ": " + counts.length);
+        }
+        this.counts = counts;
+    }
+
+    /**
+     * 获取总像素数
+     *
+     * @return 总像素数
+     */
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 获取像素值不小于阈值的像素数
+     *
+     * @param threshold 阈值
+     * @return 像素数
+     */
+    public long countAtLeast(double threshold) {
+        long count = 0;
+        for (int value = Math.max(0, (int) Math.ceil(threshold)); value < BINS; value++) {
+            count += counts[value];
+        }
+        return count;
+    }
+
+    /**
+     * 序列化为字节数组
+     *
+     * @return 2048字节的数组
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_BYTES);
+        for (long count : counts) {
+            buffer.putLong(count);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 由字节数组反序列化
+     *
+     * @param bytes 序列化的直方图
+     * @return 直方图，内容为空或长度不符时返回null
+     */
+    public static IntensityHistogram fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != SERIALIZED_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] counts = new long[BINS];
+        for (int i = 0; i < BINS; i++) {
+            counts[i] = buffer.getLong();
+        }
+        return new IntensityHistogram(counts);
+    }
+}
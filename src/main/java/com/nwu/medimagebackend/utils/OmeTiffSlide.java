@@ -0,0 +1,230 @@
+package com.nwu.medimagebackend.utils;
+
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Plane;
+import io.scif.Reader;
+import io.scif.SCIFIO;
+import io.scif.util.FormatTools;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imagej.axis.CalibratedAxis;
+import net.imglib2.util.Intervals;
+import org.scijava.io.location.FileLocation;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OME-TIFF切片区域读取器
+ * <p>
+ * 基于SCIFIO Reader按区域读取平面数据，只解码请求的区域，不加载整幅图像。
+ * 文件中尺寸为原图1/2、1/4等的附加图像被识别为子分辨率层，
+ * 读取缩小的区域时优先使用不大于目标缩放倍数的最近子分辨率层。
+ * 仅支持8位像素：平面内含3个及以上通道时取前3个通道作为RGB，否则按灰度处理；
+ * 通道不在平面内时只读取第一个平面。
+ * SCIFIO Reader不是线程安全的，所有读取操作串行执行。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class OmeTiffSlide implements Closeable {
+
+    private final Path file;
+
+    private final long lastModified;
+
+    private final Reader reader;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final long width;
+
+    private final long height;
+
+    /**
+     * 缩放倍数到图像序号的映射，倍数1对应原始分辨率
+     */
+    private final TreeMap<Long, Integer> resolutions = new TreeMap<>();
+
+    /**
+     * 打开切片并识别子分辨率层
+     *
+     * @param scifio SCIFIO服务
+     * @param file OME-TIFF文件
+     * @throws IOException 如果文件无法打开或像素类型不受支持
+     */
+    public OmeTiffSlide(SCIFIO scifio, Path file) throws IOException {
+        this.file = file;
+        this.lastModified = Files.getLastModifiedTime(file).toMillis();
+        try {
+            this.reader = scifio.initializer().initializeReader(new FileLocation(file.toFile()));
+        } catch (FormatException e) {
+            throw new IOException("无法打开切片: " + file + ", 错误: " + e.getMessage(), e);
+        }
+        try {
+            ImageMetadata full = reader.getMetadata().get(0);
+            if (FormatTools.getBytesPerPixel(full.getPixelType()) != 1) {
+                throw new IOException("仅支持8位像素的切片: " + file);
+            }
+            this.width = full.getAxisLength(Axes.X);
+            this.height = full.getAxisLength(Axes.Y);
+            resolutions.put(1L, 0);
+
+            for (int i = 1; i < reader.getImageCount(); i++) {
+                ImageMetadata meta = reader.getMetadata().get(i);
+                if (FormatTools.getBytesPerPixel(meta.getPixelType()) != 1) {
+                    continue;
+                }
+                long levelWidth = meta.getAxisLength(Axes.X);
+                long levelHeight = meta.getAxisLength(Axes.Y);
+                for (long factor = 2; factor <= width; factor *= 2) {
+                    if (levelWidth == (width + factor - 1) / factor && levelHeight == (height + factor - 1) / factor
+                            || levelWidth == width / factor && levelHeight == height / factor) {
+                        resolutions.putIfAbsent(factor, i);
+                        break;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getWidth() {
+        return width;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    /**
+     * 获取不大于指定缩放倍数的最近子分辨率层的倍数
+     *
+     * @param scale 目标缩放倍数
+     * @return 可用的缩放倍数
+     */
+    public long bestFactor(long scale) {
+        Map.Entry<Long, Integer> entry = resolutions.floorEntry(scale);
+        return entry == null ? 1 : entry.getKey();
+    }
+
+    /**
+     * 读取指定缩放倍数下的区域
+     *
+     * @param scale 缩放倍数（2的幂），区域坐标为原图坐标除以该倍数
+     * @param x0 区域左边界
+     * @param y0 区域上边界
+     * @param x1 区域右边界（不含）
+     * @param y1 区域下边界（不含）
+     * @return 区域图像，尺寸为(x1 - x0) x (y1 - y0)
+     * @throws IOException 如果读取失败
+     */
+    public BufferedImage readRegion(long scale, long x0, long y0, long x1, long y1) throws IOException {
+        long factor = bestFactor(scale);
+        int imageIndex = resolutions.get(factor);
+        long ratio = scale / factor;
+
+        lock.lock();
+        try {
+            ImageMetadata meta = reader.getMetadata().get(imageIndex);
+            long imageWidth = meta.getAxisLength(Axes.X);
+            long imageHeight = meta.getAxisLength(Axes.Y);
+            long sx0 = Math.min(imageWidth - 1, x0 * ratio);
+            long sy0 = Math.min(imageHeight - 1, y0 * ratio);
+            long sx1 = Math.max(sx0 + 1, Math.min(imageWidth, x1 * ratio));
+            long sy1 = Math.max(sy0 + 1, Math.min(imageHeight, y1 * ratio));
+
+            List<CalibratedAxis> axes = meta.getAxesPlanar();
+            long[] lengths = meta.getAxesLengthsPlanar();
+            long[] min = new long[axes.size()];
+            long[] size = new long[axes.size()];
+            int xIndex = -1;
+            int yIndex = -1;
+            int channelIndex = -1;
+            for (int i = 0; i < axes.size(); i++) {
+                AxisType type = axes.get(i).type();
+                if (type == Axes.X) {
+                    xIndex = i;
+                    min[i] = sx0;
+                    size[i] = sx1 - sx0;
+                } else if (type == Axes.Y) {
+                    yIndex = i;
+                    min[i] = sy0;
+                    size[i] = sy1 - sy0;
+                } else {
+                    if (type == Axes.CHANNEL) {
+                        channelIndex = i;
+                    }
+                    min[i] = 0;
+                    size[i] = lengths[i];
+                }
+            }
+
+            long[] minSize = new long[axes.size() * 2];
+            System.arraycopy(min, 0, minSize, 0, min.length);
+            System.arraycopy(size, 0, minSize, min.length, size.length);
+            Plane plane = reader.openPlane(imageIndex, 0, Intervals.createMinSize(minSize));
+            byte[] bytes = plane.getBytes();
+
+            // 平面数据按平面轴顺序排列，第一个轴变化最快
+            long[] strides = new long[axes.size()];
+            long stride = 1;
+            for (int i = 0; i < axes.size(); i++) {
+                strides[i] = stride;
+                stride *= size[i];
+            }
+            int regionWidth = (int) (sx1 - sx0);
+            int regionHeight = (int) (sy1 - sy0);
+            int channels = channelIndex < 0 ? 1 : (int) size[channelIndex];
+            long channelStride = channelIndex < 0 ? 0 : strides[channelIndex];
+            int[] pixels = new int[regionWidth * regionHeight];
+            for (int y = 0; y < regionHeight; y++) {
+                long rowOffset = y * strides[yIndex];
+                for (int x = 0; x < regionWidth; x++) {
+                    int base = (int) (rowOffset + x * strides[xIndex]);
+                    int r = bytes[base] & 0xFF;
+                    if (channels >= 3) {
+                        int g = bytes[(int) (base + channelStride)] & 0xFF;
+                        int b = bytes[(int) (base + 2 * channelStride)] & 0xFF;
+                        pixels[y * regionWidth + x] = r << 16 | g << 8 | b;
+                    } else {
+                        pixels[y * regionWidth + x] = r << 16 | r << 8 | r;
+                    }
+                }
+            }
+            return DziTileUtils.downsample(pixels, regionWidth, regionHeight, (int) (x1 - x0), (int) (y1 - y0));
+        } catch (FormatException e) {
+            throw new IOException("读取切片区域失败: " + file + ", 错误: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            reader.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.nwu.medimagebackend.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 金字塔容器读取器
+ * <p>
+ * 打开由{@link PyramidPackWriter}生成的容器文件，启动时读取索引，
+ * 之后按条目名直接从内存映射区切片返回瓦片内容，不再访问文件系统元数据。
+ * 容器按1GB分段映射，每段在首次访问时映射。
+ * 不使用内存映射时（例如Windows上需要在使用中删除容器文件）改为按位置读取。
+ * 实例是线程安全的。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class PyramidPackReader implements Closeable {
+
+    /**
+     * 容器魔数 "DZP1"
+     */
+    public static final int MAGIC = 0x445A5031;
+
+    /**
+     * 内存映射分段大小
+     */
+    public static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * 尾部长度：索引区偏移(long) + 魔数(int)
+     */
+    public static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final boolean mmap;
+
+    /**
+     * 条目名到{偏移, 长度}的索引
+     */
+    private final Map<String, long[]> index;
+
+    private final AtomicReferenceArray<MappedByteBuffer> segments;
+
+    /**
+     * 打开容器文件并读取索引
+     *
+     * @param file 容器文件
+     * @param mmap 是否使用内存映射读取瓦片
+     * @throws IOException 如果文件不是有效的容器
+     */
+    public PyramidPackReader(Path file, boolean mmap) throws IOException {
+        this.file = file;
+        this.mmap = mmap;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < FOOTER_SIZE) {
+                throw new IOException("无效的金字塔容器: " + file);
+            }
+            ByteBuffer footer = readAt(size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            if (footer.getInt() != MAGIC || indexOffset < 0 || indexOffset > size - FOOTER_SIZE) {
+                throw new IOException("无效的金字塔容器: " + file);
+            }
+
+            ByteBuffer indexBuffer = readAt(indexOffset, (int) (size - FOOTER_SIZE - indexOffset));
+            DataInputStream in = new DataInputStream(
+                    new ByteArrayInputStream(indexBuffer.array(), 0, indexBuffer.limit()));
+            int count = in.readInt();
+            this.index = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+                index.put(name, new long[]{offset, length});
+            }
+            this.segments = new AtomicReferenceArray<>((int) (indexOffset / SEGMENT_SIZE) + 1);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取瓦片内容
+     *
+     * @param entryName 条目名（相对于瓦片目录的路径）
+     * @return 只读的瓦片内容，条目不存在时返回null
+     * @throws IOException 如果读取失败
+     */
+    public ByteBuffer read(String entryName) throws IOException {
+        long[] entry = index.get(entryName);
+        if (entry == null) {
+            return null;
+        }
+        long offset = entry[0];
+        int length = (int) entry[1];
+        if (!mmap || length > SEGMENT_SIZE) {
+            return readAt(offset, length).asReadOnlyBuffer();
+        }
+
+        int segmentIndex = (int) (offset / SEGMENT_SIZE);
+        MappedByteBuffer segment = segments.get(segmentIndex);
+        if (segment == null) {
+            long segmentStart = segmentIndex * SEGMENT_SIZE;
+            long segmentLength = Math.min(SEGMENT_SIZE, channel.size() - segmentStart);
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentLength);
+            if (!segments.compareAndSet(segmentIndex, null, segment)) {
+                segment = segments.get(segmentIndex);
+            }
+        }
+        return segment.slice((int) (offset - segmentIndex * SEGMENT_SIZE), length).asReadOnlyBuffer();
+    }
+
+    /**
+     * 判断容器中是否包含指定条目
+     *
+     * @param entryName 条目名
+     * @return 是否存在
+     */
+    public boolean contains(String entryName) {
+        return index.containsKey(entryName);
+    }
+
+    /**
+     * 获取容器中的条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 获取容器文件路径
+     *
+     * @return 容器文件路径
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 从指定位置读取固定长度的内容到堆内缓冲区
+     */
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("金字塔容器内容不完整: " + file);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
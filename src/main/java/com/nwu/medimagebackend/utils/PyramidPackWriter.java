@@ -0,0 +1,163 @@
+package com.nwu.medimagebackend.utils;
+
+import com.nwu.medimagebackend.entity.PyramidPackResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 金字塔容器写入工具类
+ * <p>
+ * 将一个DZI瓦片目录（name_files/）下的所有文件顺序写入单个容器文件(.dzp)，
+ * 容器格式如下：
+ * <pre>
+ * [瓦片数据区] 各瓦片内容依次排列，单个瓦片不会跨越1GB映射段边界，内容相同的瓦片只保存一次
+ * [索引区]     条目数(int)，每个条目为：相对路径(modified UTF-8)、偏移(long)、长度(int)
+ * [尾部]       索引区偏移(long)、魔数(int)
+ * </pre>
+ * 内容相同的条目在索引中指向同一偏移，读取器无需区分。
+ * 读取方式见{@link PyramidPackReader}。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Slf4j
+public class PyramidPackWriter {
+
+    /**
+     * 参与去重的文件大小上限，更大的文件直接传输
+     */
+    private static final long MAX_DEDUP_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * 将瓦片目录打包为容器文件
+     * <p>
+     * 先写入临时文件，完成后再原子替换为目标文件，避免读取到写入一半的容器。
+     * </p>
+     *
+     * @param sourceDir 瓦片目录
+     * @param targetFile 目标容器文件
+     * @return 打包统计信息，仅包含条目数、内容字节数和容器大小
+     * @throws IOException 如果读取瓦片或写入容器失败
+     */
+    public static PyramidPackResult pack(Path sourceDir, Path targetFile) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(sourceDir)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        Path tempFile = targetFile.resolveSibling(targetFile.getFileName() + ".tmp");
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        index.writeInt(files.size());
+
+        long contentBytes = 0;
+        long dedupedBytes = 0;
+        int uniqueEntries = 0;
+        // 内容摘要到{偏移, 长度}的映射，相同内容的条目共用一段数据
+        Map<ByteBuffer, long[]> written = new HashMap<>();
+        try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Path file : files) {
+                long length = Files.size(file);
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("瓦片文件过大，无法打包: " + file);
+                }
+                String entryName = sourceDir.relativize(file).toString().replace(File.separatorChar, '/');
+                contentBytes += length;
+
+                byte[] content = null;
+                ByteBuffer digest = null;
+                if (length <= MAX_DEDUP_BYTES) {
+                    content = Files.readAllBytes(file);
+                    digest = TileDeduplicator.digest(content);
+                    long[] existing = written.get(digest);
+                    if (existing != null) {
+                        index.writeUTF(entryName);
+                        index.writeLong(existing[0]);
+                        index.writeInt((int) existing[1]);
+                        dedupedBytes += length;
+                        continue;
+                    }
+                }
+
+                // 保证瓦片不跨越映射段边界，读取时可直接切片
+                long segmentEnd = (offset / PyramidPackReader.SEGMENT_SIZE + 1) * PyramidPackReader.SEGMENT_SIZE;
+                if (offset + length > segmentEnd && length <= PyramidPackReader.SEGMENT_SIZE) {
+                    writeFully(out, ByteBuffer.allocate((int) (segmentEnd - offset)));
+                    offset = segmentEnd;
+                }
+
+                if (content != null) {
+                    writeFully(out, ByteBuffer.wrap(content));
+                    written.put(digest, new long[]{offset, length});
+                } else {
+                    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                        long transferred = 0;
+                        while (transferred < length) {
+                            long count = in.transferTo(transferred, length - transferred, out);
+                            if (count <= 0) {
+                                // 文件在打包过程中被截断，继续循环将永远无法结束
+                                throw new IOException("瓦片文件在打包过程中发生变化: " + file);
+                            }
+                            transferred += count;
+                        }
+                    }
+                }
+
+                index.writeUTF(entryName);
+                index.writeLong(offset);
+                index.writeInt((int) length);
+
+                offset += length;
+                uniqueEntries++;
+            }
+
+            index.flush();
+            writeFully(out, ByteBuffer.wrap(indexBytes.toByteArray()));
+            ByteBuffer footer = ByteBuffer.allocate(PyramidPackReader.FOOTER_SIZE);
+            footer.putLong(offset).putInt(PyramidPackReader.MAGIC).flip();
+            writeFully(out, footer);
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("瓦片目录打包完成: {} -> {}, 共{}个条目, 其中{}个不重复, {}字节, 去重节省{}字节",
+                sourceDir, targetFile, files.size(), uniqueEntries, contentBytes, dedupedBytes);
+
+        PyramidPackResult result = new PyramidPackResult();
+        result.setEntryCount(files.size());
+        result.setContentBytes(contentBytes);
+        result.setUniqueEntries(uniqueEntries);
+        result.setDedupedBytes(dedupedBytes);
+        result.setPackBytes(Files.size(targetFile));
+        return result;
+    }
+
+    /**
+     * 将缓冲区内容完整写入通道
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
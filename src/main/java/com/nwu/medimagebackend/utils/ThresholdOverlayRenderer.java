@@ -0,0 +1,148 @@
+package com.nwu.medimagebackend.utils;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * IHC阈值高亮图像渲染器
+ * <p>
+ * 像素值不小于阈值的区域显示为红色（保留部分灰度），其余区域显示原灰度。
+ * 先按阈值生成256项颜色查找表，再把图像按行分段，在调用方提供的线程池中并行地
+ * 把打包的ARGB值直接写入BufferedImage的int[]数据缓冲区，不复制中间数组，也不为每个像素创建对象。
+ * ArrayImg和PlanarImg直接读取底层byte数组，其他图像每行使用一个RandomAccess。
+ * 图像超过二维时与逐像素遍历的结果一致，取其余维度的最后一个切片。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class ThresholdOverlayRenderer {
+
+    private ThresholdOverlayRenderer() {
+    }
+
+    /**
+     * 渲染高亮图像
+     *
+     * @param img 8位图像
+     * @param threshold 阈值
+     * @param executor 执行渲染任务的线程池，分段数不大于1时可以为null
+     * @param workers 分段数，不大于1时在当前线程渲染
+     * @return RGB图像
+     */
+    public static BufferedImage render(Img<UnsignedByteType> img, double threshold, ExecutorService executor,
+                                       int workers) {
+        int width = (int) img.dimension(0);
+        int height = (int) img.dimension(1);
+        int[] lut = colorTable(threshold);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] argb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        long planeSize = (long) width * height;
+        byte[] data = null;
+        int base = 0;
+        if (img instanceof ArrayImg<?, ?> arrayImg && arrayImg.update(null) instanceof ByteArray access) {
+            data = access.getCurrentStorageArray();
+            base = (int) (img.size() - planeSize);
+        } else if (img instanceof PlanarImg<?, ?> planarImg
+                && planarImg.getPlane(planarImg.numSlices() - 1) instanceof ByteArray access) {
+            data = access.getCurrentStorageArray();
+        }
+
+        RowRange rows;
+        if (data != null) {
+            byte[] bytes = data;
+            int offset = base;
+            rows = (from, to) -> {
+                for (int y = from; y < to; y++) {
+                    int row = y * width;
+                    for (int x = 0; x < width; x++) {
+                        argb[row + x] = lut[bytes[offset + row + x] & 0xFF];
+                    }
+                }
+            };
+        } else {
+            long[] last = new long[img.numDimensions()];
+            img.max(last);
+            rows = (from, to) -> {
+                RandomAccess<UnsignedByteType> access = img.randomAccess();
+                access.setPosition(last);
+                for (int y = from; y < to; y++) {
+                    access.setPosition(img.min(0), 0);
+                    access.setPosition(img.min(1) + y, 1);
+                    int row = y * width;
+                    for (int x = 0; x < width; x++) {
+                        argb[row + x] = lut[access.get().get()];
+                        access.fwd(0);
+                    }
+                }
+            };
+        }
+
+        int bands = Math.max(1, Math.min(workers, height));
+        if (bands == 1) {
+            rows.render(0, height);
+            return image;
+        }
+        int bandHeight = (height + bands - 1) / bands;
+        List<Callable<Void>> tasks = new ArrayList<>(bands);
+        for (int from = 0; from < height; from += bandHeight) {
+            int start = from;
+            int end = Math.min(height, from + bandHeight);
+            tasks.add(() -> {
+                rows.render(start, end);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("高亮图像渲染被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("高亮图像渲染失败", e.getCause());
+        }
+        return image;
+    }
+
+    /**
+     * 渲染[from, to)范围内的行
+     */
+    @FunctionalInterface
+    private interface RowRange {
+        void render(int from, int to);
+    }
+
+    /**
+     * 生成像素值到ARGB颜色的查找表
+     */
+    private static int[] colorTable(double threshold) {
+        int[] lut = new int[256];
+        for (int gray = 0; gray < lut.length; gray++) {
+            if (gray >= threshold) {
+                // 红色高亮，绿蓝通道保留三分之一灰度
+                lut[gray] = 0xFF000000 | 0xFF << 16 | (gray / 3) << 8 | gray / 3;
+            } else {
+                lut[gray] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+            }
+        }
+        return lut;
+    }
+}
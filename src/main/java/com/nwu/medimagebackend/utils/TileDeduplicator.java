@@ -0,0 +1,110 @@
+package com.nwu.medimagebackend.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 瓦片去重写入工具类
+ * <p>
+ * 切片中大量空白背景瓦片编码后逐字节相同。写入瓦片时按SHA-256识别重复内容，
+ * 重复的瓦片以硬链接指向首次写入的文件，磁盘上只保存一份，读取路径不变。
+ * 只对不超过大小上限的瓦片去重：空白瓦片压缩后很小，而组织区域的瓦片几乎不会重复，
+ * 这样摘要表只记录少量小瓦片。文件系统不支持硬链接时退化为普通写入。
+ * 实例是线程安全的，每次生成任务使用一个实例。
+ * </p>
+ *
+ * @author MedImage团队
+ */
+@Slf4j
+public class TileDeduplicator {
+
+    private final long maxTileBytes;
+
+    /**
+     * 内容摘要到首次写入文件的映射
+     */
+    private final Map<ByteBuffer, Path> written = new ConcurrentHashMap<>();
+
+    private final AtomicLong dedupedTiles = new AtomicLong();
+
+    private final AtomicLong dedupedBytes = new AtomicLong();
+
+    private volatile boolean linkSupported = true;
+
+    /**
+     * @param maxTileBytes 参与去重的瓦片大小上限，不大于0时不去重
+     */
+    public TileDeduplicator(long maxTileBytes) {
+        this.maxTileBytes = maxTileBytes;
+    }
+
+    /**
+     * 写入瓦片，内容与已写入的瓦片相同时创建硬链接
+     *
+     * @param target 目标文件
+     * @param content 瓦片内容
+     * @throws IOException 如果写入失败
+     */
+    public void write(Path target, byte[] content) throws IOException {
+        if (linkSupported && content.length <= maxTileBytes) {
+            Path existing = written.putIfAbsent(digest(content), target);
+            if (existing != null) {
+                try {
+                    Files.createLink(target, existing);
+                    dedupedTiles.incrementAndGet();
+                    dedupedBytes.addAndGet(content.length);
+                    return;
+                } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                    // 首次写入的文件尚未落盘，本次按普通文件写入
+                } catch (IOException | UnsupportedOperationException | SecurityException e) {
+                    linkSupported = false;
+                    log.warn("文件系统不支持硬链接，瓦片去重已停用: {}", e.getMessage());
+                }
+            }
+        }
+        Files.write(target, content);
+    }
+
+    /**
+     * 获取以硬链接写入的瓦片数
+     *
+     * @return 瓦片数
+     */
+    public long getDedupedTiles() {
+        return dedupedTiles.get();
+    }
+
+    /**
+     * 获取去重节省的字节数
+     *
+     * @return 字节数
+     */
+    public long getDedupedBytes() {
+        return dedupedBytes.get();
+    }
+
+    /**
+     * 计算内容的SHA-256摘要
+     *
+     * @param content 内容
+     * @return 可作为哈希表键的摘要
+     */
+    public static ByteBuffer digest(byte[] content) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+}
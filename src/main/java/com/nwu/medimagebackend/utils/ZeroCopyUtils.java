@@ -0,0 +1,143 @@
+package com.nwu.medimagebackend.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 零拷贝资源输出工具类
+ * <p>
+ * 将文件或内存中的资源直接写入HTTP响应，绕过Spring消息转换器的堆内中转缓冲区：
+ * <ul>
+ *   <li>Tomcat支持sendfile时，所有磁盘文件都由连接器在请求结束后通过sendfile直接发送到套接字</li>
+ *   <li>否则使用FileChannel.transferTo将文件内容传输到响应输出通道</li>
+ *   <li>内存中的资源（瓦片缓存）直接从ByteBuffer写入Tomcat的输出缓冲区，不经过堆内数组；
+ *       非Tomcat容器没有接收ByteBuffer的输出接口，只能经Channels.newChannel分段复制到堆内数组后写出</li>
+ * </ul>
+ * </p>
+ *
+ * @author MedImage团队
+ */
+public class ZeroCopyUtils {
+
+    /**
+     * Tomcat标记当前连接支持sendfile的请求属性
+     */
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Tomcat sendfile文件路径请求属性（需为规范路径）
+     */
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * Tomcat sendfile起始偏移请求属性
+     */
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    /**
+     * Tomcat sendfile结束偏移请求属性
+     */
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 将资源写入HTTP响应
+     *
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @param resource 要输出的资源
+     * @param contentType 响应的Content-Type
+     * @throws IOException 如果读取资源或写入响应失败
+     */
+    public static void writeResource(HttpServletRequest request, HttpServletResponse response,
+                                     Resource resource, String contentType) throws IOException {
+        response.setContentType(contentType);
+
+        if (resource instanceof ByteBufferResource bufferResource) {
+            writeBuffer(response, bufferResource.getByteBuffer());
+            return;
+        }
+
+        if (resource.isFile()) {
+            writeFile(request, response, resource.getFile().toPath());
+            return;
+        }
+
+        // 其他类型的资源退回到流式复制
+        response.setContentLengthLong(resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            StreamUtils.copy(in, response.getOutputStream());
+        }
+    }
+
+    /**
+     * 将内存中的内容写入响应
+     *
+     * @param response HTTP响应
+     * @param buffer 要写出的内容
+     * @throws IOException 如果写入失败
+     */
+    public static void writeBuffer(HttpServletResponse response, ByteBuffer buffer) throws IOException {
+        response.setContentLength(buffer.remaining());
+        OutputStream out = response.getOutputStream();
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        if (out instanceof CoyoteOutputStream coyote) {
+            // 直接缓冲区由Tomcat从堆外复制到套接字输出缓冲区
+            coyote.write(buffer);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 将文件写入响应，优先使用sendfile，其次使用FileChannel.transferTo
+     *
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @param file 要写出的文件
+     * @throws IOException 如果读取文件或写入响应失败
+     */
+    public static void writeFile(HttpServletRequest request, HttpServletResponse response, Path file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = fileChannel.size();
+            response.setContentLengthLong(length);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+                // 由Tomcat在请求处理完成后使用sendfile发送文件
+                request.setAttribute(SENDFILE_FILENAME_ATTR, file.toRealPath().toString());
+                request.setAttribute(SENDFILE_START_ATTR, 0L);
+                request.setAttribute(SENDFILE_END_ATTR, length);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                long transferred = fileChannel.transferTo(position, length - position, out);
+                if (transferred <= 0) {
+                    // 已声明Content-Length，不能以较短的响应正常结束
+                    throw new IOException("文件传输提前结束: " + file + ", 已传输" + position + "/" + length + "字节");
+                }
+                position += transferred;
+            }
+        }
+    }
+}
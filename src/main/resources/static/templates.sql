@@ -10,6 +10,9 @@ create table ihcs
     positive_ratio decimal(5, 2) default 0.00              not null,
     username       varchar(255)                            not null,
     uploads_date   timestamp     default CURRENT_TIMESTAMP not null,
+    histogram      blob                                    null comment '256区间强度直方图，调整阈值时无需重新读取图像',
+    histogram_source_modified bigint                       null comment '统计直方图时原图的修改时间（毫秒）',
+    histogram_source_size     bigint                       null comment '统计直方图时原图的大小（字节）',
     constraint unique_folder_image
         unique (foldername, image_name)
 );
@@ -0,0 +1,8 @@
+-- 已有数据库的升级脚本，新建数据库直接使用templates.sql，无需执行本脚本
+-- 每条语句只需执行一次
+
+-- ihcs表：强度直方图及统计直方图时原图的修改时间和大小，调整阈值时无需重新读取图像，原图被替换后重新统计
+alter table ihcs
+    add column histogram                 blob   null comment '256区间强度直方图，调整阈值时无需重新读取图像',
+    add column histogram_source_modified bigint null comment '统计直方图时原图的修改时间（毫秒）',
+    add column histogram_source_size     bigint null comment '统计直方图时原图的大小（字节）';
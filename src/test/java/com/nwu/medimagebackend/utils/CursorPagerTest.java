@@ -0,0 +1,117 @@
+package com.nwu.medimagebackend.utils;
+
+import com.nwu.medimagebackend.DTO.PageQuery;
+import com.nwu.medimagebackend.entity.CursorPage;
+import com.nwu.medimagebackend.entity.FileEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 游标分页器测试
+ *
+ * @author MedImage团队
+ */
+class CursorPagerTest {
+
+    @Test
+    void pagesByNameInBothDirections() {
+        List<FileEntry> entries = List.of(entry("c", 1), entry("a", 3), entry("e", 2), entry("b", 5), entry("d", 4));
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), collectAll(entries, "name", "asc", 2));
+        assertEquals(List.of("e", "d", "c", "b", "a"), collectAll(entries, "name", "desc", 2));
+    }
+
+    @Test
+    void pagesByModifiedTimeWithNameAsTieBreaker() {
+        List<FileEntry> entries = List.of(entry("b", 10), entry("a", 10), entry("c", 5), entry("d", 20));
+
+        assertEquals(List.of("c", "a", "b", "d"), collectAll(entries, "mtime", "asc", 1));
+        assertEquals(List.of("d", "b", "a", "c"), collectAll(entries, "mtime", "desc", 3));
+    }
+
+    @Test
+    void cursorStaysStableWhenEntriesAreInsertedBetweenPages() {
+        List<FileEntry> entries = new ArrayList<>(List.of(entry("b", 1), entry("d", 1), entry("f", 1)));
+        CursorPage<FileEntry> first = page(entries, query("name", "asc", 2, null));
+        assertEquals(List.of("b", "d"), names(first));
+
+        // 在已读页之前和之后各插入一个条目，下一页从上一页最后一个条目之后继续，不重复也不遗漏已读位置之后的条目
+        entries.add(entry("a", 1));
+        entries.add(entry("e", 1));
+        CursorPage<FileEntry> second = page(entries, query("name", "asc", 2, first.getNextCursor()));
+        assertEquals(List.of("e", "f"), names(second));
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void filtersByPrefix() {
+        List<FileEntry> entries = List.of(entry("case1", 1), entry("case2", 1), entry("other", 1));
+        PageQuery query = query("name", "asc", 10, null);
+        query.setPrefix("case");
+        assertEquals(List.of("case1", "case2"), names(page(entries, query)));
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSortOrder() {
+        List<FileEntry> entries = List.of(entry("a", 1), entry("b", 2), entry("c", 3));
+        String cursor = page(entries, query("name", "asc", 1, null)).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> new CursorPager(query("name", "desc", 1, cursor)));
+        assertThrows(IllegalArgumentException.class, () -> new CursorPager(query("mtime", "asc", 1, cursor)));
+        assertThrows(IllegalArgumentException.class, () -> new CursorPager(query("name", "asc", 1, "not-a-cursor")));
+    }
+
+    @Test
+    void rejectsUnknownSortParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new CursorPager(query("size", "asc", 1, null)));
+        assertThrows(IllegalArgumentException.class, () -> new CursorPager(query("name", "up", 1, null)));
+    }
+
+    /**
+     * 按游标依次读取所有页，返回条目名称
+     */
+    private static List<String> collectAll(List<FileEntry> entries, String sort, String order, int limit) {
+        List<String> result = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<FileEntry> page = page(entries, query(sort, order, limit, cursor));
+            assertTrue(page.getItems().size() <= limit);
+            result.addAll(names(page));
+            cursor = page.getNextCursor();
+            assertEquals(cursor != null, page.isHasMore());
+        } while (cursor != null);
+        return result;
+    }
+
+    private static CursorPage<FileEntry> page(List<FileEntry> entries, PageQuery query) {
+        CursorPager pager = new CursorPager(query);
+        entries.forEach(pager::offer);
+        return pager.finish();
+    }
+
+    private static PageQuery query(String sort, String order, int limit, String cursor) {
+        PageQuery query = new PageQuery();
+        query.setSort(sort);
+        query.setOrder(order);
+        query.setLimit(limit);
+        query.setCursor(cursor);
+        return query;
+    }
+
+    private static List<String> names(CursorPage<FileEntry> page) {
+        return page.getItems().stream().map(FileEntry::getName).toList();
+    }
+
+    private static FileEntry entry(String name, long lastModified) {
+        return new FileEntry(name, false, 0, lastModified);
+    }
+}
@@ -0,0 +1,70 @@
+package com.nwu.medimagebackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 强度直方图测试
+ *
+ * @author MedImage团队
+ */
+class IntensityHistogramTest {
+
+    @Test
+    void countAtLeastMatchesDirectCount() {
+        long[] counts = new long[IntensityHistogram.BINS];
+        for (int value = 0; value < counts.length; value++) {
+            counts[value] = value % 7 + 1;
+        }
+        IntensityHistogram histogram = new IntensityHistogram(counts);
+
+        for (double threshold : new double[]{-5, 0, 0.5, 1, 100, 194.2, 195, 254.9, 255, 256, 300}) {
+            long expected = 0;
+            for (int value = 0; value < counts.length; value++) {
+                if (value >= threshold) {
+                    expected += counts[value];
+                }
+            }
+            assertEquals(expected, histogram.countAtLeast(threshold), "threshold " + threshold);
+        }
+        assertEquals(histogram.total(), histogram.countAtLeast(0));
+    }
+
+    @Test
+    void fractionalThresholdRoundsUp() {
+        long[] counts = new long[IntensityHistogram.BINS];
+        counts[100] = 3;
+        counts[101] = 4;
+        IntensityHistogram histogram = new IntensityHistogram(counts);
+
+        assertEquals(7, histogram.countAtLeast(100));
+        assertEquals(4, histogram.countAtLeast(100.5));
+        assertEquals(4, histogram.countAtLeast(101));
+    }
+
+    @Test
+    void serializationRoundTrip() {
+        long[] counts = new long[IntensityHistogram.BINS];
+        counts[0] = Long.MAX_VALUE / 2;
+        counts[128] = 42;
+        counts[255] = 1L << 40;
+        byte[] bytes = new IntensityHistogram(counts).toBytes();
+
+        assertEquals(IntensityHistogram.SERIALIZED_BYTES, bytes.length);
+        IntensityHistogram restored = IntensityHistogram.fromBytes(bytes);
+        assertArrayEquals(bytes, restored.toBytes());
+        assertEquals(counts[0] + counts[128] + counts[255], restored.total());
+        assertEquals(counts[255], restored.countAtLeast(129));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertNull(IntensityHistogram.fromBytes(null));
+        assertNull(IntensityHistogram.fromBytes(new byte[IntensityHistogram.SERIALIZED_BYTES - 1]));
+        assertThrows(IllegalArgumentException.class, () -> new IntensityHistogram(new long[255]));
+    }
+}
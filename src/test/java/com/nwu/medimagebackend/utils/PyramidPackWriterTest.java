@@ -0,0 +1,104 @@
+package com.nwu.medimagebackend.utils;
+
+import com.nwu.medimagebackend.entity.PyramidPackResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 金字塔容器写入与读取测试
+ *
+ * @author MedImage团队
+ */
+class PyramidPackWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripReadsEveryTileWithMmapAndWithout() throws IOException {
+        Path sourceDir = tempDir.resolve("slide_files");
+        byte[] a = "tile-a".getBytes(StandardCharsets.UTF_8);
+        byte[] b = "tile-b-longer".getBytes(StandardCharsets.UTF_8);
+        byte[] c = new byte[0];
+        writeTile(sourceDir, "0/0_0.jpeg", a);
+        writeTile(sourceDir, "1/0_0.jpeg", b);
+        writeTile(sourceDir, "1/1_0.jpeg", c);
+
+        Path packFile = tempDir.resolve("slide.dzp");
+        PyramidPackResult result = PyramidPackWriter.pack(sourceDir, packFile);
+
+        assertEquals(3, result.getEntryCount());
+        assertEquals(a.length + b.length, result.getContentBytes());
+        assertEquals(Files.size(packFile), result.getPackBytes());
+        assertFalse(Files.exists(tempDir.resolve("slide.dzp.tmp")));
+
+        for (boolean mmap : new boolean[]{true, false}) {
+            try (PyramidPackReader reader = new PyramidPackReader(packFile, mmap)) {
+                assertEquals(3, reader.size());
+                assertArrayEquals(a, bytes(reader.read("0/0_0.jpeg")));
+                assertArrayEquals(b, bytes(reader.read("1/0_0.jpeg")));
+                assertArrayEquals(c, bytes(reader.read("1/1_0.jpeg")));
+                assertTrue(reader.contains("1/0_0.jpeg"));
+                assertNull(reader.read("2/0_0.jpeg"));
+            }
+        }
+    }
+
+    @Test
+    void identicalTilesAreStoredOnce() throws IOException {
+        Path sourceDir = tempDir.resolve("slide_files");
+        byte[] blank = new byte[1024];
+        byte[] other = "tissue".getBytes(StandardCharsets.UTF_8);
+        writeTile(sourceDir, "5/0_0.jpeg", blank);
+        writeTile(sourceDir, "5/1_0.jpeg", blank);
+        writeTile(sourceDir, "5/2_0.jpeg", blank);
+        writeTile(sourceDir, "5/3_0.jpeg", other);
+
+        Path packFile = tempDir.resolve("slide.dzp");
+        PyramidPackResult result = PyramidPackWriter.pack(sourceDir, packFile);
+
+        assertEquals(4, result.getEntryCount());
+        assertEquals(2, result.getUniqueEntries());
+        assertEquals(2L * blank.length, result.getDedupedBytes());
+        assertTrue(result.getPackBytes() < result.getContentBytes());
+
+        try (PyramidPackReader reader = new PyramidPackReader(packFile, true)) {
+            for (int x = 0; x < 3; x++) {
+                assertArrayEquals(blank, bytes(reader.read("5/" + x + "_0.jpeg")));
+            }
+            assertArrayEquals(other, bytes(reader.read("5/3_0.jpeg")));
+        }
+    }
+
+    @Test
+    void readerRejectsFilesThatAreNotPacks() throws IOException {
+        Path notPack = tempDir.resolve("broken.dzp");
+        Files.write(notPack, "not a pyramid pack".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> new PyramidPackReader(notPack, true));
+    }
+
+    private static void writeTile(Path sourceDir, String entryName, byte[] content) throws IOException {
+        Path file = sourceDir.resolve(entryName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.duplicate().get(content);
+        return content;
+    }
+}
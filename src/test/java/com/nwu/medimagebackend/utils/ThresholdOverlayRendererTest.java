@@ -0,0 +1,117 @@
+package com.nwu.medimagebackend.utils;
+
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * 阈值高亮图像渲染测试，与原先逐像素遍历的实现逐像素比较
+ *
+ * @author MedImage团队
+ */
+class ThresholdOverlayRendererTest {
+
+    private static final int WIDTH = 37;
+
+    private static final int HEIGHT = 23;
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void arrayImgMatchesPerPixelLoop() {
+        assertMatchesReference(fill(ArrayImgs.unsignedBytes(WIDTH, HEIGHT)));
+    }
+
+    @Test
+    void planarImgUsesLastPlaneLikePerPixelLoop() {
+        assertMatchesReference(fill(PlanarImgs.unsignedBytes(WIDTH, HEIGHT, 3)));
+    }
+
+    @Test
+    void multiChannelArrayImgUsesLastPlaneLikePerPixelLoop() {
+        assertMatchesReference(fill(ArrayImgs.unsignedBytes(WIDTH, HEIGHT, 2)));
+    }
+
+    @Test
+    void cellImgMatchesPerPixelLoop() {
+        assertMatchesReference(fill(new CellImgFactory<>(new UnsignedByteType(), 8).create(WIDTH, HEIGHT, 2)));
+    }
+
+    private static void assertMatchesReference(Img<UnsignedByteType> img) {
+        for (double threshold : new double[]{0, 1, 100.5, 195, 255, 256}) {
+            int[] expected = pixels(reference(img, threshold));
+            assertArrayEquals(expected, pixels(ThresholdOverlayRenderer.render(img, threshold, null, 1)),
+                    "single band, threshold " + threshold);
+            assertArrayEquals(expected, pixels(ThresholdOverlayRenderer.render(img, threshold, executor, 3)),
+                    "three bands, threshold " + threshold);
+            assertArrayEquals(expected, pixels(ThresholdOverlayRenderer.render(img, threshold, executor, 64)),
+                    "more bands than rows, threshold " + threshold);
+        }
+    }
+
+    /**
+     * 原先的逐像素实现：遍历全部像素，同一(x, y)上后遍历的值覆盖先遍历的值
+     */
+    private static BufferedImage reference(Img<UnsignedByteType> img, double threshold) {
+        int width = (int) img.dimension(0);
+        int height = (int) img.dimension(1);
+        double[][] pixelValues = new double[width][height];
+        Cursor<UnsignedByteType> cursor = img.localizingCursor();
+        int[] position = new int[img.numDimensions()];
+        while (cursor.hasNext()) {
+            UnsignedByteType pixel = cursor.next();
+            cursor.localize(position);
+            pixelValues[position[0]][position[1]] = pixel.getRealDouble();
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double value = pixelValues[x][y];
+                int gray = (int) value;
+                int rgb = value >= threshold
+                        ? new Color(255, gray / 3, gray / 3).getRGB()
+                        : new Color(gray, gray, gray).getRGB();
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    private static Img<UnsignedByteType> fill(Img<UnsignedByteType> img) {
+        Cursor<UnsignedByteType> cursor = img.localizingCursor();
+        while (cursor.hasNext()) {
+            cursor.fwd();
+            long z = img.numDimensions() > 2 ? cursor.getLongPosition(2) : 0;
+            cursor.get().set((int) ((cursor.getLongPosition(0) * 31 + cursor.getLongPosition(1) * 17 + z * 101) % 256));
+        }
+        return img;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}